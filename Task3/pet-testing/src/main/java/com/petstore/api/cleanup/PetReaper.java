@@ -0,0 +1,200 @@
+package com.petstore.api.cleanup;
+
+import com.petstore.api.client.BulkResult;
+import com.petstore.api.client.PetApiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes the pets a run created, in parallel batches on a background thread.
+ * <p>
+ * The client {@link #register registers} every pet it creates and {@link #forget forgets}
+ * every pet it deletes. Pets registered while a thread has a scope open (one test method,
+ * see {@link #openScope()}) become eligible for deletion when the scope closes, and are
+ * deleted in the background once a batch has built up or the reap interval passes. Pets
+ * registered outside a scope, e.g. class-level fixtures, and anything still left are
+ * deleted by {@link #close()}. A 404 counts as already gone rather than as a failure.
+ */
+public class PetReaper implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PetReaper.class);
+    private static final int MAX_LOGGED_FAILURES = 10;
+
+    private final PetApiClient client;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Set<Long> live = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<List<Long>> scope = new ThreadLocal<>();
+    private final Queue<Long> retired = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger retiredCount = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder reaped = new LongAdder();
+    private final LongAdder alreadyGone = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicInteger loggedFailures = new AtomicInteger();
+
+    /**
+     * @param client Client the deletes are sent with
+     * @param batchSize Retired pets that trigger a reap, and the most deleted per batch
+     * @param maxInFlight Deletes outstanding at a time within a batch
+     * @param interval How often retired pets are reaped even if no batch has built up
+     */
+    public PetReaper(PetApiClient client, int batchSize, int maxInFlight, Duration interval) {
+        this.client = client;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pet-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, interval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::reapRetired, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a pet created by this run so it is deleted later.
+     */
+    public void register(long petId) {
+        live.add(petId);
+        List<Long> current = scope.get();
+        if (current != null) {
+            current.add(petId);
+        }
+    }
+
+    /**
+     * Stops tracking a pet that has been deleted by other means.
+     */
+    public void forget(long petId) {
+        live.remove(petId);
+    }
+
+    /**
+     * Starts collecting the pets the calling thread registers, e.g. before a test method.
+     */
+    public void openScope() {
+        scope.set(new ArrayList<>());
+    }
+
+    /**
+     * Makes the pets registered since {@link #openScope()} on this thread eligible for deletion.
+     */
+    public void closeScope() {
+        List<Long> current = scope.get();
+        scope.remove();
+        if (current == null || current.isEmpty()) {
+            return;
+        }
+        retired.addAll(current);
+        if (retiredCount.addAndGet(current.size()) >= batchSize) {
+            try {
+                scheduler.execute(this::reapRetired);
+            } catch (RejectedExecutionException e) {
+                // Closing; close() deletes everything still registered.
+            }
+        }
+    }
+
+    private void reapRetired() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        Long petId;
+        while ((petId = retired.poll()) != null) {
+            retiredCount.decrementAndGet();
+            if (live.remove(petId)) {
+                batch.add(petId);
+            }
+            if (batch.size() == batchSize) {
+                deleteBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteBatch(batch);
+        }
+    }
+
+    private void deleteBatch(List<Long> batch) {
+        BulkResult result;
+        try {
+            result = client.deletePets(batch, maxInFlight);
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            logger.warn("Failed to delete a batch of {} pets", batch.size(), e);
+            return;
+        }
+        for (BulkResult.ItemResult item : result.getItems()) {
+            if (item.isSuccess()) {
+                reaped.increment();
+            } else if (item.getStatusCode() == 404) {
+                alreadyGone.increment();
+            } else {
+                failed.increment();
+                if (loggedFailures.getAndIncrement() < MAX_LOGGED_FAILURES) {
+                    logger.warn("Failed to delete pet {}: {}", item.getPetId(), item);
+                }
+            }
+        }
+        logger.debug("Reaped batch of {} pets in {} ms", batch.size(), result.getElapsed().toMillis());
+    }
+
+    /**
+     * @return Pets registered and not yet deleted or forgotten
+     */
+    public int getPending() {
+        return live.size();
+    }
+
+    public long getReapedCount() {
+        return reaped.sum();
+    }
+
+    public long getAlreadyGoneCount() {
+        return alreadyGone.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PetReaper[reaped=%d, alreadyGone=%d, failed=%d, pending=%d]",
+                getReapedCount(), getAlreadyGoneCount(), getFailedCount(), getPending());
+    }
+
+    /**
+     * Stops the background thread and deletes every pet still registered, blocking until done.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        retired.clear();
+        retiredCount.set(0);
+        List<Long> remaining = new ArrayList<>(live);
+        live.removeAll(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            deleteBatch(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+        logger.info("{}", this);
+    }
+}
@@ -1,37 +1,111 @@
 package com.petstore.api.client;
 
+import com.petstore.api.config.ApiConfig;
 import com.petstore.api.util.RequestResponseLoggingFilter;
+import com.petstore.model.Pet;
+import com.petstore.model.json.ObjectMappers;
+import com.petstore.model.json.PetCodec;
 import io.restassured.RestAssured;
 import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import io.restassured.specification.MultiPartSpecification;
 import io.restassured.specification.RequestSpecification;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ApiClientBase {
     protected static final Logger logger = LoggerFactory.getLogger(ApiClientBase.class);
-    protected RequestSpecification requestSpec;
+    protected final RequestSpecification requestSpec;
+    private final RequestSpecification baseSpec;
     private final String baseUri;
     private final RequestResponseLoggingFilter loggingFilter;
 
     public ApiClientBase(String baseUri) {
+        this(baseUri, null);
+    }
+
+    /**
+     * Creates a client whose requests lease connections from the given pool. The client
+     * holds no per-request state and can be shared by any number of threads.
+     *
+     * @param baseUri The API base URI
+     * @param connectionPool The pool to send requests through, or null for REST Assured defaults
+     */
+    public ApiClientBase(String baseUri, HttpConnectionPool connectionPool) {
+        this(baseUri, connectionPool, List.of());
+    }
+
+    /**
+     * Creates a pooled client that runs the given filters around every request. The filters
+     * run outermost, so they observe the full exchange including reading the response body.
+     *
+     * @param baseUri The API base URI
+     * @param connectionPool The pool to send requests through, or null for a client per request
+     *                       with the configured timeouts
+     * @param filters Filters shared by all requests, in the order they should run
+     */
+    public ApiClientBase(String baseUri, HttpConnectionPool connectionPool, List<Filter> filters) {
         this.baseUri = baseUri;
+        RestAssuredConfig config = (connectionPool != null ? connectionPool.getRestAssuredConfig() : unpooledConfig())
+                .objectMapperConfig(ObjectMapperConfig.objectMapperConfig()
+                        .jackson2ObjectMapperFactory((type, charset) -> ObjectMappers.shared()));
         this.loggingFilter = new RequestResponseLoggingFilter();
-        this.requestSpec = new RequestSpecBuilder()
+        RequestSpecBuilder specBuilder = new RequestSpecBuilder()
                 .setBaseUri(baseUri)
+                .setConfig(config);
+        filters.forEach(specBuilder::addFilter);
+        if (connectionPool != null) {
+            specBuilder.addFilter(connectionPool.getReleaseFilter());
+        }
+        this.baseSpec = specBuilder.build();
+        this.requestSpec = new RequestSpecBuilder()
+                .addRequestSpecification(baseSpec)
                 .setContentType(ContentType.JSON)
                 .build();
     }
 
+    /**
+     * A new client, and with it a new connection, for every request, as REST Assured does by
+     * default, but bounded by the configured connect and read timeouts.
+     */
+    private static RestAssuredConfig unpooledConfig() {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(ApiConfig.getConnectTimeoutMillis())
+                .setSocketTimeout(ApiConfig.getDefaultTimeout())
+                .build();
+        return RestAssured.config().httpClient(HttpClientConfig.httpClientConfig()
+                .httpClientFactory(() -> new RestAssuredHttpClient(HttpClientBuilder.create()
+                        .setConnectionManager(new BasicHttpClientConnectionManager())
+                        .setDefaultRequestConfig(requestConfig)
+                        .disableCookieManagement()
+                        .disableContentCompression()
+                        .build())));
+    }
+
     protected String getBaseUri() {
         return baseUri;
     }
 
+    /**
+     * @return Specification carrying the base URI, configuration and connection handling
+     *         but no content type, for requests that are not JSON
+     */
+    protected RequestSpecification getBaseSpec() {
+        return baseSpec;
+    }
+
     protected RequestResponseLoggingFilter getLoggingFilter() {
         return loggingFilter;
     }
@@ -52,10 +126,9 @@ public class ApiClientBase {
     }
 
     protected Response post(String path, Object body) {
-        Response response = RestAssured.given()
+        Response response = withBody(RestAssured.given()
                 .spec(requestSpec)
-                .filter(loggingFilter)
-                .body(body)
+                .filter(loggingFilter), body)
                 .when()
                 .post(path);
         return response;
@@ -64,12 +137,12 @@ public class ApiClientBase {
     protected Response post(String path, Object body, Map<String, Object> pathParams) {
         RequestSpecification request = RestAssured.given().spec(requestSpec).filter(loggingFilter);
         pathParams.forEach(request::pathParam);
-        return request.body(body).when().post(path);
+        return withBody(request, body).when().post(path);
     }
 
     protected Response postFormData(String path, Map<String, String> formParams, Map<String, Object> pathParams) {
         RequestSpecification request = RestAssured.given()
-                .baseUri(baseUri)
+                .spec(baseSpec)
                 .filter(loggingFilter)
                 .contentType("application/x-www-form-urlencoded");
         
@@ -82,9 +155,15 @@ public class ApiClientBase {
         return request.when().post(path);
     }
 
+    /**
+     * Posts a multipart form. Values may be files, strings, other objects (sent as their string
+     * form), or ready-made {@link MultiPartSpecification}s; a part whose content is an
+     * {@code InputStream} is streamed to the connection in chunks rather than buffered, and
+     * such a request cannot be re-sent.
+     */
     protected Response postMultipartData(String path, Map<String, Object> multipartData, Map<String, Object> pathParams) {
         RequestSpecification request = RestAssured.given()
-                .baseUri(baseUri)
+                .spec(baseSpec)
                 .filter(loggingFilter);
         
         if (pathParams != null) {
@@ -94,6 +173,8 @@ public class ApiClientBase {
         multipartData.forEach((key, value) -> {
             if (value == null) {
                 return;
+            } else if (value instanceof MultiPartSpecification) {
+                request.multiPart((MultiPartSpecification) value);
             } else if (value instanceof File) {
                 File file = (File) value;
                 if (file.exists() && file.canRead()) {
@@ -117,10 +198,9 @@ public class ApiClientBase {
     }
 
     protected Response put(String path, Object body) {
-        Response response = RestAssured.given()
+        Response response = withBody(RestAssured.given()
                 .spec(requestSpec)
-                .filter(loggingFilter)
-                .body(body)
+                .filter(loggingFilter), body)
                 .when()
                 .put(path);
         return response;
@@ -129,7 +209,7 @@ public class ApiClientBase {
     protected Response put(String path, Object body, Map<String, Object> pathParams) {
         RequestSpecification request = RestAssured.given().spec(requestSpec).filter(loggingFilter);
         pathParams.forEach(request::pathParam);
-        return request.body(body).when().put(path);
+        return withBody(request, body).when().put(path);
     }
 
     protected Response delete(String path) {
@@ -146,4 +226,16 @@ public class ApiClientBase {
         pathParams.forEach(request::pathParam);
         return request.when().delete(path);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Pets are encoded with the streaming codec; anything else goes through the shared mapper.
+     * The encoded bytes must go through {@code body(byte[])}: passed as an {@code Object} they
+     * would be serialized again by the mapper into a base64 string.
+     */
+    private static RequestSpecification withBody(RequestSpecification request, Object body) {
+        if (body instanceof Pet) {
+            return request.body(PetCodec.toBytes((Pet) body));
+        }
+        return request.body(body);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,346 @@
+package com.petstore.api.client;
+
+import com.petstore.api.config.ApiConfig;
+import com.petstore.model.Pet;
+import com.petstore.model.json.PetArrayIterator;
+import com.petstore.model.json.PetCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.petstore.api.client.PetApiClient.PET_BY_ID_PATH;
+import static com.petstore.api.client.PetApiClient.PET_BY_STATUS_PATH;
+import static com.petstore.api.client.PetApiClient.PET_BY_TAGS_PATH;
+import static com.petstore.api.client.PetApiClient.PET_PATH;
+import static com.petstore.api.client.PetApiClient.PET_UPLOAD_IMAGE_PATH;
+
+/**
+ * Non-blocking counterpart of {@link PetApiClient} built on the JDK HTTP client.
+ * <p>
+ * Every operation returns immediately with a {@link CompletableFuture}; no thread is held
+ * while a request is in flight. HTTP/2 is preferred and requests to the same server are
+ * multiplexed over a single connection when the server supports it, falling back to
+ * HTTP/1.1 otherwise.
+ */
+public class AsyncPetApiClient implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncPetApiClient.class);
+    private static final String JSON = "application/json";
+    /**
+     * Keeps the body of error responses only; bulk operations need nothing else from it.
+     */
+    private static final HttpResponse.BodyHandler<String> ERROR_BODY_ONLY = info -> info.statusCode() / 100 == 2
+            ? HttpResponse.BodySubscribers.replacing(null)
+            : HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+
+    private final String baseUri;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+
+    public AsyncPetApiClient(String baseUri) {
+        this(baseUri, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public AsyncPetApiClient(String baseUri, int ioThreads) {
+        this.baseUri = baseUri;
+        this.executor = Executors.newFixedThreadPool(ioThreads, new IoThreadFactory());
+        this.requestTimeout = Duration.ofMillis(ApiConfig.getDefaultTimeout());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(requestTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    public CompletableFuture<HttpResponse<String>> createPet(Pet pet) {
+        return send(jsonRequest(PET_PATH).POST(HttpRequest.BodyPublishers.ofByteArray(PetCodec.toBytes(pet))));
+    }
+
+    public CompletableFuture<HttpResponse<String>> getPetById(Long id) {
+        return send(request(petPath(PET_BY_ID_PATH, id)).GET());
+    }
+
+    public CompletableFuture<HttpResponse<String>> updatePet(Pet pet) {
+        return send(jsonRequest(PET_PATH).PUT(HttpRequest.BodyPublishers.ofByteArray(PetCodec.toBytes(pet))));
+    }
+
+    public CompletableFuture<HttpResponse<String>> updatePetWithFormData(Long id, String name, String status) {
+        String form = "name=" + encode(name) + "&status=" + encode(status);
+        return send(request(petPath(PET_BY_ID_PATH, id))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+    }
+
+    public CompletableFuture<HttpResponse<String>> deletePet(Long id) {
+        return send(jsonRequest(petPath(PET_BY_ID_PATH, id)).DELETE());
+    }
+
+    public CompletableFuture<HttpResponse<String>> findPetsByStatus(String status) {
+        return send(request(PET_BY_STATUS_PATH + "?status=" + encode(status)).GET());
+    }
+
+    public CompletableFuture<HttpResponse<String>> findPetsByTags(String tags) {
+        return send(request(PET_BY_TAGS_PATH + "?tags=" + encode(tags)).GET());
+    }
+
+    /**
+     * Streams the pets with the given status as they are parsed from the response body,
+     * without buffering the whole array. The future completes once response headers arrive;
+     * close the stream if it is not consumed to the end so the connection is released.
+     */
+    public CompletableFuture<Stream<Pet>> streamPetsByStatus(String status) {
+        return stream(request(PET_BY_STATUS_PATH + "?status=" + encode(status)).GET());
+    }
+
+    /**
+     * Streams the pets carrying any of the given tags. See {@link #streamPetsByStatus(String)}.
+     */
+    public CompletableFuture<Stream<Pet>> streamPetsByTags(String tags) {
+        return stream(request(PET_BY_TAGS_PATH + "?tags=" + encode(tags)).GET());
+    }
+
+    public CompletableFuture<HttpResponse<String>> uploadPetImage(Long petId, File imageFile, String additionalMetadata) {
+        String boundary = "----petstore-" + UUID.randomUUID();
+        HttpRequest.BodyPublisher body;
+        try {
+            body = multipartBody(boundary, imageFile, additionalMetadata);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return send(request(petPath(PET_UPLOAD_IMAGE_PATH, petId))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(body));
+    }
+
+    /**
+     * Creates the pets with at most {@code maxInFlight} requests outstanding at a time. Each
+     * completed request immediately starts the next, so the window stays full without any
+     * thread blocking. Over HTTP/2 the window is multiplexed on one connection; over HTTP/1.1
+     * it uses up to {@code maxInFlight} connections.
+     *
+     * @return Future completing with one result per pet once every request has finished
+     */
+    public CompletableFuture<BulkResult> createPets(List<Pet> pets, int maxInFlight) {
+        return new BulkRun<>(pets, maxInFlight, Pet::getId,
+                pet -> jsonRequest(PET_PATH).POST(HttpRequest.BodyPublishers.ofByteArray(PetCodec.toBytes(pet))))
+                .start();
+    }
+
+    /**
+     * Deletes the pets with at most {@code maxInFlight} requests outstanding at a time.
+     * See {@link #createPets(List, int)}.
+     */
+    public CompletableFuture<BulkResult> deletePets(Collection<Long> petIds, int maxInFlight) {
+        return new BulkRun<>(new ArrayList<>(petIds), maxInFlight, id -> id,
+                id -> jsonRequest(petPath(PET_BY_ID_PATH, id)).DELETE())
+                .start();
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest.Builder builder) {
+        HttpRequest request = builder.build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        logger.debug("{} {} failed", request.method(), request.uri(), error);
+                    }
+                });
+    }
+
+    private CompletableFuture<Stream<Pet>> stream(HttpRequest.Builder builder) {
+        HttpRequest request = builder.build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    try {
+                        if (response.statusCode() != 200) {
+                            String error;
+                            try (InputStream body = response.body()) {
+                                error = new String(body.readNBytes(1024), StandardCharsets.UTF_8);
+                            }
+                            throw new IllegalStateException(String.format("%s %s returned HTTP %d: %s",
+                                    request.method(), request.uri(), response.statusCode(), error));
+                        }
+                        return PetArrayIterator.stream(response.body());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .timeout(requestTimeout)
+                .header("Accept", JSON);
+    }
+
+    private HttpRequest.Builder jsonRequest(String path) {
+        return request(path).header("Content-Type", JSON);
+    }
+
+    private static String petPath(String template, Long petId) {
+        return template.replace("{petId}", String.valueOf(petId));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds the multipart body around the file rather than copying the file into it, so the
+     * file is streamed from disk as the request is written.
+     */
+    private static HttpRequest.BodyPublisher multipartBody(String boundary, File file, String additionalMetadata)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (additionalMetadata != null) {
+            writePartHeader(out, boundary, "form-data; name=\"additionalMetadata\"", "text/plain");
+            out.write(additionalMetadata.getBytes(StandardCharsets.UTF_8));
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        if (file == null || !file.exists() || !file.canRead()) {
+            out.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+            return HttpRequest.BodyPublishers.ofByteArray(out.toByteArray());
+        }
+        writePartHeader(out, boundary,
+                "form-data; name=\"file\"; filename=\"" + file.getName() + "\"", "application/octet-stream");
+        byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        return HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofByteArray(out.toByteArray()),
+                HttpRequest.BodyPublishers.ofFile(file.toPath()),
+                HttpRequest.BodyPublishers.ofByteArray(trailer));
+    }
+
+    private static void writePartHeader(ByteArrayOutputStream out, String boundary, String disposition,
+                                        String contentType) throws IOException {
+        String header = "--" + boundary + "\r\n"
+                + "Content-Disposition: " + disposition + "\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n";
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * One bulk operation: a window of requests in flight, each completion starting the next
+     * item, with results stored by input position.
+     */
+    private final class BulkRun<T> {
+        private final List<T> items;
+        private final int maxInFlight;
+        private final Function<T, Long> idOf;
+        private final Function<T, HttpRequest.Builder> toRequest;
+        private final BulkResult.ItemResult[] results;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<BulkResult> done = new CompletableFuture<>();
+        private final long start = System.nanoTime();
+
+        BulkRun(List<T> items, int maxInFlight, Function<T, Long> idOf, Function<T, HttpRequest.Builder> toRequest) {
+            this.items = items;
+            this.maxInFlight = Math.max(1, maxInFlight);
+            this.idOf = idOf;
+            this.toRequest = toRequest;
+            this.results = new BulkResult.ItemResult[items.size()];
+            this.remaining = new AtomicInteger(items.size());
+        }
+
+        CompletableFuture<BulkResult> start() {
+            if (items.isEmpty()) {
+                done.complete(new BulkResult(results, 0));
+            }
+            for (int i = 0; i < Math.min(maxInFlight, items.size()); i++) {
+                sendNext();
+            }
+            return done;
+        }
+
+        private void sendNext() {
+            int index;
+            HttpRequest request;
+            while (true) {
+                index = nextIndex.getAndIncrement();
+                if (index >= items.size()) {
+                    return;
+                }
+                try {
+                    request = toRequest.apply(items.get(index)).build();
+                    break;
+                } catch (RuntimeException e) {
+                    // Items that cannot even be sent are recorded here; looping rather than
+                    // recursing keeps a long run of bad items off the stack.
+                    results[index] = new BulkResult.ItemResult(idOf(items.get(index)), 0, 0, e.toString());
+                    if (remaining.decrementAndGet() == 0) {
+                        done.complete(new BulkResult(results, System.nanoTime() - start));
+                        return;
+                    }
+                }
+            }
+            T item = items.get(index);
+            int sentIndex = index;
+            long sent = System.nanoTime();
+            httpClient.sendAsync(request, ERROR_BODY_ONLY).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - sent;
+                BulkResult.ItemResult result;
+                if (error != null) {
+                    result = new BulkResult.ItemResult(idOf(item), 0, latency, error.toString());
+                } else {
+                    result = new BulkResult.ItemResult(idOf(item), response.statusCode(), latency,
+                            BulkResult.excerpt(response.body()));
+                }
+                complete(sentIndex, result);
+            });
+        }
+
+        private Long idOf(T item) {
+            return item != null ? idOf.apply(item) : null;
+        }
+
+        private void complete(int index, BulkResult.ItemResult result) {
+            results[index] = result;
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(new BulkResult(results, System.nanoTime() - start));
+            } else {
+                sendNext();
+            }
+        }
+    }
+
+    /**
+     * Stops the I/O threads backing this client. In-flight requests are abandoned.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static final class IoThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "petstore-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
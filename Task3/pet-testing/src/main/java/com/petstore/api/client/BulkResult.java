@@ -0,0 +1,145 @@
+package com.petstore.api.client;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a bulk operation: one {@link ItemResult} per pet, in input order, plus
+ * success and failure counts, a latency histogram and the overall elapsed time.
+ */
+public class BulkResult {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int MAX_ERROR_CHARS = 512;
+
+    private final List<ItemResult> items;
+    private final Histogram latency = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final long elapsedNanos;
+    private final int succeeded;
+
+    BulkResult(ItemResult[] items, long elapsedNanos) {
+        this.items = Collections.unmodifiableList(Arrays.asList(items));
+        this.elapsedNanos = elapsedNanos;
+        int ok = 0;
+        for (ItemResult item : items) {
+            latency.recordValue(Math.min(item.getLatencyNanos(), HIGHEST_TRACKABLE_NANOS));
+            if (item.isSuccess()) {
+                ok++;
+            }
+        }
+        this.succeeded = ok;
+    }
+
+    /**
+     * @return Result of every item, in the order the items were given
+     */
+    public List<ItemResult> getItems() {
+        return items;
+    }
+
+    public List<ItemResult> getFailures() {
+        List<ItemResult> failures = new ArrayList<>();
+        for (ItemResult item : items) {
+            if (!item.isSuccess()) {
+                failures.add(item);
+            }
+        }
+        return failures;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return items.size() - succeeded;
+    }
+
+    /**
+     * @return Copy of the per-item latency histogram in nanoseconds
+     */
+    public Histogram getLatency() {
+        return latency.copy();
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * @return Items completed per second
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? items.size() / (elapsedNanos / 1e9) : 0.0;
+    }
+
+    /**
+     * @return The start of an error body, as kept in {@link ItemResult#getError()}
+     */
+    static String excerpt(String body) {
+        return body == null ? null : body.substring(0, Math.min(body.length(), MAX_ERROR_CHARS));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkResult[items=%d, succeeded=%d, failed=%d, elapsed=%dms, throughput=%.0f/s, "
+                        + "latency p50=%.2fms p99=%.2fms max=%.2fms]",
+                items.size(), succeeded, getFailed(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(),
+                latency.getValueAtPercentile(50.0) / 1e6, latency.getValueAtPercentile(99.0) / 1e6,
+                latency.getMaxValue() / 1e6);
+    }
+
+    /**
+     * Outcome of one item of a bulk operation.
+     */
+    public static final class ItemResult {
+        private final Long petId;
+        private final int statusCode;
+        private final long latencyNanos;
+        private final String error;
+
+        ItemResult(Long petId, int statusCode, long latencyNanos, String error) {
+            this.petId = petId;
+            this.statusCode = statusCode;
+            this.latencyNanos = latencyNanos;
+            this.error = error;
+        }
+
+        public Long getPetId() {
+            return petId;
+        }
+
+        /**
+         * @return HTTP status code, or 0 if no response was received
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * @return Error response body or exception message, or null for a success
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return statusCode / 100 == 2;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ItemResult[petId=%s, status=%d, latency=%.2fms%s]", petId, statusCode,
+                    latencyNanos / 1e6, error != null ? ", error=" + error : "");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.petstore.api.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a {@link ByteBuffer}, or a region of a file mapped into memory window by window,
+ * as an {@link InputStream}, so it can be streamed as a request body. Data is only copied
+ * into the caller's read buffer; nothing is accumulated on the heap however large the source.
+ */
+final class ByteBufferInputStream extends InputStream {
+    private static final long MAP_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long end;
+    private long nextPosition;
+    private ByteBuffer buffer;
+
+    /**
+     * Reads the buffer's remaining bytes without changing its position or limit.
+     */
+    ByteBufferInputStream(ByteBuffer buffer) {
+        this.channel = null;
+        this.end = 0;
+        this.buffer = buffer.duplicate();
+    }
+
+    /**
+     * Reads {@code size} bytes of the channel starting at {@code position}, mapping at most
+     * {@value #MAP_WINDOW_BYTES} bytes at a time. The channel is not closed.
+     */
+    ByteBufferInputStream(FileChannel channel, long position, long size) {
+        if (position < 0 || size < 0) {
+            throw new IllegalArgumentException("Invalid file region: position " + position + ", size " + size);
+        }
+        this.channel = channel;
+        this.nextPosition = position;
+        this.end = position + size;
+        this.buffer = ByteBuffer.allocate(0);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(target, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    private boolean ensureRemaining() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        if (channel == null || nextPosition >= end) {
+            return false;
+        }
+        long window = Math.min(MAP_WINDOW_BYTES, end - nextPosition);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, nextPosition, window);
+        nextPosition += window;
+        return buffer.hasRemaining();
+    }
+}
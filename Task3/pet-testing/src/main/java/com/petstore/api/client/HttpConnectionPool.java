@@ -0,0 +1,196 @@
+package com.petstore.api.client;
+
+import com.petstore.api.config.ApiConfig;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of keep-alive HTTP connections shared by every request made through
+ * a client configured with it.
+ * <p>
+ * REST Assured normally creates a new HTTP client, and with it a new TCP connection, for
+ * each request. Clients built on a pool instead lease a connection per request and return
+ * it once the response has been read, so parallel test threads reuse open connections.
+ * Connections idle for longer than the configured timeout are closed in the background.
+ * <p>
+ * Opening a connection, waiting for one to be leased and every read are bounded by the
+ * configured timeouts, so a hung server fails requests instead of blocking threads forever.
+ */
+public class HttpConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HttpConnectionPool.class);
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final List<HttpRequestInterceptor> interceptors = new CopyOnWriteArrayList<>();
+    private final RestAssuredConfig restAssuredConfig;
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Creates a pool that opens and leases connections within {@code api.connect.timeout.ms}
+     * and reads within {@code api.timeout}.
+     *
+     * @param maxTotal Maximum number of open connections across all routes
+     * @param maxPerRoute Maximum number of open connections to a single host
+     * @param idleTimeout How long a connection may sit unused before it is closed
+     */
+    public HttpConnectionPool(int maxTotal, int maxPerRoute, Duration idleTimeout) {
+        this(maxTotal, maxPerRoute, idleTimeout, Duration.ofMillis(ApiConfig.getConnectTimeoutMillis()),
+                Duration.ofMillis(ApiConfig.getDefaultTimeout()));
+    }
+
+    /**
+     * @param maxTotal Maximum number of open connections across all routes
+     * @param maxPerRoute Maximum number of open connections to a single host
+     * @param idleTimeout How long a connection may sit unused before it is closed
+     * @param connectTimeout Longest wait to open a connection, and to lease one from the pool
+     * @param readTimeout Longest wait for data on an open connection, unless a request sets its own
+     */
+    public HttpConnectionPool(int maxTotal, int maxPerRoute, Duration idleTimeout,
+                              Duration connectTimeout, Duration readTimeout) {
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .build();
+        // REST Assured handles cookies and content decoding itself.
+        RestAssuredHttpClient httpClient = new RestAssuredHttpClient(HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setRequestExecutor(new InterceptingRequestExecutor())
+                .disableCookieManagement()
+                .disableContentCompression()
+                .build());
+        this.restAssuredConfig = RestAssuredConfig.config().httpClient(HttpClientConfig.httpClientConfig()
+                .reuseHttpClientInstance()
+                .httpClientFactory(() -> httpClient));
+
+        long evictionMillis = Math.max(1000L, idleTimeout.toMillis() / 2);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }, evictionMillis, evictionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return REST Assured configuration that routes requests through this pool
+     */
+    public RestAssuredConfig getRestAssuredConfig() {
+        return restAssuredConfig;
+    }
+
+    /**
+     * REST Assured reads response bodies lazily, and a pooled connection is only released
+     * once its body has been read to the end. This filter drains the body as soon as the
+     * response arrives so callers that only look at the status code do not pin connections.
+     *
+     * @return Filter that must be applied to every request sent through this pool
+     */
+    public Filter getReleaseFilter() {
+        return (requestSpec, responseSpec, ctx) -> {
+            Response response = ctx.next(requestSpec, responseSpec);
+            response.asByteArray();
+            return response;
+        };
+    }
+
+    /**
+     * Adds an interceptor that runs for every request sent through this pool, once a
+     * connection has been leased and before the request is written. The leased connection
+     * is available from the context as {@link HttpCoreContext#getConnection()}.
+     */
+    public void addRequestInterceptor(HttpRequestInterceptor interceptor) {
+        interceptors.add(interceptor);
+    }
+
+    /**
+     * @return Number of connections currently leased to in-flight requests
+     */
+    public int getLeased() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    /**
+     * @return Number of open connections waiting in the pool for reuse
+     */
+    public int getIdle() {
+        return connectionManager.getTotalStats().getAvailable();
+    }
+
+    /**
+     * @return Number of requests blocked waiting for a connection to become available
+     */
+    public int getPending() {
+        return connectionManager.getTotalStats().getPending();
+    }
+
+    /**
+     * @return Maximum number of connections the pool will open
+     */
+    public int getMaxTotal() {
+        return connectionManager.getMaxTotal();
+    }
+
+    @Override
+    public String toString() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return String.format("HttpConnectionPool[leased=%d, idle=%d, pending=%d, max=%d]",
+                stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+
+    /**
+     * Stops idle eviction and closes every pooled connection.
+     */
+    @Override
+    public void close() {
+        logger.info("Closing {}", this);
+        evictor.shutdownNow();
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Runs the added interceptors on the leased connection. Interceptors installed through
+     * {@link HttpClientBuilder} run before a connection is leased, too early to set its timeout.
+     */
+    private final class InterceptingRequestExecutor extends HttpRequestExecutor {
+        @Override
+        protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection connection,
+                                             HttpContext context) throws IOException, HttpException {
+            context.setAttribute(HttpCoreContext.HTTP_CONNECTION, connection);
+            for (HttpRequestInterceptor interceptor : interceptors) {
+                interceptor.process(request, context);
+            }
+            return super.doSendRequest(request, connection, context);
+        }
+    }
+}
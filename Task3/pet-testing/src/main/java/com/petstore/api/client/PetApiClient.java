@@ -1,39 +1,137 @@
 package com.petstore.api.client;
 
-import com.petstore.api.util.RequestResponseLoggingFilter;
+import com.petstore.api.cleanup.PetReaper;
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.resilience.RequestHedger;
 import com.petstore.model.Pet;
 import io.restassured.RestAssured;
+import io.restassured.builder.MultiPartSpecBuilder;
+import io.restassured.filter.Filter;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-public class PetApiClient extends ApiClientBase {
-    private static final String PET_PATH = "/pet";
-    private static final String PET_BY_ID_PATH = PET_PATH + "/{petId}";
-    private static final String PET_BY_STATUS_PATH = PET_PATH + "/findByStatus";
-    private static final String PET_BY_TAGS_PATH = PET_PATH + "/findByTags";
-    private static final String PET_UPLOAD_IMAGE_PATH = PET_BY_ID_PATH + "/uploadImage";
-    private final RequestResponseLoggingFilter loggingFilter;
+public class PetApiClient extends ApiClientBase implements AutoCloseable {
+    static final String PET_PATH = "/pet";
+    static final String PET_BY_ID_PATH = PET_PATH + "/{petId}";
+    static final String PET_BY_STATUS_PATH = PET_PATH + "/findByStatus";
+    static final String PET_BY_TAGS_PATH = PET_PATH + "/findByTags";
+    static final String PET_UPLOAD_IMAGE_PATH = PET_BY_ID_PATH + "/uploadImage";
+    private volatile AsyncPetApiClient asyncClient;
+    private volatile ExecutorService bulkExecutor;
+    private volatile RequestHedger hedger;
+    private volatile PetReaper reaper;
+    private volatile PetCache cache;
 
     public PetApiClient(String baseUri) {
         super(baseUri);
-        this.loggingFilter = new RequestResponseLoggingFilter();
+    }
+
+    public PetApiClient(String baseUri, HttpConnectionPool connectionPool) {
+        super(baseUri, connectionPool);
+    }
+
+    public PetApiClient(String baseUri, HttpConnectionPool connectionPool, List<Filter> filters) {
+        super(baseUri, connectionPool, filters);
     }
 
     public Response createPet(Pet pet) {
-        return post(PET_PATH, pet);
+        Response response;
+        try {
+            response = post(PET_PATH, pet);
+        } finally {
+            invalidate(pet != null ? pet.getId() : null);
+        }
+        PetReaper current = reaper;
+        if (current != null && isSuccess(response.getStatusCode())) {
+            Long id = pet != null && pet.getId() != null ? pet.getId() : idOf(response);
+            if (id != null) {
+                current.register(id);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Registers every pet this client creates with the given reaper, and tells it about every
+     * pet the client deletes, or stops doing so when null.
+     */
+    public void setReaper(PetReaper reaper) {
+        this.reaper = reaper;
     }
 
+    /**
+     * Hedges {@link #getPetById}, {@link #findPetsByStatus} and {@link #findPetsByTags}
+     * through the given hedger, or turns hedging off when null.
+     */
+    public void setHedger(RequestHedger hedger) {
+        this.hedger = hedger;
+    }
+
+    /**
+     * Serves successful reads from the given cache and drops pets from it whenever this
+     * client changes them, or stops caching when null.
+     */
+    public void setCache(PetCache cache) {
+        this.cache = cache;
+    }
+
+    public PetCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Reads a pet, from the cache if one is set and holds it.
+     */
     public Response getPetById(Long id) {
+        PetCache current = cache;
+        if (current == null) {
+            return getPetByIdFromServer(id);
+        }
+        Response cached = current.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long readToken = current.startRead();
+        Response response = getPetByIdFromServer(id);
+        current.put(id, response, readToken);
+        return response;
+    }
+
+    /**
+     * Reads a pet from the server, bypassing the cache, for tests that must see its current state.
+     */
+    public Response getPetByIdFromServer(Long id) {
         Map<String, Object> pathParams = Collections.singletonMap("petId", id);
-        return get(PET_BY_ID_PATH, pathParams);
+        return hedged(PET_BY_ID_PATH, () -> get(PET_BY_ID_PATH, pathParams));
     }
 
     public Response updatePet(Pet pet) {
-        return put(PET_PATH, pet);
+        try {
+            return put(PET_PATH, pet);
+        } finally {
+            invalidate(pet != null ? pet.getId() : null);
+        }
     }
 
     public Response updatePetWithFormData(Long id, String name, String status) {
@@ -41,34 +139,182 @@ public class PetApiClient extends ApiClientBase {
         Map<String, String> formParams = new HashMap<>();
         formParams.put("name", name);
         formParams.put("status", status);
-        
-        return postFormData(PET_BY_ID_PATH, formParams, pathParams);
+
+        try {
+            return postFormData(PET_BY_ID_PATH, formParams, pathParams);
+        } finally {
+            invalidate(id);
+        }
     }
 
     public Response deletePet(Long id) {
         Map<String, Object> pathParams = Collections.singletonMap("petId", id);
-        return delete(PET_BY_ID_PATH, pathParams);
+        Response response;
+        try {
+            response = delete(PET_BY_ID_PATH, pathParams);
+        } finally {
+            invalidate(id);
+        }
+        PetReaper current = reaper;
+        if (current != null && id != null && isSuccess(response.getStatusCode())) {
+            current.forget(id);
+        }
+        return response;
     }
 
     public Response deletePetWithoutAuth(Long id) {
-        return io.restassured.RestAssured.given()
-                .baseUri(getBaseUri())
-                .contentType("application/json")
-                .pathParam("petId", id)
-                .filter(getLoggingFilter())
-                .when()
-                .delete(PET_BY_ID_PATH);
+        Response response;
+        try {
+            response = io.restassured.RestAssured.given()
+                    .spec(getBaseSpec())
+                    .contentType("application/json")
+                    .pathParam("petId", id)
+                    .filter(getLoggingFilter())
+                    .when()
+                    .delete(PET_BY_ID_PATH);
+        } finally {
+            invalidate(id);
+        }
+        PetReaper current = reaper;
+        if (current != null && id != null && isSuccess(response.getStatusCode())) {
+            current.forget(id);
+        }
+        return response;
     }
 
     public Response findPetsByStatus(String status) {
-        return get(PET_BY_STATUS_PATH + "?status=" + status);
+        return hedged(PET_BY_STATUS_PATH, () -> get(PET_BY_STATUS_PATH + "?status=" + status));
     }
 
     public Response findPetsByTags(String tags) {
-        return get(PET_BY_TAGS_PATH + "?tags=" + tags);
+        return hedged(PET_BY_TAGS_PATH, () -> get(PET_BY_TAGS_PATH + "?tags=" + tags));
+    }
+
+    /**
+     * Streams the pets with the given status, parsing the response array incrementally so
+     * large result sets can be filtered or counted in constant memory. Use try-with-resources
+     * when the stream may not be consumed to the end.
+     * <p>
+     * The request goes through this client's {@link AsyncPetApiClient}, not REST Assured: the
+     * filters would read the whole body before returning it. It is therefore not logged,
+     * measured, limited, timed out by a deadline or guarded by a circuit breaker.
+     */
+    public Stream<Pet> streamPetsByStatus(String status) {
+        return await(asyncClient().streamPetsByStatus(status));
+    }
+
+    /**
+     * Streams the pets carrying any of the given tags. See {@link #streamPetsByStatus(String)}.
+     */
+    public Stream<Pet> streamPetsByTags(String tags) {
+        return await(asyncClient().streamPetsByTags(tags));
+    }
+
+    /**
+     * Creates the pets with up to {@code api.bulk.max.in.flight} requests outstanding,
+     * blocking until all have finished.
+     * <p>
+     * Each pet is sent like {@link #createPet}, through the pool and every filter of this
+     * client, so a limiter, circuit breaker or pool smaller than the window bounds it further.
+     * The requests run on this client's bulk threads rather than the caller's, so a
+     * {@link com.petstore.api.resilience.Deadline} open on the calling thread does not apply.
+     *
+     * @return Per-pet outcome with success and failure counts and latency
+     */
+    public BulkResult createPets(List<Pet> pets) {
+        BulkResult result = runBulk(pets, ApiConfig.getBulkMaxInFlight(),
+                (pet, response) -> pet != null && pet.getId() != null ? pet.getId() : idOf(response),
+                pet -> post(PET_PATH, pet));
+        pets.forEach(pet -> invalidate(pet != null ? pet.getId() : null));
+        PetReaper current = reaper;
+        if (current != null) {
+            for (BulkResult.ItemResult item : result.getItems()) {
+                if (item.isSuccess() && item.getPetId() != null) {
+                    current.register(item.getPetId());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deletes the pets with up to {@code api.bulk.max.in.flight} requests outstanding,
+     * blocking until all have finished. See {@link #createPets(List)}.
+     *
+     * @return Per-pet outcome with success and failure counts and latency
+     */
+    public BulkResult deletePets(Collection<Long> petIds) {
+        return deletePets(petIds, ApiConfig.getBulkMaxInFlight());
+    }
+
+    /**
+     * Deletes the pets with up to {@code maxInFlight} requests outstanding, blocking until
+     * all have finished.
+     */
+    public BulkResult deletePets(Collection<Long> petIds, int maxInFlight) {
+        BulkResult result = runBulk(new ArrayList<>(petIds), maxInFlight, (id, response) -> id,
+                id -> delete(PET_BY_ID_PATH, Collections.singletonMap("petId", id)));
+        petIds.forEach(this::invalidate);
+        PetReaper current = reaper;
+        if (current != null) {
+            for (BulkResult.ItemResult item : result.getItems()) {
+                if (item.isSuccess() && item.getPetId() != null) {
+                    current.forget(item.getPetId());
+                }
+            }
+        }
+        return result;
     }
 
     public Response uploadPetImage(Long petId, File imageFile, String additionalMetadata) {
+        try {
+            return uploadPetImageUncached(petId, imageFile, additionalMetadata);
+        } finally {
+            invalidate(petId);
+        }
+    }
+
+    /**
+     * Uploads an image read from the stream, which is sent in chunks as it is read and never
+     * held in memory as a whole. The stream is read to the end but not closed. Such an upload
+     * cannot be retried, so a throttled response is returned as is.
+     */
+    public Response uploadPetImage(Long petId, InputStream image, String fileName, String additionalMetadata) {
+        Map<String, Object> multipartData = new HashMap<>();
+        if (additionalMetadata != null) {
+            multipartData.put("additionalMetadata", additionalMetadata);
+        }
+        multipartData.put("file", new MultiPartSpecBuilder(image)
+                .controlName("file")
+                .fileName(fileName)
+                .mimeType("application/octet-stream")
+                .build());
+        try {
+            return postMultipartData(PET_UPLOAD_IMAGE_PATH, multipartData, Collections.singletonMap("petId", petId));
+        } finally {
+            invalidate(petId);
+        }
+    }
+
+    /**
+     * Uploads the buffer's remaining bytes; its position and limit are left unchanged. A direct
+     * or mapped buffer is streamed without copying its contents onto the heap.
+     */
+    public Response uploadPetImage(Long petId, ByteBuffer image, String fileName, String additionalMetadata) {
+        return uploadPetImage(petId, new ByteBufferInputStream(image), fileName, additionalMetadata);
+    }
+
+    /**
+     * Uploads {@code size} bytes of the file starting at {@code position}, mapping the region
+     * into memory a window at a time so heap use stays flat however large it is. The channel
+     * is not closed.
+     */
+    public Response uploadPetImage(Long petId, FileChannel file, long position, long size, String fileName,
+                                   String additionalMetadata) {
+        return uploadPetImage(petId, new ByteBufferInputStream(file, position, size), fileName, additionalMetadata);
+    }
+
+    private Response uploadPetImageUncached(Long petId, File imageFile, String additionalMetadata) {
         Map<String, Object> pathParams = Collections.singletonMap("petId", petId);
         Map<String, Object> multipartData = new HashMap<>();
         
@@ -90,4 +336,150 @@ public class PetApiClient extends ApiClientBase {
         
         return postMultipartData(PET_UPLOAD_IMAGE_PATH, multipartData, pathParams);
     }
-} 
\ No newline at end of file
+
+    private Response hedged(String path, Supplier<Response> call) {
+        RequestHedger current = hedger;
+        return current != null ? current.execute("GET " + path, call) : call.get();
+    }
+
+    private void invalidate(Long petId) {
+        PetCache current = cache;
+        if (current != null) {
+            current.invalidate(petId);
+        }
+    }
+
+    private static boolean isSuccess(int statusCode) {
+        return statusCode / 100 == 2;
+    }
+
+    /**
+     * @return The id the server assigned to a created pet, or null if the body has none
+     */
+    private static Long idOf(Response response) {
+        try {
+            Object id = response.path("id");
+            return id instanceof Number ? ((Number) id).longValue() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs one request per item on up to {@code maxInFlight} bulk threads, each taking the
+     * next unsent item as soon as its previous request has finished.
+     */
+    private <T> BulkResult runBulk(List<T> items, int maxInFlight, BiFunction<T, Response, Long> idOf,
+                                   Function<T, Response> send) {
+        BulkResult.ItemResult[] results = new BulkResult.ItemResult[items.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
+        int workers = Math.min(Math.max(1, maxInFlight), items.size());
+        long start = System.nanoTime();
+        ExecutorService executor = bulkExecutor();
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> {
+                int index;
+                while ((index = nextIndex.getAndIncrement()) < items.size()) {
+                    results[index] = sendItem(items.get(index), idOf, send);
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            nextIndex.set(items.size());
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a bulk operation", e);
+        } catch (ExecutionException e) {
+            nextIndex.set(items.size());
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return new BulkResult(results, System.nanoTime() - start);
+    }
+
+    private static <T> BulkResult.ItemResult sendItem(T item, BiFunction<T, Response, Long> idOf,
+                                                       Function<T, Response> send) {
+        long sent = System.nanoTime();
+        try {
+            Response response = send.apply(item);
+            long latency = System.nanoTime() - sent;
+            int statusCode = response.getStatusCode();
+            String error = isSuccess(statusCode) ? null : BulkResult.excerpt(response.asString());
+            return new BulkResult.ItemResult(idOf.apply(item, isSuccess(statusCode) ? response : null),
+                    statusCode, latency, error);
+        } catch (Exception e) {
+            // REST Assured rethrows I/O failures unchecked, so this also catches IOExceptions.
+            return new BulkResult.ItemResult(item != null ? idOf.apply(item, null) : null, 0,
+                    System.nanoTime() - sent, e.toString());
+        }
+    }
+
+    /**
+     * Stops the bulk threads and the I/O threads of the asynchronous client behind the
+     * streaming operations, if they were started. The client can still be used afterwards
+     * and starts new ones.
+     */
+    @Override
+    public synchronized void close() {
+        AsyncPetApiClient client = asyncClient;
+        if (client != null) {
+            asyncClient = null;
+            client.close();
+        }
+        ExecutorService executor = bulkExecutor;
+        if (executor != null) {
+            bulkExecutor = null;
+            executor.shutdown();
+        }
+    }
+
+    private ExecutorService bulkExecutor() {
+        ExecutorService executor = bulkExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = bulkExecutor;
+                if (executor == null) {
+                    AtomicInteger threads = new AtomicInteger();
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "pet-bulk-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    bulkExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private AsyncPetApiClient asyncClient() {
+        AsyncPetApiClient client = asyncClient;
+        if (client == null) {
+            synchronized (this) {
+                client = asyncClient;
+                if (client == null) {
+                    client = new AsyncPetApiClient(getBaseUri(), 2);
+                    asyncClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
\ No newline at end of file
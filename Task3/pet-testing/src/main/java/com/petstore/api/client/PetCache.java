@@ -0,0 +1,204 @@
+package com.petstore.api.client;
+
+import io.restassured.response.Response;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, least-recently-used cache of successful {@code GET /pet/{petId}} responses with
+ * a time to live.
+ * <p>
+ * Only 200 responses are kept, and each is dropped after the time to live, when the cache
+ * is full and it is the least recently used, or when the client changes the pet. A response
+ * that was in flight while any pet was invalidated is not stored, so a read racing an
+ * update cannot put the old state back. Changes made by other clients are only seen once an
+ * entry expires; use {@link #setBypassed} or {@link PetApiClient#getPetByIdFromServer} where
+ * a test needs the server's current state.
+ */
+public class PetCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Long, Entry> entries;
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+    private volatile boolean bypassed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maxSize Most pets kept; the least recently used is evicted beyond that
+     * @param ttl How long a response is served before it is fetched again
+     */
+    public PetCache(int maxSize, Duration ttl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > PetCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The cached response, or null on a miss, for an expired entry or while bypassed
+     */
+    public Response get(Long petId) {
+        if (bypassed) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(petId);
+            if (entry != null && System.nanoTime() - entry.expiresAtNanos >= 0) {
+                entries.remove(petId);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.response;
+        }
+    }
+
+    /**
+     * @return Token to pass to {@link #put} for a read that starts now
+     */
+    public long startRead() {
+        return invalidationEpoch.get();
+    }
+
+    /**
+     * Stores a response read since {@code readToken} was taken, unless it is not a 200 or
+     * something was invalidated in the meantime.
+     */
+    public void put(Long petId, Response response, long readToken) {
+        if (bypassed || petId == null || response.getStatusCode() != 200) {
+            return;
+        }
+        synchronized (entries) {
+            if (invalidationEpoch.get() != readToken) {
+                return;
+            }
+            entries.put(petId, new Entry(response, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Drops the pet, e.g. after it was changed or deleted.
+     */
+    public void invalidate(Long petId) {
+        if (petId == null) {
+            return;
+        }
+        synchronized (entries) {
+            invalidationEpoch.incrementAndGet();
+            if (entries.remove(petId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            invalidationEpoch.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    /**
+     * Turns the cache off for every caller, without dropping what it holds, or back on.
+     */
+    public void setBypassed(boolean bypassed) {
+        this.bypassed = bypassed;
+    }
+
+    public boolean isBypassed() {
+        return bypassed;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            removeExpired();
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Entries dropped because the cache was full
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Entries dropped because their time to live had passed
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * @return Entries dropped because the client changed the pet
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public double getHitRatio() {
+        long lookups = getHitCount() + getMissCount();
+        return lookups == 0 ? 0.0 : (double) getHitCount() / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PetCache[size=%d, hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, expirations=%d, "
+                        + "invalidations=%d%s]", size(), getHitCount(), getMissCount(), getHitRatio(),
+                getEvictionCount(), getExpirationCount(), getInvalidationCount(), bypassed ? ", bypassed" : "");
+    }
+
+    private void removeExpired() {
+        long now = System.nanoTime();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().expiresAtNanos >= 0) {
+                it.remove();
+                expirations.increment();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Response response;
+        final long expiresAtNanos;
+
+        Entry(Response response, long expiresAtNanos) {
+            this.response = response;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.petstore.api.client;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.BasicClientConnectionManager;
+import org.apache.http.params.DefaultedHttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Hands REST Assured an HTTP client built with {@link org.apache.http.impl.client.HttpClientBuilder}.
+ * <p>
+ * REST Assured rejects any client that is not an {@code AbstractHttpClient}, a type HttpClient
+ * has deprecated along with its parameter-based configuration. This adapter satisfies the type
+ * check and sends every request through the given client instead. What REST Assured sets on
+ * the adapter is passed on with each request: its parameters (redirect settings and any
+ * timeouts in {@code HttpClientConfig}), layered under the request's own and over the client's
+ * default request config, and its credentials, so challenged basic, digest and NTLM auth work.
+ * <p>
+ * The adapter's connection manager, interceptors and strategies are never used, so configure
+ * pooling, compression and interceptors on the client. REST Assured's content-encoding
+ * interceptors are dropped with them, which is harmless with compression off, but so is its
+ * OAuth 1 signer: OAuth 1 and certificate auth are not supported.
+ */
+@SuppressWarnings("deprecation")
+final class RestAssuredHttpClient extends DefaultHttpClient {
+    private static final Logger logger = LoggerFactory.getLogger(RestAssuredHttpClient.class);
+
+    private final CloseableHttpClient client;
+
+    RestAssuredHttpClient(CloseableHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException {
+        return client.execute(request, withSettings(request, context));
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+        return client.execute(target, request, withSettings(request, context));
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpHost target, HttpRequest request) throws IOException {
+        return client.execute(target, request, withSettings(request, null));
+    }
+
+    /**
+     * Layers the adapter's parameters under the request's, which the client turns into the
+     * request's config, and offers the adapter's credentials unless the context has its own.
+     */
+    private HttpContext withSettings(HttpRequest request, HttpContext context) {
+        request.setParams(new DefaultedHttpParams(request.getParams(), getParams()));
+        HttpClientContext clientContext = context != null
+                ? HttpClientContext.adapt(context)
+                : HttpClientContext.create();
+        if (clientContext.getAttribute(HttpClientContext.CREDS_PROVIDER) == null) {
+            clientContext.setCredentialsProvider(getCredentialsProvider());
+        }
+        return clientContext;
+    }
+
+    /**
+     * REST Assured shuts down the connection manager of a client it does not reuse once the
+     * response has been read; closing the delegate with it releases the delegate's connection.
+     */
+    @Override
+    protected ClientConnectionManager createClientConnectionManager() {
+        return new BasicClientConnectionManager() {
+            @Override
+            public void shutdown() {
+                super.shutdown();
+                closeDelegate();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        closeDelegate();
+        super.close();
+    }
+
+    private void closeDelegate() {
+        try {
+            client.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close HTTP client", e);
+        }
+    }
+}
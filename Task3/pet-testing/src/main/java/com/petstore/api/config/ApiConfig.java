@@ -2,7 +2,10 @@ package com.petstore.api.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class ApiConfig {
     private static final String CONFIG_FILE = "config/api-config.properties";
@@ -19,15 +22,267 @@ public class ApiConfig {
         }
     }
 
+    /**
+     * Looks up a setting, letting a system property of the same name (e.g.
+     * {@code -Dapi.target=embedded}) override the configuration file.
+     */
+    private static String get(String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
+    }
+
     public static String getBaseUri() {
-        return properties.getProperty("api.base.uri");
+        return get("api.base.uri", null);
     }
 
     public static int getDefaultTimeout() {
-        return Integer.parseInt(properties.getProperty("api.timeout", "5000"));
+        return Integer.parseInt(get("api.timeout", "5000"));
     }
 
     public static String getApiVersion() {
-        return properties.getProperty("api.version", "v2");
+        return get("api.version", "v2");
+    }
+
+    public static int getPoolMaxTotal() {
+        return Integer.parseInt(get("api.pool.max.total", "200"));
+    }
+
+    public static int getPoolMaxPerRoute() {
+        return Integer.parseInt(get("api.pool.max.per.route", "50"));
+    }
+
+    public static long getPoolIdleTimeoutMillis() {
+        return Long.parseLong(get("api.pool.idle.timeout.ms", "30000"));
+    }
+
+    public static double getLoggingSampleRate() {
+        return Double.parseDouble(get("api.logging.sample.rate", "0"));
+    }
+
+    public static Set<String> getLoggingRedactedHeaders() {
+        return Arrays.stream(get("api.logging.redact.headers", "Authorization,api_key,Cookie").split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    public static int getLoggingMaxBodyBytes() {
+        return Integer.parseInt(get("api.logging.max.body.bytes", "1024"));
+    }
+
+    public static int getLoggingBufferSize() {
+        return Integer.parseInt(get("api.logging.buffer.size", "4096"));
+    }
+
+    /**
+     * @return true when tests should run against the in-process
+     *         {@link com.petstore.server.InMemoryPetStoreServer} instead of {@link #getBaseUri()}
+     */
+    public static boolean isEmbeddedTarget() {
+        return "embedded".equalsIgnoreCase(get("api.target", "remote").trim());
+    }
+
+    /**
+     * @return true when tests should run against a {@link com.petstore.server.ReplayServer}
+     *         serving {@link #getReplayFile()} instead of {@link #getBaseUri()}
+     */
+    public static boolean isReplayTarget() {
+        return "replay".equalsIgnoreCase(get("api.target", "remote").trim());
+    }
+
+    public static int getEmbeddedPort() {
+        return Integer.parseInt(get("api.embedded.port", "0"));
+    }
+
+    public static int getEmbeddedThreads() {
+        return Integer.parseInt(get("api.embedded.threads", "16"));
+    }
+
+    public static long getEmbeddedLatencyMillis() {
+        return Long.parseLong(get("api.embedded.latency.ms", "0"));
+    }
+
+    public static long getEmbeddedJitterMillis() {
+        return Long.parseLong(get("api.embedded.jitter.ms", "0"));
+    }
+
+    public static int getEmbeddedSeedPets() {
+        return Integer.parseInt(get("api.embedded.seed.pets", "10"));
+    }
+
+    public static boolean isLimiterEnabled() {
+        return Boolean.parseBoolean(get("api.limiter.enabled", "true").trim());
+    }
+
+    public static int getLimiterInitialLimit() {
+        return Integer.parseInt(get("api.limiter.initial.limit", "20"));
+    }
+
+    public static int getLimiterMinLimit() {
+        return Integer.parseInt(get("api.limiter.min.limit", "1"));
+    }
+
+    public static int getLimiterMaxLimit() {
+        return Integer.parseInt(get("api.limiter.max.limit", "200"));
+    }
+
+    public static long getLimiterLatencyThresholdMillis() {
+        return Long.parseLong(get("api.limiter.latency.threshold.ms", "2000"));
+    }
+
+    public static long getLimiterMaxQueueWaitMillis() {
+        return Long.parseLong(get("api.limiter.max.queue.wait.ms", "30000"));
+    }
+
+    /**
+     * @return Longest a throttling response pauses new requests, whatever its {@code Retry-After}
+     */
+    public static long getLimiterMaxPauseMillis() {
+        return Long.parseLong(get("api.limiter.max.pause.ms", "10000"));
+    }
+
+    public static int getLimiterMaxRetries() {
+        return Integer.parseInt(get("api.limiter.max.retries", "3"));
+    }
+
+    public static boolean isHedgingEnabled() {
+        return Boolean.parseBoolean(get("api.hedging.enabled", "false").trim());
+    }
+
+    public static double getHedgingPercentile() {
+        return Double.parseDouble(get("api.hedging.percentile", "95"));
+    }
+
+    public static long getHedgingMinDelayMillis() {
+        return Long.parseLong(get("api.hedging.min.delay.ms", "5"));
+    }
+
+    public static int getHedgingMinSamples() {
+        return Integer.parseInt(get("api.hedging.min.samples", "20"));
+    }
+
+    public static double getHedgingBudgetRatio() {
+        return Double.parseDouble(get("api.hedging.budget.ratio", "0.05"));
+    }
+
+    public static int getBulkMaxInFlight() {
+        return Integer.parseInt(get("api.bulk.max.in.flight", "64"));
+    }
+
+    public static boolean isReaperEnabled() {
+        return Boolean.parseBoolean(get("api.reaper.enabled", "false").trim());
+    }
+
+    public static int getReaperBatchSize() {
+        return Integer.parseInt(get("api.reaper.batch.size", "100"));
+    }
+
+    public static int getReaperMaxInFlight() {
+        return Integer.parseInt(get("api.reaper.max.in.flight", "8"));
+    }
+
+    public static long getReaperIntervalMillis() {
+        return Long.parseLong(get("api.reaper.interval.ms", "1000"));
+    }
+
+    public static int getConnectTimeoutMillis() {
+        return Integer.parseInt(get("api.connect.timeout.ms", String.valueOf(getDefaultTimeout())));
+    }
+
+    /**
+     * @return Time budget of each test method in milliseconds, or 0 for none
+     */
+    public static long getTestDeadlineMillis() {
+        return Long.parseLong(get("api.test.deadline.ms", "0"));
+    }
+
+    public static boolean isAdaptiveTimeoutEnabled() {
+        return Boolean.parseBoolean(get("api.timeout.adaptive.enabled", "false").trim());
+    }
+
+    public static double getAdaptiveTimeoutPercentile() {
+        return Double.parseDouble(get("api.timeout.adaptive.percentile", "99"));
+    }
+
+    public static double getAdaptiveTimeoutHeadroom() {
+        return Double.parseDouble(get("api.timeout.adaptive.headroom", "3"));
+    }
+
+    public static long getAdaptiveTimeoutMinMillis() {
+        return Long.parseLong(get("api.timeout.adaptive.min.ms", "100"));
+    }
+
+    public static int getAdaptiveTimeoutMinSamples() {
+        return Integer.parseInt(get("api.timeout.adaptive.min.samples", "50"));
+    }
+
+    public static boolean isCacheEnabled() {
+        return Boolean.parseBoolean(get("api.cache.enabled", "false").trim());
+    }
+
+    public static int getCacheMaxSize() {
+        return Integer.parseInt(get("api.cache.max.size", "1000"));
+    }
+
+    public static long getCacheTtlMillis() {
+        return Long.parseLong(get("api.cache.ttl.ms", "5000"));
+    }
+
+    /**
+     * @return true when the suite should record every exchange to {@link #getReplayFile()}
+     */
+    public static boolean isRecordEnabled() {
+        return Boolean.parseBoolean(get("api.record.enabled", "false").trim());
+    }
+
+    public static String getReplayFile() {
+        return get("api.replay.file", "target/exchanges.petx");
+    }
+
+    public static double getReplayLatencyScale() {
+        return Double.parseDouble(get("api.replay.latency.scale", "0"));
+    }
+
+    /**
+     * @return true when the suite should reach the target through a
+     *         {@link com.petstore.server.ChaosProxy} that can inject network faults
+     */
+    public static boolean isChaosEnabled() {
+        return Boolean.parseBoolean(get("api.chaos.enabled", "false").trim());
+    }
+
+    public static int getChaosPort() {
+        return Integer.parseInt(get("api.chaos.port", "0"));
+    }
+
+    public static boolean isBreakerEnabled() {
+        return Boolean.parseBoolean(get("api.breaker.enabled", "false").trim());
+    }
+
+    public static int getBreakerWindowSize() {
+        return Integer.parseInt(get("api.breaker.window.size", "50"));
+    }
+
+    public static int getBreakerMinCalls() {
+        return Integer.parseInt(get("api.breaker.min.calls", "10"));
+    }
+
+    public static double getBreakerFailureRateThreshold() {
+        return Double.parseDouble(get("api.breaker.failure.rate.threshold", "50"));
+    }
+
+    public static long getBreakerSlowCallMillis() {
+        return Long.parseLong(get("api.breaker.slow.call.ms", "3000"));
+    }
+
+    public static double getBreakerSlowCallRateThreshold() {
+        return Double.parseDouble(get("api.breaker.slow.call.rate.threshold", "80"));
+    }
+
+    public static long getBreakerOpenMillis() {
+        return Long.parseLong(get("api.breaker.open.ms", "10000"));
+    }
+
+    public static int getBreakerHalfOpenCalls() {
+        return Integer.parseInt(get("api.breaker.half.open.calls", "3"));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.petstore.api.metrics;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.petstore.model.json.ObjectMappers;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of per-endpoint statistics, keyed by HTTP method and path template
+ * (for example {@code GET /pet/{petId}}), with text and JSON summaries.
+ */
+public class EndpointMetrics {
+    private static final String[] STATUS_CLASSES = {"other", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public EndpointStats forEndpoint(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, EndpointStats::new);
+    }
+
+    /**
+     * @return Snapshot of all endpoints seen so far, sorted by endpoint key
+     */
+    public List<EndpointStats> getEndpoints() {
+        List<EndpointStats> stats = new ArrayList<>(endpoints.values());
+        stats.sort(Comparator.comparing(EndpointStats::getEndpoint));
+        return stats;
+    }
+
+    /**
+     * @return Fixed-width table with one row per endpoint, latencies in milliseconds
+     */
+    public String formatTable() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-34s %7s %6s %6s %6s %8s %8s %8s %8s %9s%n",
+                "endpoint", "count", "2xx", "4xx", "5xx", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "avg bytes"));
+        for (EndpointStats stats : getEndpoints()) {
+            Histogram latency = stats.getLatency();
+            long count = latency.getTotalCount();
+            sb.append(String.format("%-34s %7d %6d %6d %6d %8.2f %8.2f %8.2f %8.2f %9d%n",
+                    stats.getEndpoint(), count,
+                    stats.getStatusClassCount(2), stats.getStatusClassCount(4), stats.getStatusClassCount(5),
+                    millis(latency.getValueAtPercentile(50.0)),
+                    millis(latency.getValueAtPercentile(90.0)),
+                    millis(latency.getValueAtPercentile(99.0)),
+                    millis(latency.getMaxValue()),
+                    count > 0 ? stats.getResponseBytes() / count : 0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return Machine-readable summary of every endpoint
+     */
+    public ObjectNode toJson() {
+        ObjectNode root = ObjectMappers.shared().createObjectNode();
+        root.put("generatedAt", Instant.now().toString());
+        ArrayNode array = root.putArray("endpoints");
+        for (EndpointStats stats : getEndpoints()) {
+            Histogram latency = stats.getLatency();
+            ObjectNode node = array.addObject();
+            node.put("endpoint", stats.getEndpoint());
+            node.put("count", latency.getTotalCount());
+            node.put("failures", stats.getFailureCount());
+
+            ObjectNode statusNode = node.putObject("statusClasses");
+            for (int i = 0; i < STATUS_CLASSES.length; i++) {
+                long statusCount = stats.getStatusClassCount(i);
+                if (statusCount > 0) {
+                    statusNode.put(STATUS_CLASSES[i], statusCount);
+                }
+            }
+
+            ObjectNode latencyNode = node.putObject("latencyMs");
+            latencyNode.put("mean", millis((long) latency.getMean()));
+            latencyNode.put("p50", millis(latency.getValueAtPercentile(50.0)));
+            latencyNode.put("p90", millis(latency.getValueAtPercentile(90.0)));
+            latencyNode.put("p99", millis(latency.getValueAtPercentile(99.0)));
+            latencyNode.put("p999", millis(latency.getValueAtPercentile(99.9)));
+            latencyNode.put("max", millis(latency.getMaxValue()));
+
+            node.put("responseBytes", stats.getResponseBytes());
+        }
+        return root;
+    }
+
+    /**
+     * Writes {@link #toJson()} to the given file, creating parent directories as needed.
+     */
+    public void writeJson(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        ObjectMappers.shared().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), toJson());
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.petstore.api.metrics;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Records latency, status class and response size for every request into
+ * {@link EndpointMetrics}, keyed by method and path template rather than the
+ * expanded URL so {@code /pet/1} and {@code /pet/2} share one histogram.
+ */
+public class EndpointMetricsFilter implements Filter {
+    private final EndpointMetrics metrics;
+
+    public EndpointMetricsFilter(EndpointMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        EndpointStats stats = metrics.forEndpoint(endpointKey(requestSpec));
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+        } catch (RuntimeException e) {
+            stats.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+        byte[] body = response.asByteArray();
+        stats.record(System.nanoTime() - start, response.getStatusCode(), body == null ? 0 : body.length);
+        return response;
+    }
+
+    /**
+     * @return Method plus the user-defined path template with any query string removed
+     */
+    public static String endpointKey(FilterableRequestSpecification requestSpec) {
+        String path = requestSpec.getUserDefinedPath();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return requestSpec.getMethod() + " " + path;
+    }
+}
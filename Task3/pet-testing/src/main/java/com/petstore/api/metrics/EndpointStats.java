@@ -0,0 +1,78 @@
+package com.petstore.api.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, status class and response size statistics for one endpoint.
+ * <p>
+ * All recording paths are wait-free so concurrent test threads never contend on a lock.
+ */
+public class EndpointStats {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final String endpoint;
+    private final ConcurrentHistogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+
+    public EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a completed exchange.
+     *
+     * @param latencyNanos Time from sending the request to reading the full response
+     * @param statusCode HTTP status code of the response
+     * @param bytes Size of the response body
+     */
+    public void record(long latencyNanos, int statusCode, long bytes) {
+        latency.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        int statusClass = statusCode / 100;
+        statusClasses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+        responseBytes.add(bytes);
+    }
+
+    /**
+     * Records an exchange that ended without a response, for example a connection failure.
+     */
+    public void recordFailure(long latencyNanos) {
+        latency.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        failures.increment();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return Copy of the latency histogram in nanoseconds
+     */
+    public Histogram getLatency() {
+        return latency.copy();
+    }
+
+    /**
+     * @param statusClass 1 to 5 for 1xx to 5xx, 0 for unrecognised codes
+     * @return Number of responses in the status class
+     */
+    public long getStatusClassCount(int statusClass) {
+        return statusClasses[statusClass].sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+}
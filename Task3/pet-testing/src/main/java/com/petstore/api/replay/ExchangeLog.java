@@ -0,0 +1,274 @@
+package com.petstore.api.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Read-only view of an exchange log written by {@link ExchangeLogWriter}, with constant-time
+ * lookups through a memory-mapped index.
+ * <p>
+ * The log starts with a header (magic {@code PETX}, version, the pet id namespace and worker
+ * index, and the test data seed of the recorded run) followed by length-prefixed
+ * {@link RecordedExchange}s. A record cut short by a crash ends the log.
+ * <p>
+ * The index sits next to the log with an {@code .idx} suffix and is rebuilt whenever it is
+ * missing or was built for a log of a different size. It is an open-addressing hash table of
+ * 64-bit key hashes and record offsets with two entries per exchange: one for its scope key and
+ * one for its method and path, the latter pointing at the first exchange recorded for them.
+ * Lookups probe the mapped table and decode only the candidate records, so the log is never
+ * loaded onto the heap.
+ */
+public final class ExchangeLog {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeLog.class);
+
+    static final int MAGIC = 0x50455458;
+    static final int INDEX_MAGIC = 0x50455449;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+    private static final int INDEX_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    private static final int SLOT_BYTES = 2 * Long.BYTES;
+    private static final String KEY_PREFIX = "K ";
+    private static final String REQUEST_PREFIX = "R ";
+
+    private final Path path;
+    private final MappedByteBuffer log;
+    private final ByteBuffer index;
+    private final int namespace;
+    private final int workerIndex;
+    private final long dataSeed;
+    private final int capacity;
+    private final int size;
+
+    private ExchangeLog(Path path, MappedByteBuffer log, MappedByteBuffer index) throws IOException {
+        this.path = path;
+        this.log = log;
+        this.index = index;
+        if (log.capacity() < HEADER_BYTES || log.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not an exchange log");
+        }
+        if (log.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException(path + " has unsupported version " + log.getInt(Integer.BYTES));
+        }
+        this.namespace = log.getInt(2 * Integer.BYTES);
+        this.workerIndex = log.getInt(3 * Integer.BYTES);
+        this.dataSeed = log.getLong(4 * Integer.BYTES);
+        this.capacity = index.getInt(2 * Integer.BYTES + Long.BYTES);
+        this.size = index.getInt(3 * Integer.BYTES + Long.BYTES);
+    }
+
+    /**
+     * Maps the log and its index, building the index first if needed.
+     */
+    public static ExchangeLog open(Path path) throws IOException {
+        Path indexPath = indexPath(path);
+        if (!isIndexCurrent(path, indexPath)) {
+            writeIndex(path);
+        }
+        return new ExchangeLog(path, map(path), map(indexPath));
+    }
+
+    /**
+     * @return The exchange recorded under the {@link ExchangeScope} key, or null
+     */
+    public RecordedExchange findByKey(String key) {
+        long offset = lookup(KEY_PREFIX + key, key, null, null);
+        return offset < 0 ? null : read(offset);
+    }
+
+    /**
+     * @return The first exchange recorded for the method and path, or null
+     */
+    public RecordedExchange findByRequest(String method, String path) {
+        long offset = lookup(REQUEST_PREFIX + method + " " + path, null, method, path);
+        return offset < 0 ? null : read(offset);
+    }
+
+    /**
+     * Passes every exchange to the action in the order they were recorded.
+     */
+    public void forEach(Consumer<RecordedExchange> action) {
+        ByteBuffer records = log.duplicate();
+        long position = HEADER_BYTES;
+        while (position + Integer.BYTES <= records.capacity()) {
+            int length = records.getInt((int) position);
+            if (position + Integer.BYTES + length > records.capacity()) {
+                break;
+            }
+            records.position((int) position + Integer.BYTES);
+            action.accept(RecordedExchange.read(records));
+            position += Integer.BYTES + length;
+        }
+    }
+
+    /**
+     * @return Number of complete exchanges in the log
+     */
+    public int size() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return Pet id namespace of the recorded run
+     */
+    public int getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @return Pet id worker index of the recorded run
+     */
+    public int getWorkerIndex() {
+        return workerIndex;
+    }
+
+    /**
+     * @return Test data seed of the recorded run
+     */
+    public long getDataSeed() {
+        return dataSeed;
+    }
+
+    private RecordedExchange read(long offset) {
+        ByteBuffer record = log.duplicate();
+        record.position((int) offset);
+        return RecordedExchange.read(record);
+    }
+
+    /**
+     * @return Offset of the record matching either the key or the method and path, or -1
+     */
+    private long lookup(String indexKey, String key, String method, String path) {
+        return lookup(log, index, capacity, indexKey, key, method, path);
+    }
+
+    private static long lookup(ByteBuffer log, ByteBuffer index, int capacity, String indexKey, String key,
+                               String method, String path) {
+        long hash = hash(indexKey);
+        int mask = capacity - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            int slotPosition = INDEX_HEADER_BYTES + slot * SLOT_BYTES;
+            long offset = index.getLong(slotPosition + Long.BYTES) - 1;
+            if (offset < 0) {
+                return -1;
+            }
+            if (index.getLong(slotPosition) == hash && matches(log, offset, key, method, path)) {
+                return offset;
+            }
+        }
+    }
+
+    private static boolean matches(ByteBuffer log, long offset, String key, String method, String path) {
+        ByteBuffer record = log.duplicate();
+        record.position((int) offset);
+        String[] identity = RecordedExchange.readIdentity(record);
+        return key != null ? key.equals(identity[0]) : method.equals(identity[1]) && path.equals(identity[2]);
+    }
+
+    static Path indexPath(Path log) {
+        return log.resolveSibling(log.getFileName() + ".idx");
+    }
+
+    private static boolean isIndexCurrent(Path log, Path index) throws IOException {
+        if (!Files.exists(index) || Files.size(index) < INDEX_HEADER_BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            return header.getInt(0) == INDEX_MAGIC && header.getInt(Integer.BYTES) == VERSION
+                    && header.getLong(2 * Integer.BYTES) == Files.size(log);
+        }
+    }
+
+    /**
+     * Scans the log and writes its index, replacing any existing one.
+     */
+    static void writeIndex(Path path) throws IOException {
+        MappedByteBuffer log = map(path);
+        int records = 0;
+        long position = HEADER_BYTES;
+        while (position + Integer.BYTES <= log.capacity()
+                && position + Integer.BYTES + log.getInt((int) position) <= log.capacity()) {
+            records++;
+            position += Integer.BYTES + log.getInt((int) position);
+        }
+        int capacity = Integer.highestOneBit(Math.max(16, records * 4) - 1) << 1;
+        ByteBuffer table = ByteBuffer.allocate(INDEX_HEADER_BYTES + capacity * SLOT_BYTES);
+        table.putInt(INDEX_MAGIC).putInt(VERSION).putLong(log.capacity()).putInt(capacity).putInt(records);
+
+        position = HEADER_BYTES;
+        for (int i = 0; i < records; i++) {
+            long offset = position + Integer.BYTES;
+            ByteBuffer record = log.duplicate();
+            record.position((int) offset);
+            String[] identity = RecordedExchange.readIdentity(record);
+            if (!identity[0].isEmpty()) {
+                insert(table, capacity, hash(KEY_PREFIX + identity[0]), offset);
+            }
+            String request = REQUEST_PREFIX + identity[1] + " " + identity[2];
+            if (lookup(log, table, capacity, request, null, identity[1], identity[2]) < 0) {
+                insert(table, capacity, hash(request), offset);
+            }
+            position += Integer.BYTES + log.getInt((int) position);
+        }
+
+        Path index = indexPath(path);
+        Path temporary = index.resolveSibling(index.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            table.clear();
+            while (table.hasRemaining()) {
+                channel.write(table);
+            }
+        }
+        Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Indexed {} exchanges in {}", records, path);
+    }
+
+    private static void insert(ByteBuffer table, int capacity, long hash, long offset) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while (table.getLong(INDEX_HEADER_BYTES + slot * SLOT_BYTES + Long.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.putLong(INDEX_HEADER_BYTES + slot * SLOT_BYTES, hash);
+        table.putLong(INDEX_HEADER_BYTES + slot * SLOT_BYTES + Long.BYTES, offset + 1);
+    }
+
+    /**
+     * 64-bit FNV-1a over the string's UTF-16 code units.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is larger than 2 GB; record fewer exchanges per log");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.petstore.api.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Appends {@link RecordedExchange}s to a new exchange log, see {@link ExchangeLog} for the
+ * format. Safe for concurrent use: each exchange is encoded by the calling thread and then
+ * appended as one length-prefixed record. The index is built when the writer is closed.
+ */
+public class ExchangeLogWriter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeLogWriter.class);
+
+    private final Path path;
+    private final DataOutputStream out;
+    private long exchanges;
+    private boolean closed;
+
+    /**
+     * Creates the log, replacing any existing one at the path.
+     *
+     * @param namespace Pet id namespace of the run being recorded
+     * @param workerIndex Pet id worker index of the run being recorded
+     * @param dataSeed Test data seed of the run being recorded
+     */
+    public ExchangeLogWriter(Path path, int namespace, int workerIndex, long dataSeed) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(ExchangeLog.indexPath(path));
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        out.writeInt(ExchangeLog.MAGIC);
+        out.writeInt(ExchangeLog.VERSION);
+        out.writeInt(namespace);
+        out.writeInt(workerIndex);
+        out.writeLong(dataSeed);
+    }
+
+    public void append(RecordedExchange exchange) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        exchange.write(new DataOutputStream(buffer));
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Exchange log " + path + " is closed");
+            }
+            out.writeInt(buffer.size());
+            buffer.writeTo(out);
+            exchanges++;
+        }
+    }
+
+    public synchronized long getExchangeCount() {
+        return exchanges;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Flushes the log and writes its index.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            out.close();
+        }
+        ExchangeLog.writeIndex(path);
+        logger.info("Recorded {} exchanges to {}", getExchangeCount(), path);
+    }
+}
@@ -0,0 +1,113 @@
+package com.petstore.api.replay;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Appends every completed exchange to an {@link ExchangeLogWriter}, keyed by the calling
+ * thread's {@link ExchangeScope}. Add it first so it sees the exchange the caller sees, after
+ * any retries. Headers named in {@code redactedHeaders} are stored masked, and multipart bodies
+ * are not stored. Requests that fail without a response are not recorded.
+ */
+public class ExchangeRecordingFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRecordingFilter.class);
+
+    private final ExchangeLogWriter writer;
+    private final Set<String> redactedHeaders;
+
+    /**
+     * @param redactedHeaders Header names whose values are masked, case-insensitive
+     */
+    public ExchangeRecordingFilter(ExchangeLogWriter writer, Set<String> redactedHeaders) {
+        this.writer = writer;
+        this.redactedHeaders = redactedHeaders.stream()
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String path = relativePath(requestSpec);
+        byte[] requestBody = requestBody(requestSpec);
+        String key = ExchangeScope.nextKey(requestSpec.getMethod(), path, requestBody);
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        Response response = ctx.next(requestSpec, responseSpec);
+        byte[] responseBody = response.asByteArray();
+        long duration = System.nanoTime() - start;
+
+        List<Map.Entry<String, String>> requestHeaders = new ArrayList<>();
+        requestSpec.getHeaders().forEach(header -> requestHeaders.add(redact(header.getName(), header.getValue())));
+        List<Map.Entry<String, String>> responseHeaders = new ArrayList<>();
+        response.getHeaders().forEach(header -> responseHeaders.add(redact(header.getName(), header.getValue())));
+        try {
+            writer.append(new RecordedExchange(startMillis, duration, key != null ? key : "",
+                    requestSpec.getMethod(), requestSpec.getUserDefinedPath(), path,
+                    requestHeaders, requestBody, response.getStatusCode(), responseHeaders,
+                    responseBody));
+        } catch (IOException e) {
+            logger.warn("Failed to record {} {} to {}", requestSpec.getMethod(), requestSpec.getURI(),
+                    writer.getPath(), e);
+        }
+        return response;
+    }
+
+    private Map.Entry<String, String> redact(String name, String value) {
+        return Map.entry(name, redactedHeaders.contains(name.toLowerCase(Locale.ROOT)) ? "***" : value);
+    }
+
+    /**
+     * @return The request's raw path and query relative to the client's base URI, e.g. {@code /pet/1}
+     */
+    static String relativePath(FilterableRequestSpecification requestSpec) {
+        URI uri = URI.create(requestSpec.getURI());
+        String basePath = URI.create(requestSpec.getBaseUri()).getRawPath() + requestSpec.getBasePath();
+        if (basePath.endsWith("/")) {
+            basePath = basePath.substring(0, basePath.length() - 1);
+        }
+        String path = uri.getRawPath();
+        if (path.startsWith(basePath)) {
+            path = path.substring(basePath.length());
+        }
+        return uri.getRawQuery() != null ? path + "?" + uri.getRawQuery() : path;
+    }
+
+    /**
+     * @return The request body as sent, or null for none or a multipart body
+     */
+    static byte[] requestBody(FilterableRequestSpecification requestSpec) {
+        Object body = requestSpec.getBody();
+        if (body instanceof byte[]) {
+            return (byte[]) body;
+        }
+        if (body != null) {
+            return body.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        if (!requestSpec.getFormParams().isEmpty()) {
+            return requestSpec.getFormParams().entrySet().stream()
+                    .map(param -> URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8) + "="
+                            + URLEncoder.encode(String.valueOf(param.getValue()), StandardCharsets.UTF_8))
+                    .collect(Collectors.joining("&"))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.petstore.api.replay;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Names the exchanges a thread makes while a scope is open, typically one test method, so a
+ * recording can be matched to the same request when replayed even if tests run in a
+ * different order or on different threads.
+ * <p>
+ * A request is keyed by the scope name, its method, path and a hash of its body, and how many
+ * identical requests the scope has made before it: the second identical {@code GET /pet/1} in
+ * scope {@code name} gets {@code name GET /pet/1 - #2}. Requests that differ therefore keep
+ * their keys when a test sends them in another order. Requests outside any scope have no key
+ * and are only matched by method and path.
+ */
+public final class ExchangeScope {
+    private static final ThreadLocal<ExchangeScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final Map<String, Integer> occurrences = new HashMap<>();
+
+    private ExchangeScope(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Opens a scope on the calling thread, replacing any that is open.
+     */
+    public static void open(String name) {
+        CURRENT.set(new ExchangeScope(name));
+    }
+
+    /**
+     * Closes the calling thread's scope, if any.
+     */
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return Whether a scope is open on the calling thread
+     */
+    public static boolean isOpen() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @param path Path relative to the API base URI, including any query string
+     * @param body Request body, or null if there is none
+     * @return Key of the calling thread's next request with this method, path and body, or
+     *         null outside a scope
+     */
+    public static String nextKey(String method, String path, byte[] body) {
+        ExchangeScope scope = CURRENT.get();
+        if (scope == null) {
+            return null;
+        }
+        String request = method + " " + path + " " + bodyHash(body);
+        return scope.name + " " + request + " #" + scope.occurrences.merge(request, 1, Integer::sum);
+    }
+
+    private static String bodyHash(byte[] body) {
+        if (body == null || body.length == 0) {
+            return "-";
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return Long.toHexString(crc.getValue());
+    }
+}
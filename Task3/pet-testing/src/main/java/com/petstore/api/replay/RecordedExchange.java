@@ -0,0 +1,194 @@
+package com.petstore.api.replay;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One request and its response as held in an {@link ExchangeLog}.
+ * <p>
+ * Encoded big-endian as two longs (start time in epoch milliseconds and duration in
+ * nanoseconds), the key, method, path template and path as length-prefixed UTF-8 strings, the
+ * request headers and body, the status code, and the response headers and body. A header list
+ * is a count followed by name and value strings; a body is a length, -1 for none, followed by
+ * its bytes.
+ */
+public final class RecordedExchange {
+    private final long startEpochMillis;
+    private final long durationNanos;
+    private final String key;
+    private final String method;
+    private final String pathTemplate;
+    private final String path;
+    private final List<Map.Entry<String, String>> requestHeaders;
+    private final byte[] requestBody;
+    private final int status;
+    private final List<Map.Entry<String, String>> responseHeaders;
+    private final byte[] responseBody;
+
+    /**
+     * @param key Key of the exchange within its {@link ExchangeScope}, or empty outside one
+     * @param path Path relative to the API base URI, including any query string
+     * @param requestBody Request body, or null if there was none or it was not recorded
+     */
+    public RecordedExchange(long startEpochMillis, long durationNanos, String key, String method, String pathTemplate,
+                            String path, List<Map.Entry<String, String>> requestHeaders, byte[] requestBody,
+                            int status, List<Map.Entry<String, String>> responseHeaders, byte[] responseBody) {
+        this.startEpochMillis = startEpochMillis;
+        this.durationNanos = durationNanos;
+        this.key = key;
+        this.method = method;
+        this.pathTemplate = pathTemplate;
+        this.path = path;
+        this.requestHeaders = List.copyOf(requestHeaders);
+        this.requestBody = requestBody;
+        this.status = status;
+        this.responseHeaders = List.copyOf(responseHeaders);
+        this.responseBody = responseBody;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public List<Map.Entry<String, String>> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public byte[] getRequestBody() {
+        return requestBody;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public List<Map.Entry<String, String>> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(startEpochMillis);
+        out.writeLong(durationNanos);
+        writeString(out, key);
+        writeString(out, method);
+        writeString(out, pathTemplate);
+        writeString(out, path);
+        writeHeaders(out, requestHeaders);
+        writeBytes(out, requestBody);
+        out.writeInt(status);
+        writeHeaders(out, responseHeaders);
+        writeBytes(out, responseBody);
+    }
+
+    /**
+     * Decodes an exchange from the buffer's position, advancing it past the exchange.
+     */
+    static RecordedExchange read(ByteBuffer in) {
+        long startEpochMillis = in.getLong();
+        long durationNanos = in.getLong();
+        String key = readString(in);
+        String method = readString(in);
+        String pathTemplate = readString(in);
+        String path = readString(in);
+        List<Map.Entry<String, String>> requestHeaders = readHeaders(in);
+        byte[] requestBody = readBytes(in);
+        int status = in.getInt();
+        List<Map.Entry<String, String>> responseHeaders = readHeaders(in);
+        byte[] responseBody = readBytes(in);
+        return new RecordedExchange(startEpochMillis, durationNanos, key, method, pathTemplate, path,
+                requestHeaders, requestBody, status, responseHeaders, responseBody);
+    }
+
+    /**
+     * Decodes only the key, method and path at the buffer's position, for index lookups.
+     *
+     * @return Key, method and path, in that order
+     */
+    static String[] readIdentity(ByteBuffer in) {
+        in.position(in.position() + 2 * Long.BYTES);
+        String key = readString(in);
+        String method = readString(in);
+        skipString(in);
+        return new String[] {key, method, readString(in)};
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static void writeHeaders(DataOutputStream out, List<Map.Entry<String, String>> headers)
+            throws IOException {
+        out.writeInt(headers.size());
+        for (Map.Entry<String, String> header : headers) {
+            writeString(out, header.getKey());
+            writeString(out, header.getValue());
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        return new String(bytes(in, in.getInt()), StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        in.position(in.position() + length);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+        return length < 0 ? null : bytes(in, length);
+    }
+
+    private static byte[] bytes(ByteBuffer in, int length) {
+        byte[] value = new byte[length];
+        in.get(value);
+        return value;
+    }
+
+    private static List<Map.Entry<String, String>> readHeaders(ByteBuffer in) {
+        int count = in.getInt();
+        List<Map.Entry<String, String>> headers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            headers.add(Map.entry(readString(in), readString(in)));
+        }
+        return headers;
+    }
+}
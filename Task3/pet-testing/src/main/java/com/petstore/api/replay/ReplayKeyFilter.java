@@ -0,0 +1,29 @@
+package com.petstore.api.replay;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Sends the calling thread's next {@link ExchangeScope} key in the {@value #HEADER} header, so
+ * a {@link com.petstore.server.ReplayServer} answers with the response recorded under that key.
+ * Add it first, as the {@link ExchangeRecordingFilter} was when recording, so retries reuse the
+ * key instead of counting as another identical request.
+ */
+public class ReplayKeyFilter implements Filter {
+    public static final String HEADER = "X-Replay-Key";
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String key = ExchangeScope.nextKey(requestSpec.getMethod(), ExchangeRecordingFilter.relativePath(requestSpec),
+                ExchangeRecordingFilter.requestBody(requestSpec));
+        if (key != null) {
+            requestSpec.header(HEADER, key);
+        }
+        return ctx.next(requestSpec, responseSpec);
+    }
+}
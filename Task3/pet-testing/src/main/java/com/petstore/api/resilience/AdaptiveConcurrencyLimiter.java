@@ -0,0 +1,232 @@
+package com.petstore.api.resilience;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-side limit on concurrent requests that adapts to how the server copes (AIMD).
+ * <p>
+ * Each successful, fast response while at least half the limit is in use raises the limit
+ * by {@code 1/limit}, so about one extra slot per round of requests. A 429 or 503, or a
+ * response slower than the latency threshold, multiplies the limit by {@value #BACKOFF_RATIO}.
+ * Throttling responses also pause all new requests, for the server's {@code Retry-After} if
+ * given, or otherwise for an exponential backoff, but never longer than the maximum pause. Callers over the limit wait in FIFO order
+ * instead of sending.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final long BASE_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final long maxQueueWaitNanos;
+    private final long maxPauseNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition slotAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private int consecutiveThrottles;
+    private long pausedUntilNanos = System.nanoTime();
+
+    private final ConcurrentHistogram queueWait = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * @param initialLimit Concurrent requests allowed before any feedback
+     * @param minLimit Lowest the limit can fall to
+     * @param maxLimit Highest the limit can grow to
+     * @param latencyThreshold Response time above which a request counts as congestion
+     * @param maxQueueWait Longest a caller waits for a slot before failing
+     * @param maxPause Longest a throttling response pauses new requests, whatever its {@code Retry-After}
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyThreshold, Duration maxQueueWait, Duration maxPause) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limit bounds: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.maxPauseNanos = maxPause.toNanos();
+    }
+
+    /**
+     * Blocks until a request may be sent. Every successful call must be paired with
+     * {@link #release}.
+     *
+     * @throws IllegalStateException if no slot became free within the maximum queue wait
+     */
+    public void acquire() {
+        long start = System.nanoTime();
+        long deadline = start + maxQueueWaitNanos;
+        lock.lock();
+        try {
+            queued++;
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long pause = pausedUntilNanos - now;
+                    if (pause <= 0 && inFlight < (int) limit) {
+                        break;
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        timedOut.increment();
+                        throw new IllegalStateException(String.format(
+                                "Timed out after %d ms waiting for a request slot (limit %d, in flight %d)",
+                                TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos), (int) limit, inFlight));
+                    }
+                    slotAvailable.awaitNanos(pause > 0 ? Math.min(pause, remaining) : remaining);
+                }
+            } finally {
+                queued--;
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a request slot", e);
+        } finally {
+            lock.unlock();
+        }
+        queueWait.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    /**
+     * Frees the slot taken by {@link #acquire()} and adjusts the limit from the outcome.
+     *
+     * @param latencyNanos Time the request took, excluding queueing
+     * @param wasThrottled Whether the server answered 429 or 503
+     * @param retryAfter Delay requested by the server, or null to use exponential backoff
+     */
+    public void release(long latencyNanos, boolean wasThrottled, Duration retryAfter) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (wasThrottled) {
+                throttled.increment();
+                consecutiveThrottles++;
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                long pause = Math.min(maxPauseNanos, retryAfter != null
+                        ? retryAfter.toNanos()
+                        : Math.min(MAX_BACKOFF_NANOS, BASE_BACKOFF_NANOS << Math.min(consecutiveThrottles - 1, 16)));
+                long pausedUntil = System.nanoTime() + pause;
+                if (pausedUntil - pausedUntilNanos > 0) {
+                    pausedUntilNanos = pausedUntil;
+                }
+            } else if (latencyNanos > latencyThresholdNanos) {
+                slow.increment();
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            } else {
+                consecutiveThrottles = 0;
+                // Only grow when at least half the limit was in use; otherwise a lightly
+                // loaded client would drift to the maximum without evidence the server copes.
+                if ((inFlight + 1) * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot of a request that failed without a response, without changing the limit.
+     */
+    public void releaseFailed() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return How long new requests stay paused after a throttling response, or zero
+     */
+    public Duration getRemainingPause() {
+        lock.lock();
+        try {
+            return Duration.ofNanos(Math.max(0, pausedUntilNanos - System.nanoTime()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Duration getMaxQueueWait() {
+        return Duration.ofNanos(maxQueueWaitNanos);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Copy of the time callers spent waiting for a slot, in nanoseconds
+     */
+    public Histogram getQueueWait() {
+        return queueWait.copy();
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    public long getSlowCount() {
+        return slow.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    @Override
+    public String toString() {
+        Histogram wait = getQueueWait();
+        return String.format("AdaptiveConcurrencyLimiter[limit=%d, inFlight=%d, queued=%d, throttled=%d, slow=%d, "
+                        + "timedOut=%d, queueWait p50=%.2fms p99=%.2fms max=%.2fms]",
+                getLimit(), getInFlight(), getQueued(), getThrottledCount(), getSlowCount(), getTimedOutCount(),
+                wait.getValueAtPercentile(50.0) / 1e6, wait.getValueAtPercentile(99.0) / 1e6,
+                wait.getMaxValue() / 1e6);
+    }
+}
@@ -0,0 +1,111 @@
+package com.petstore.api.resilience;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-endpoint timeouts derived from recent latency: a percentile (typically p99) times a
+ * headroom factor, kept between a floor and the configured default.
+ * <p>
+ * Until an endpoint has {@code minSamples} responses the default timeout applies. After that
+ * the timeout is recomputed about once a second from the latencies seen since the last
+ * recomputation, so it follows the server as it speeds up or slows down. A call that is far
+ * slower than its peers then fails fast instead of holding a thread and a connection for the
+ * full default.
+ */
+public class AdaptiveTimeouts {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double percentile;
+    private final double headroom;
+    private final long minTimeoutNanos;
+    private final long defaultTimeoutNanos;
+    private final int minSamples;
+    private final ConcurrentMap<String, EndpointTimeout> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param percentile Latency percentile the timeout is based on, e.g. 99
+     * @param headroom Factor the percentile is multiplied by, e.g. 3
+     * @param minTimeout Shortest timeout, however fast the endpoint has been
+     * @param defaultTimeout Timeout before enough samples are seen, and the longest allowed
+     * @param minSamples Responses an endpoint needs before its latency is trusted
+     */
+    public AdaptiveTimeouts(double percentile, double headroom, Duration minTimeout, Duration defaultTimeout,
+                            int minSamples) {
+        this.percentile = percentile;
+        this.headroom = headroom;
+        this.minTimeoutNanos = minTimeout.toNanos();
+        this.defaultTimeoutNanos = defaultTimeout.toNanos();
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * @return Timeout for the next request to the endpoint, in nanoseconds
+     */
+    public long getTimeoutNanos(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, key -> new EndpointTimeout()).getTimeoutNanos();
+    }
+
+    /**
+     * Records how long a completed request to the endpoint took.
+     */
+    public void record(String endpoint, long latencyNanos) {
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointTimeout())
+                .recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    /**
+     * @return Current timeout of every endpoint seen so far, in milliseconds, sorted by endpoint
+     */
+    public Map<String, Long> getTimeoutsMillis() {
+        Map<String, Long> timeouts = new TreeMap<>();
+        endpoints.forEach((endpoint, timeout) -> timeouts.put(endpoint, timeout.timeoutNanos / 1_000_000));
+        return timeouts;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveTimeouts" + getTimeoutsMillis();
+    }
+
+    /**
+     * Recent latency and current timeout of one endpoint.
+     */
+    private final class EndpointTimeout {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 2);
+        private final Histogram window = new Histogram(HIGHEST_TRACKABLE_NANOS, 2);
+        private Histogram interval;
+        private volatile long timeoutNanos = defaultTimeoutNanos;
+        private volatile long nextRefreshNanos = System.nanoTime() + REFRESH_INTERVAL_NANOS;
+
+        long getTimeoutNanos() {
+            long now = System.nanoTime();
+            if (now - nextRefreshNanos >= 0) {
+                refresh(now);
+            }
+            return timeoutNanos;
+        }
+
+        private synchronized void refresh(long now) {
+            if (now - nextRefreshNanos < 0) {
+                return;
+            }
+            nextRefreshNanos = now + REFRESH_INTERVAL_NANOS;
+            interval = recorder.getIntervalHistogram(interval);
+            window.add(interval);
+            if (window.getTotalCount() >= minSamples) {
+                long observed = (long) (window.getValueAtPercentile(percentile) * headroom);
+                timeoutNanos = Math.min(defaultTimeoutNanos, Math.max(minTimeoutNanos, observed));
+                window.reset();
+            }
+        }
+    }
+}
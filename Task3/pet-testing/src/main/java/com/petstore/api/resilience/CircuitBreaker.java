@@ -0,0 +1,236 @@
+package com.petstore.api.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker for one endpoint, so a failing endpoint is answered at once instead of
+ * holding threads and connections until every call has timed out.
+ * <p>
+ * While closed, the outcomes of the last {@code windowSize} calls are kept. Once at least
+ * {@code minCalls} are in the window, the breaker opens when the share of failed calls
+ * reaches the failure rate threshold, or the share of calls slower than the slow-call
+ * threshold reaches the slow-call rate threshold. While open, calls are rejected. After the
+ * open duration it lets {@code halfOpenCalls} trial calls through: if their rates stay below
+ * the thresholds it closes with an empty window, otherwise it opens again.
+ * <p>
+ * Every transition starts a new generation, and a call only counts in the generation it was
+ * permitted in. A call that was slow to finish therefore never counts towards a later window
+ * or trial, even if the breaker has since gone round to the state it was permitted in.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Returned by {@link #tryAcquire} when a call is rejected.
+     */
+    public static final long REJECTED = -1;
+
+    private final String endpoint;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final int minCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int position;
+    private int calls;
+    private int failures;
+    private int slow;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAtNanos;
+    private int trialPermits;
+    private int trialCalls;
+    private int trialFailures;
+    private int trialSlow;
+
+    private final Map<State, LongAdder> transitions = new EnumMap<>(State.class);
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param endpoint Method and path template the breaker guards, for logging
+     * @param windowSize Number of most recent calls the rates are taken over
+     * @param minCalls Calls needed in the window before the breaker can open
+     * @param failureRateThreshold Percentage of failed calls that opens the breaker
+     * @param slowCallThreshold Duration from which a call counts as slow
+     * @param slowCallRateThreshold Percentage of slow calls that opens the breaker
+     * @param openDuration How long the breaker rejects calls before trying again
+     * @param halfOpenCalls Trial calls let through after the open duration
+     */
+    public CircuitBreaker(String endpoint, int windowSize, int minCalls, double failureRateThreshold,
+                          Duration slowCallThreshold, double slowCallRateThreshold, Duration openDuration,
+                          int halfOpenCalls) {
+        if (windowSize < 1 || minCalls < 1 || minCalls > windowSize) {
+            throw new IllegalArgumentException("Invalid window: " + minCalls + " of " + windowSize + " calls");
+        }
+        if (halfOpenCalls < 1) {
+            throw new IllegalArgumentException("At least one half-open call is needed: " + halfOpenCalls);
+        }
+        this.endpoint = endpoint;
+        this.failedCalls = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        for (State to : State.values()) {
+            transitions.put(to, new LongAdder());
+        }
+    }
+
+    /**
+     * Asks to make a call. A permitted call must be followed by {@link #record} or
+     * {@link #release} with the returned generation.
+     *
+     * @return The generation the call is permitted in, or {@link #REJECTED}
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                rejected.increment();
+                return REJECTED;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialPermits == 0) {
+                rejected.increment();
+                return REJECTED;
+            }
+            trialPermits--;
+        }
+        return generation;
+    }
+
+    /**
+     * Records the outcome of a permitted call. Outcomes of calls permitted in an earlier
+     * generation are ignored, so calls still in flight when the breaker opened do not count as
+     * trials, nor trials still in flight when it closed towards the new window.
+     *
+     * @param permittedIn Generation returned by {@link #tryAcquire}
+     */
+    public synchronized void record(long permittedIn, long durationNanos, boolean failed) {
+        if (permittedIn != generation) {
+            return;
+        }
+        boolean isSlow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            trialCalls++;
+            trialFailures += failed ? 1 : 0;
+            trialSlow += isSlow ? 1 : 0;
+            if (trialCalls == halfOpenCalls) {
+                transitionTo(exceedsThresholds(trialFailures, trialSlow, trialCalls) ? State.OPEN : State.CLOSED);
+            }
+            return;
+        }
+        if (calls == failedCalls.length) {
+            failures -= failedCalls[position] ? 1 : 0;
+            slow -= slowCalls[position] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failedCalls[position] = failed;
+        slowCalls[position] = isSlow;
+        failures += failed ? 1 : 0;
+        slow += isSlow ? 1 : 0;
+        position = (position + 1) % failedCalls.length;
+        if (calls >= minCalls && exceedsThresholds(failures, slow, calls)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * Gives back a permit whose call had no outcome that says anything about the endpoint,
+     * such as a call never sent because its deadline had passed.
+     */
+    public synchronized void release(long permittedIn) {
+        if (permittedIn == generation && state == State.HALF_OPEN) {
+            trialPermits++;
+        }
+    }
+
+    private boolean exceedsThresholds(int failed, int slowCount, int total) {
+        return failed * 100.0 / total >= failureRateThreshold || slowCount * 100.0 / total >= slowCallRateThreshold;
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        if (next == State.OPEN) {
+            String rates = previous == State.HALF_OPEN
+                    ? String.format("%d of %d trial calls failed, %d slow", trialFailures, trialCalls, trialSlow)
+                    : String.format("%d of %d calls failed, %d slow", failures, calls, slow);
+            logger.warn("Circuit breaker for {} opened for {} ms: {}", endpoint,
+                    TimeUnit.NANOSECONDS.toMillis(openNanos), rates);
+            openedAtNanos = System.nanoTime();
+        } else {
+            logger.info("Circuit breaker for {} is now {}", endpoint, next);
+        }
+        if (next == State.HALF_OPEN) {
+            trialPermits = halfOpenCalls;
+            trialCalls = 0;
+            trialFailures = 0;
+            trialSlow = 0;
+        } else if (next == State.CLOSED) {
+            position = 0;
+            calls = 0;
+            failures = 0;
+            slow = 0;
+        }
+        state = next;
+        generation++;
+        transitions.get(next).increment();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return How long an open breaker keeps rejecting calls, or zero when it is not open
+     */
+    public synchronized Duration getRemainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (System.nanoTime() - openedAtNanos)));
+    }
+
+    /**
+     * @return Number of times the breaker has entered the given state
+     */
+    public long getTransitionCount(State to) {
+        return transitions.get(to).sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s[opened=%d, halfOpened=%d, closed=%d, rejected=%d]", state,
+                getTransitionCount(State.OPEN), getTransitionCount(State.HALF_OPEN),
+                getTransitionCount(State.CLOSED), getRejectedCount());
+    }
+}
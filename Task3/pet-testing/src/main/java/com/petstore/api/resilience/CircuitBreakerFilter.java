@@ -0,0 +1,109 @@
+package com.petstore.api.resilience;
+
+import com.petstore.api.metrics.EndpointMetricsFilter;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Guards each endpoint with its own {@link CircuitBreaker}, so one failing endpoint is
+ * rejected fast while the others carry on. Requests to an open endpoint fail with
+ * {@link CircuitBreakerOpenException} without being sent.
+ * <p>
+ * A call fails when it gets a 5xx response, times out, or fails with an I/O error. Calls that
+ * fail on the client side do not count either way: those never sent because their
+ * {@link Deadline} had passed, those the {@link AdaptiveConcurrencyLimiter} gave up queueing,
+ * and copies the {@link RequestHedger} cancelled because the other copy answered first. Add
+ * it before the {@link ConcurrencyLimitFilter}, so rejected calls do not queue for a slot and
+ * retried calls count once.
+ */
+public class CircuitBreakerFilter implements Filter {
+    private final Function<String, CircuitBreaker> breakerFactory;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param breakerFactory Creates the breaker of an endpoint, given its method and path template
+     */
+    public CircuitBreakerFilter(Function<String, CircuitBreaker> breakerFactory) {
+        this.breakerFactory = breakerFactory;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String endpoint = EndpointMetricsFilter.endpointKey(requestSpec);
+        CircuitBreaker breaker = breakers.computeIfAbsent(endpoint, breakerFactory);
+        long permittedIn = breaker.tryAcquire();
+        if (permittedIn == CircuitBreaker.REJECTED) {
+            throw new CircuitBreakerOpenException(endpoint, breaker.getRemainingOpen(), String.format(
+                    "%s rejected: circuit breaker is %s, open for %d ms more", endpoint, breaker.getState(),
+                    breaker.getRemainingOpen().toMillis()));
+        }
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+            response.asByteArray();
+        } catch (Exception e) {
+            // REST Assured rethrows I/O failures unchecked but undeclared, so catch broadly.
+            if (isEndpointFailure(e) && !RequestHedger.isCurrentAttemptCancelled()) {
+                breaker.record(permittedIn, System.nanoTime() - start, true);
+            } else {
+                breaker.release(permittedIn);
+            }
+            throw e;
+        }
+        breaker.record(permittedIn, System.nanoTime() - start, response.getStatusCode() >= 500);
+        return response;
+    }
+
+    static boolean isEndpointFailure(Exception e) {
+        if (e instanceof RequestTimeoutException) {
+            return ((RequestTimeoutException) e).isSent();
+        }
+        // Limiter rejections are IllegalStateExceptions, so only I/O errors are left.
+        return e instanceof IOException;
+    }
+
+    /**
+     * @return The breaker of every endpoint called so far, by endpoint
+     */
+    public Map<String, CircuitBreaker> getBreakers() {
+        return new TreeMap<>(breakers);
+    }
+
+    public long getRejectedCount() {
+        return breakers.values().stream().mapToLong(CircuitBreaker::getRejectedCount).sum();
+    }
+
+    /**
+     * @return Number of times any endpoint's breaker opened
+     */
+    public long getOpenedCount() {
+        return breakers.values().stream()
+                .mapToLong(breaker -> breaker.getTransitionCount(CircuitBreaker.State.OPEN))
+                .sum();
+    }
+
+    @Override
+    public String toString() {
+        Map<String, CircuitBreaker> tripped = new TreeMap<>();
+        breakers.forEach((endpoint, breaker) -> {
+            if (breaker.getTransitionCount(CircuitBreaker.State.OPEN) > 0) {
+                tripped.put(endpoint, breaker);
+            }
+        });
+        return String.format("CircuitBreakerFilter[endpoints=%d, opened=%d, rejected=%d%s]", breakers.size(),
+                getOpenedCount(), getRejectedCount(), tripped.isEmpty() ? "" : ", " + tripped);
+    }
+}
@@ -0,0 +1,34 @@
+package com.petstore.api.resilience;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of sending a request while the {@link CircuitBreaker} of its endpoint is open,
+ * or half-open with all its trial calls already in flight.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final Duration remainingOpen;
+
+    public CircuitBreakerOpenException(String endpoint, Duration remainingOpen, String message) {
+        super(message);
+        this.endpoint = endpoint;
+        this.remainingOpen = remainingOpen;
+    }
+
+    /**
+     * @return Method and path template of the request
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return How much longer the breaker stays open, or zero if it is waiting on trial calls
+     */
+    public Duration getRemainingOpen() {
+        return remainingOpen;
+    }
+}
@@ -0,0 +1,170 @@
+package com.petstore.api.resilience;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.MultiPartSpecification;
+import io.restassured.specification.RequestSpecification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends every request through an {@link AdaptiveConcurrencyLimiter} and retries requests
+ * the server throttled (429 or 503) once the limiter lets them through again.
+ * <p>
+ * Only idempotent requests (GET, HEAD, OPTIONS, PUT and DELETE) are retried on either status.
+ * A 503 may come after the server has already applied a POST, so a POST or PATCH is retried
+ * only on a 429 carrying {@code Retry-After}, which says the request was turned away unprocessed;
+ * any other throttled response is returned to the caller.
+ * <p>
+ * A retry is given up, and the throttled response returned, when the limiter would keep it
+ * queued past its maximum queue wait, so a long {@code Retry-After} never turns a response
+ * into a limiter failure.
+ * <p>
+ * Retries pass through the filters registered after this one again, but not through those
+ * before it, which see one call and its final response. Responses are read in full before
+ * the slot is released, so discarded attempts do not hold on to pooled connections. Requests
+ * with a streamed multipart part are never retried, as the stream has been consumed.
+ */
+public class ConcurrencyLimitFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final int maxRetries;
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * @param limiter The limiter shared by all requests to the same server
+     * @param maxRetries How many times a throttled request is re-sent before its response is returned
+     */
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, int maxRetries) {
+        this.limiter = limiter;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response throttledResponse = null;
+        for (int attempt = 0; ; attempt++) {
+            if (throttledResponse == null) {
+                limiter.acquire();
+            } else {
+                try {
+                    limiter.acquire();
+                } catch (IllegalStateException e) {
+                    logger.debug("{} {} not retried: {}", requestSpec.getMethod(), requestSpec.getURI(), e.getMessage());
+                    return throttledResponse;
+                }
+            }
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = attempt == 0 ? ctx.next(requestSpec, responseSpec) : ctx.send(retrySpec(requestSpec));
+                response.asByteArray();
+            } catch (RuntimeException e) {
+                limiter.releaseFailed();
+                throw e;
+            }
+            int statusCode = response.getStatusCode();
+            boolean throttled = statusCode == 429 || statusCode == 503;
+            Duration retryAfter = throttled ? parseRetryAfter(response.getHeader("Retry-After")) : null;
+            limiter.release(System.nanoTime() - start, throttled, retryAfter);
+            boolean retryable = throttled
+                    && (isIdempotent(requestSpec.getMethod()) || statusCode == 429 && retryAfter != null);
+            if (!retryable || attempt >= maxRetries || hasStreamedPart(requestSpec)
+                    || limiter.getRemainingPause().compareTo(limiter.getMaxQueueWait()) >= 0) {
+                return response;
+            }
+            throttledResponse = response;
+            retries.increment();
+            logger.debug("{} {} throttled with {}, retry {} of {}", requestSpec.getMethod(), requestSpec.getURI(),
+                    statusCode, attempt + 1, maxRetries);
+        }
+    }
+
+    /**
+     * A filter context can only be passed down once, so retries are sent as a new request
+     * carrying the same specification and only the filters that run after this one. The
+     * context re-sends the already substituted path, so path parameters are dropped.
+     */
+    private RequestSpecification retrySpec(FilterableRequestSpecification requestSpec) {
+        List<Filter> filters = requestSpec.getDefinedFilters();
+        List<Filter> remaining = new ArrayList<>(filters.subList(filters.indexOf(this) + 1, filters.size()));
+        FilterableRequestSpecification retry = (FilterableRequestSpecification) RestAssured.given()
+                .spec(requestSpec)
+                .noFilters()
+                .filters(remaining);
+        new ArrayList<>(retry.getNamedPathParams().keySet()).forEach(retry::removeNamedPathParam);
+        new ArrayList<>(retry.getUnnamedPathParamValues()).forEach(retry::removeUnnamedPathParamByValue);
+        return retry;
+    }
+
+    private static boolean isIdempotent(String method) {
+        switch (method.toUpperCase(Locale.ROOT)) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean hasStreamedPart(FilterableRequestSpecification requestSpec) {
+        for (MultiPartSpecification part : requestSpec.getMultiPartParams()) {
+            if (part.getContent() instanceof InputStream) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Parses a {@code Retry-After} value given either as delay seconds or as an HTTP date.
+     *
+     * @return The delay, or null if the header is absent or malformed
+     */
+    public static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException e) {
+            // Not delay-seconds; try the HTTP-date form below.
+        }
+        try {
+            Duration delay = Duration.between(ZonedDateTime.now(),
+                    ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
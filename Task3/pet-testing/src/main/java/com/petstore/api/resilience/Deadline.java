@@ -0,0 +1,89 @@
+package com.petstore.api.resilience;
+
+import java.time.Duration;
+
+/**
+ * Time budget for everything a thread does between {@link #start} and {@link #close()},
+ * typically one test method.
+ * <p>
+ * Every request sent on the thread while the deadline is open is given at most the time
+ * that remains, so a test whose early calls were slow has less left for its later ones, and
+ * no call is sent once the budget is spent. Deadlines do not nest: starting one replaces any
+ * deadline already open on the thread.
+ */
+public final class Deadline implements AutoCloseable {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long budgetNanos;
+    private final long expiresAtNanos;
+
+    private Deadline(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        this.expiresAtNanos = System.nanoTime() + budgetNanos;
+    }
+
+    /**
+     * Opens a deadline on the calling thread.
+     *
+     * @param budget Total time the thread's requests may take from now
+     */
+    public static Deadline start(Duration budget) {
+        Deadline deadline = new Deadline(budget.toNanos());
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * @return The deadline open on the calling thread, or null if there is none
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes a deadline the calling thread's, e.g. on a thread sending a request for another.
+     *
+     * @param deadline Deadline to install, or null to clear the thread's
+     * @return The deadline that was open on the thread before, or null
+     */
+    static Deadline install(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        if (deadline != null) {
+            CURRENT.set(deadline);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * @return Time left before the deadline, negative once it has passed
+     */
+    public long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public Duration getBudget() {
+        return Duration.ofNanos(budgetNanos);
+    }
+
+    /**
+     * Ends the deadline if it is still the one open on the calling thread.
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Deadline[budget=%dms, remaining=%dms]",
+                budgetNanos / 1_000_000, remainingNanos() / 1_000_000);
+    }
+}
@@ -0,0 +1,383 @@
+package com.petstore.api.resilience;
+
+import com.petstore.api.replay.ExchangeScope;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.HttpCoreContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedges idempotent calls: if a call has not answered within a percentile of recent
+ * latency for its endpoint, a second copy is sent and whichever answers first is used.
+ * <p>
+ * The first copy runs on the caller's thread, so calls that answer in time cost no thread
+ * hand-off. Hedges are paid for from a budget that grows by a fixed share of each call,
+ * which caps them to that share of traffic. To cancel the losing copy its connection is shut
+ * down; that requires {@link #getConnectionInterceptor()} to be installed on the connection
+ * pool, otherwise the loser runs to completion and its response is discarded.
+ * <p>
+ * A hedge runs under the caller's {@link Deadline}. Calls made inside an
+ * {@link ExchangeScope} are never hedged, since a timing-dependent second copy would make
+ * recordings differ from run to run.
+ */
+public class RequestHedger implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_BUFFERED_HEDGES = 10;
+    private static final ThreadLocal<Attempt> CURRENT_ATTEMPT = new ThreadLocal<>();
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final HedgeBudget budget;
+    private final ConcurrentMap<String, EndpointLatency> endpoints = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService hedgeExecutor;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesOverBudget = new LongAdder();
+
+    /**
+     * @param percentile Percentile of recent latency after which a hedge is sent, e.g. 95
+     * @param minDelay Shortest wait before hedging, however fast the endpoint has been
+     * @param minSamples Calls an endpoint needs before its latency is trusted; until then
+     *                   nothing is hedged
+     * @param budgetRatio Maximum share of calls that may be hedged, e.g. 0.05
+     */
+    public RequestHedger(double percentile, Duration minDelay, int minSamples, double budgetRatio) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = minSamples;
+        this.budget = new HedgeBudget(budgetRatio, MAX_BUFFERED_HEDGES);
+        this.timer = new ScheduledThreadPoolExecutor(1, new HedgeThreadFactory("request-hedge-timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        this.hedgeExecutor = Executors.newCachedThreadPool(new HedgeThreadFactory("request-hedge"));
+    }
+
+    /**
+     * Runs an idempotent call, hedging it if it is slow.
+     *
+     * @param endpoint Key that groups calls with comparable latency, e.g. method and path template
+     * @param call The call; may run twice, concurrently, on different threads
+     * @return The result of whichever copy completed first
+     */
+    public <T> T execute(String endpoint, Supplier<T> call) {
+        calls.increment();
+        budget.deposit();
+        EndpointLatency latency = endpoints.computeIfAbsent(endpoint, key -> new EndpointLatency());
+        long delay = latency.getHedgeDelayNanos();
+        if (delay < 0 || ExchangeScope.isOpen()) {
+            long start = System.nanoTime();
+            T value = call.get();
+            latency.record(System.nanoTime() - start);
+            return value;
+        }
+
+        HedgedCall<T> hedged = new HedgedCall<>();
+        Deadline deadline = Deadline.current();
+        ScheduledFuture<?> trigger = timer.schedule(() -> launchHedge(hedged, call, latency, deadline),
+                delay, TimeUnit.NANOSECONDS);
+        T value = null;
+        Exception failure = null;
+        long start = System.nanoTime();
+        CURRENT_ATTEMPT.set(hedged.primary);
+        try {
+            value = call.get();
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            CURRENT_ATTEMPT.remove();
+            hedged.primary.finish();
+        }
+        long elapsed = System.nanoTime() - start;
+        trigger.cancel(false);
+        // Either this claims the launch decision, so no hedge can start any more, or the timer
+        // already claimed it and will complete hedgeDone whether or not it sent a hedge.
+        boolean hedgeLaunched = !hedged.launchDecided.compareAndSet(false, true);
+
+        if (failure == null) {
+            if (hedged.result.complete(value)) {
+                latency.record(elapsed);
+                hedged.hedge.cancel();
+                return value;
+            }
+            return hedged.result.join();
+        }
+        if (hedgeLaunched) {
+            hedged.hedgeDone.join();
+        }
+        if (hedged.result.isDone()) {
+            return hedged.result.join();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof IOException) {
+            throw new UncheckedIOException((IOException) failure);
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    private <T> void launchHedge(HedgedCall<T> hedged, Supplier<T> call, EndpointLatency latency, Deadline deadline) {
+        if (hedged.result.isDone() || !hedged.launchDecided.compareAndSet(false, true)) {
+            return;
+        }
+        if (!budget.tryWithdraw()) {
+            hedgesOverBudget.increment();
+            hedged.hedgeDone.complete(null);
+            return;
+        }
+        hedgesSent.increment();
+        try {
+            hedgeExecutor.execute(() -> {
+                CURRENT_ATTEMPT.set(hedged.hedge);
+                Deadline previous = Deadline.install(deadline);
+                long start = System.nanoTime();
+                try {
+                    T value = call.get();
+                    if (hedged.result.complete(value)) {
+                        latency.record(System.nanoTime() - start);
+                        hedgesWon.increment();
+                        hedged.primary.cancel();
+                    }
+                } catch (Exception e) {
+                    logger.debug("Hedged request failed", e);
+                } finally {
+                    Deadline.install(previous);
+                    CURRENT_ATTEMPT.remove();
+                    hedged.hedge.finish();
+                    hedged.hedgeDone.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            hedged.hedgeDone.complete(null);
+        }
+    }
+
+    /**
+     * Interceptor that lets a losing copy be cancelled by shutting down its connection.
+     * Install it once on the pool the hedged client uses, see
+     * {@link com.petstore.api.client.HttpConnectionPool#addRequestInterceptor}.
+     */
+    public HttpRequestInterceptor getConnectionInterceptor() {
+        return (request, context) -> {
+            Attempt attempt = CURRENT_ATTEMPT.get();
+            if (attempt != null) {
+                attempt.bind(HttpCoreContext.adapt(context).getConnection());
+            }
+        };
+    }
+
+    /**
+     * @return Whether the calling thread is running a copy of a hedged call that has been
+     *         cancelled because the other copy answered first, so its failure is the
+     *         hedger's doing rather than the endpoint's
+     */
+    public static boolean isCurrentAttemptCancelled() {
+        Attempt attempt = CURRENT_ATTEMPT.get();
+        return attempt != null && attempt.isCancelled();
+    }
+
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    public long getHedgesOverBudget() {
+        return hedgesOverBudget.sum();
+    }
+
+    /**
+     * @return Current hedge delay for the endpoint in nanoseconds, or -1 while it is not hedged
+     */
+    public long getHedgeDelayNanos(String endpoint) {
+        EndpointLatency latency = endpoints.get(endpoint);
+        return latency != null ? latency.hedgeDelayNanos : -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RequestHedger[calls=%d, hedgesSent=%d, hedgesWon=%d, overBudget=%d]",
+                getCallCount(), getHedgesSent(), getHedgesWon(), getHedgesOverBudget());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        hedgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Both copies of one call and the first result.
+     */
+    private static final class HedgedCall<T> {
+        final Attempt primary = new Attempt();
+        final Attempt hedge = new Attempt();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final CompletableFuture<Void> hedgeDone = new CompletableFuture<>();
+        /**
+         * Claimed by the timer to launch the hedge, or by the primary once it has finished to
+         * rule one out; once the timer claims it, it completes {@link #hedgeDone} in every case.
+         */
+        final AtomicBoolean launchDecided = new AtomicBoolean();
+    }
+
+    /**
+     * One copy of a call and the connection it is using, so it can be cancelled.
+     */
+    private static final class Attempt {
+        private HttpConnection connection;
+        private boolean cancelled;
+        private boolean finished;
+
+        synchronized void bind(HttpConnection connection) throws IOException {
+            if (cancelled) {
+                throw new InterruptedIOException("Hedged request cancelled");
+            }
+            this.connection = connection;
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void finish() {
+            finished = true;
+            connection = null;
+        }
+
+        void cancel() {
+            HttpConnection toClose;
+            synchronized (this) {
+                if (finished || cancelled) {
+                    return;
+                }
+                cancelled = true;
+                toClose = connection;
+            }
+            if (toClose != null) {
+                try {
+                    toClose.shutdown();
+                } catch (IOException e) {
+                    logger.debug("Failed to shut down connection of cancelled request", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recent latency of one endpoint. Latencies are collected in intervals of about a second
+     * until at least {@code minSamples} are available, then the hedge delay is recomputed.
+     */
+    private final class EndpointLatency {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 2);
+        private final Histogram window = new Histogram(HIGHEST_TRACKABLE_NANOS, 2);
+        private Histogram interval;
+        private volatile long hedgeDelayNanos = -1;
+        private volatile long nextRefreshNanos = System.nanoTime() + REFRESH_INTERVAL_NANOS;
+
+        void record(long latencyNanos) {
+            recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        }
+
+        long getHedgeDelayNanos() {
+            long now = System.nanoTime();
+            if (now - nextRefreshNanos >= 0) {
+                refresh(now);
+            }
+            return hedgeDelayNanos;
+        }
+
+        private synchronized void refresh(long now) {
+            if (now - nextRefreshNanos < 0) {
+                return;
+            }
+            nextRefreshNanos = now + REFRESH_INTERVAL_NANOS;
+            interval = recorder.getIntervalHistogram(interval);
+            window.add(interval);
+            if (window.getTotalCount() >= minSamples) {
+                hedgeDelayNanos = Math.max(minDelayNanos, window.getValueAtPercentile(percentile));
+                window.reset();
+            }
+        }
+    }
+
+    /**
+     * Token bucket in millionths of a hedge: each call deposits {@code ratio} of a hedge, and
+     * up to {@code maxBuffered} unused hedges can be saved up for bursts.
+     */
+    private static final class HedgeBudget {
+        private static final long ONE_HEDGE = 1_000_000L;
+        private final long depositPerCall;
+        private final long maxBalance;
+        private final AtomicLong balance = new AtomicLong();
+
+        HedgeBudget(double ratio, int maxBuffered) {
+            this.depositPerCall = (long) (ratio * ONE_HEDGE);
+            this.maxBalance = maxBuffered * ONE_HEDGE;
+        }
+
+        void deposit() {
+            balance.getAndUpdate(current -> Math.min(maxBalance, current + depositPerCall));
+        }
+
+        boolean tryWithdraw() {
+            long current;
+            do {
+                current = balance.get();
+                if (current < ONE_HEDGE) {
+                    return false;
+                }
+            } while (!balance.compareAndSet(current, current - ONE_HEDGE));
+            return true;
+        }
+    }
+
+    private static final class HedgeThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        HedgeThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
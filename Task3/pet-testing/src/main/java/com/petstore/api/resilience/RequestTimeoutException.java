@@ -0,0 +1,47 @@
+package com.petstore.api.resilience;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request did not complete within its timeout, or could not be sent because
+ * the thread's {@link Deadline} had already passed.
+ */
+public class RequestTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final Duration timeout;
+    private final boolean sent;
+
+    /**
+     * @param sent Whether any of the request was written before it timed out
+     */
+    public RequestTimeoutException(String endpoint, Duration timeout, boolean sent, String message, Throwable cause) {
+        super(message, cause);
+        this.endpoint = endpoint;
+        this.timeout = timeout;
+        this.sent = sent;
+    }
+
+    /**
+     * @return Method and path template of the request
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The timeout the request was given
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return Whether the request reached the network, or false if its deadline passed first and
+     *         the timeout says nothing about the endpoint
+     */
+    public boolean isSent() {
+        return sent;
+    }
+}
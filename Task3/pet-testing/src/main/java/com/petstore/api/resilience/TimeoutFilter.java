@@ -0,0 +1,158 @@
+package com.petstore.api.resilience;
+
+import com.petstore.api.metrics.EndpointMetricsFilter;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.HttpCoreContext;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gives every request a read timeout: the endpoint's timeout (fixed, or from
+ * {@link AdaptiveTimeouts}), cut down to whatever remains of the thread's {@link Deadline}.
+ * <p>
+ * The timeout is applied to the pooled connection just before the request is written, so
+ * time spent queueing in earlier filters or waiting for a connection still counts against
+ * the deadline. That requires {@link #getSocketTimeoutInterceptor()} to be installed on the
+ * connection pool. Timeouts surface as {@link RequestTimeoutException}, and a request is not
+ * sent at all once the deadline has passed.
+ */
+public class TimeoutFilter implements Filter {
+    private static final ThreadLocal<Long> REQUEST_TIMEOUT_NANOS = new ThreadLocal<>();
+
+    private final long defaultTimeoutNanos;
+    private final AdaptiveTimeouts adaptiveTimeouts;
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+
+    /**
+     * @param defaultTimeout Read timeout of every request when not adaptive
+     * @param adaptiveTimeouts Per-endpoint timeouts to use instead, or null
+     */
+    public TimeoutFilter(Duration defaultTimeout, AdaptiveTimeouts adaptiveTimeouts) {
+        this.defaultTimeoutNanos = defaultTimeout.toNanos();
+        this.adaptiveTimeouts = adaptiveTimeouts;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String endpoint = EndpointMetricsFilter.endpointKey(requestSpec);
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            deadlineExceeded.increment();
+            throw new RequestTimeoutException(endpoint, Duration.ZERO, false,
+                    String.format("%s not sent: %s is exhausted", endpoint, deadline), null);
+        }
+        long timeoutNanos = adaptiveTimeouts != null ? adaptiveTimeouts.getTimeoutNanos(endpoint) : defaultTimeoutNanos;
+        Long previous = REQUEST_TIMEOUT_NANOS.get();
+        REQUEST_TIMEOUT_NANOS.set(timeoutNanos);
+        long start = System.nanoTime();
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            response.asByteArray();
+            if (adaptiveTimeouts != null) {
+                adaptiveTimeouts.record(endpoint, System.nanoTime() - start);
+            }
+            return response;
+        } catch (Exception e) {
+            // REST Assured rethrows I/O failures unchecked but undeclared, so catch broadly.
+            if (!(e instanceof SocketTimeoutException)) {
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (e instanceof DeadlineExhaustedException) {
+                deadlineExceeded.increment();
+                throw new RequestTimeoutException(endpoint, Duration.ofNanos(timeoutNanos), false, String.format(
+                        "%s not sent: %s is exhausted", endpoint, deadline), e);
+            }
+            if (adaptiveTimeouts != null) {
+                adaptiveTimeouts.record(endpoint, elapsed);
+            }
+            boolean byDeadline = deadline != null && deadline.remainingNanos() < timeoutNanos - elapsed;
+            if (byDeadline) {
+                deadlineExceeded.increment();
+            } else {
+                timeouts.increment();
+            }
+            throw new RequestTimeoutException(endpoint, Duration.ofNanos(timeoutNanos), true, String.format(
+                    "%s timed out after %d ms (%s)", endpoint, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    byDeadline ? deadline : "endpoint timeout " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms"), e);
+        } finally {
+            if (previous != null) {
+                REQUEST_TIMEOUT_NANOS.set(previous);
+            } else {
+                REQUEST_TIMEOUT_NANOS.remove();
+            }
+        }
+    }
+
+    /**
+     * Interceptor that sets the leased connection's read timeout for the request about to be
+     * written. Without a timeout from this filter it still enforces the thread's deadline.
+     * Install it once on the pool the client uses, see
+     * {@link com.petstore.api.client.HttpConnectionPool#addRequestInterceptor}.
+     */
+    public static HttpRequestInterceptor getSocketTimeoutInterceptor() {
+        return (request, context) -> {
+            Long requestTimeout = REQUEST_TIMEOUT_NANOS.get();
+            Deadline deadline = Deadline.current();
+            if (requestTimeout == null && deadline == null) {
+                return;
+            }
+            long timeoutNanos = requestTimeout != null ? requestTimeout : Long.MAX_VALUE;
+            if (deadline != null) {
+                long remaining = deadline.remainingNanos();
+                if (remaining <= 0) {
+                    throw new DeadlineExhaustedException();
+                }
+                timeoutNanos = Math.min(timeoutNanos, remaining);
+            }
+            HttpConnection connection = HttpCoreContext.adapt(context).getConnection();
+            if (connection != null) {
+                // A socket timeout of 0 means none, so round up to at least 1 ms.
+                connection.setSocketTimeout((int) Math.min(Integer.MAX_VALUE,
+                        Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos))));
+            }
+        };
+    }
+
+    public AdaptiveTimeouts getAdaptiveTimeouts() {
+        return adaptiveTimeouts;
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getDeadlineExceededCount() {
+        return deadlineExceeded.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TimeoutFilter[timeouts=%d, deadlineExceeded=%d%s]", getTimeoutCount(),
+                getDeadlineExceededCount(), adaptiveTimeouts != null ? ", " + adaptiveTimeouts : "");
+    }
+
+    /**
+     * Thrown by the interceptor when the deadline ran out while the request waited for a
+     * connection, so nothing was sent.
+     */
+    private static final class DeadlineExhaustedException extends SocketTimeoutException {
+        private static final long serialVersionUID = 1L;
+
+        DeadlineExhaustedException() {
+            super("Deadline exhausted before the request was written");
+        }
+    }
+}
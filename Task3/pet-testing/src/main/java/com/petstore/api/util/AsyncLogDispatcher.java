@@ -0,0 +1,125 @@
+package com.petstore.api.util;
+
+import com.petstore.api.config.ApiConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Moves log formatting and output off request threads.
+ * <p>
+ * Callers hand over an unformatted event; a single background thread formats and writes it.
+ * When the buffer is full the event is counted as dropped rather than making the caller wait.
+ * The thread parks while the buffer is empty and is woken by the next event.
+ */
+public class AsyncLogDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLogDispatcher.class);
+    private static volatile AsyncLogDispatcher shared;
+
+    private final LogRingBuffer<Supplier<String>> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final Thread drainer;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    public AsyncLogDispatcher(int capacity) {
+        this.buffer = new LogRingBuffer<>(capacity);
+        this.drainer = new Thread(this::drainLoop, "http-log-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * @return The process-wide dispatcher, sized from {@code api.logging.buffer.size}
+     */
+    public static AsyncLogDispatcher shared() {
+        AsyncLogDispatcher dispatcher = shared;
+        if (dispatcher == null) {
+            synchronized (AsyncLogDispatcher.class) {
+                dispatcher = shared;
+                if (dispatcher == null) {
+                    dispatcher = new AsyncLogDispatcher(ApiConfig.getLoggingBufferSize());
+                    Runtime.getRuntime().addShutdownHook(new Thread(dispatcher::close, "http-log-flush"));
+                    shared = dispatcher;
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Queues an event for formatting on the background thread.
+     *
+     * @return false if the buffer was full and the event was dropped
+     */
+    public boolean dispatch(Supplier<String> event) {
+        if (!running || !buffer.offer(event)) {
+            dropped.increment();
+            return false;
+        }
+        if (idle) {
+            LockSupport.unpark(drainer);
+        }
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drainAvailable()) {
+                continue;
+            }
+            idle = true;
+            // Check again once idle is visible: an event offered before then was not followed
+            // by an unpark, and one offered after will be.
+            if (running && buffer.isEmpty()) {
+                LockSupport.park(this);
+            }
+            idle = false;
+        }
+        drainAvailable();
+    }
+
+    private boolean drainAvailable() {
+        boolean drained = false;
+        Supplier<String> event;
+        while ((event = buffer.poll()) != null) {
+            drained = true;
+            try {
+                logger.info(event.get());
+                written.increment();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to format HTTP log event", e);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Stops accepting events and writes out whatever is still buffered.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.sum() > 0) {
+            logger.warn("Dropped {} HTTP log events because the log buffer was full", dropped.sum());
+        }
+    }
+}
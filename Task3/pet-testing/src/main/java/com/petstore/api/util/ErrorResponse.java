@@ -0,0 +1,144 @@
+package com.petstore.api.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The parts of an API error response that tests and reports use: status, the
+ * {@code code}/{@code type}/{@code message} fields of the JSON body, and the start of the body.
+ * <p>
+ * Instances are mutable so a hot loop can decode many responses into one instance, see
+ * {@link ErrorResponseDecoder#decode(io.restassured.response.Response, ErrorResponse)}.
+ */
+public class ErrorResponse {
+    private int statusCode;
+    private String statusLine;
+    private Integer code;
+    private String type;
+    private String message;
+    private Object codeValue;
+    private Object typeValue;
+    private Object messageValue;
+    private String bodyExcerpt;
+    private int bodyLength;
+    private boolean bodyTruncated;
+
+    /**
+     * Clears every field so the instance can be decoded into again.
+     */
+    public void reset() {
+        statusCode = 0;
+        statusLine = null;
+        code = null;
+        type = null;
+        message = null;
+        codeValue = null;
+        typeValue = null;
+        messageValue = null;
+        bodyExcerpt = null;
+        bodyLength = 0;
+        bodyTruncated = false;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public String getStatusLine() {
+        return statusLine;
+    }
+
+    void setStatusLine(String statusLine) {
+        this.statusLine = statusLine;
+    }
+
+    /**
+     * @return The {@code code} field of the body, or null if absent or not an integer
+     */
+    public Integer getCode() {
+        return code;
+    }
+
+    void setCode(Integer code) {
+        this.code = code;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    void setType(String type) {
+        this.type = type;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Keeps the fields as decoded, typed as {@code jsonPath()} types them, for {@link #toMap()}.
+     */
+    void setValues(Object codeValue, Object typeValue, Object messageValue) {
+        this.codeValue = codeValue;
+        this.typeValue = typeValue;
+        this.messageValue = messageValue;
+    }
+
+    /**
+     * @return The body, cut off after the decoder's byte limit
+     */
+    public String getBodyExcerpt() {
+        return bodyExcerpt;
+    }
+
+    void setBody(String bodyExcerpt, int bodyLength, boolean bodyTruncated) {
+        this.bodyExcerpt = bodyExcerpt;
+        this.bodyLength = bodyLength;
+        this.bodyTruncated = bodyTruncated;
+    }
+
+    /**
+     * @return Full length of the body in bytes
+     */
+    public int getBodyLength() {
+        return bodyLength;
+    }
+
+    public boolean isBodyTruncated() {
+        return bodyTruncated;
+    }
+
+    /**
+     * @return The fields in the form {@link ErrorUtils#extractErrorDetails} returns: message,
+     *         code and type when present, typed as {@code jsonPath()} returns them (so a string
+     *         code stays a string), plus statusCode and statusLine
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> details = new HashMap<>();
+        if (messageValue != null) {
+            details.put("message", messageValue);
+        }
+        if (codeValue != null) {
+            details.put("code", codeValue);
+        }
+        if (typeValue != null) {
+            details.put("type", typeValue);
+        }
+        details.put("statusCode", statusCode);
+        details.put("statusLine", statusLine);
+        return details;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ErrorResponse[status=%d, code=%s, type=%s, message=%s]", statusCode, code, type, message);
+    }
+}
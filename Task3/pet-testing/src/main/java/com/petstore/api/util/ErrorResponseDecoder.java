@@ -0,0 +1,185 @@
+package com.petstore.api.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.petstore.model.json.ObjectMappers;
+import io.restassured.response.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes error responses in one streaming pass over the body bytes.
+ * <p>
+ * The top-level {@code code}, {@code type} and {@code message} fields are pulled out as
+ * they are reached and everything else is skipped without building a tree; parsing stops
+ * once all three are found. The three fields are also kept as {@code jsonPath()} would return
+ * them, for {@link ErrorResponse#toMap()}. Only the first {@value #DEFAULT_MAX_BODY_BYTES} bytes of the
+ * body (or a given limit) are kept as text.
+ */
+public final class ErrorResponseDecoder {
+    private static final Logger logger = LoggerFactory.getLogger(ErrorResponseDecoder.class);
+    public static final int DEFAULT_MAX_BODY_BYTES = 1024;
+
+    private ErrorResponseDecoder() {
+    }
+
+    public static ErrorResponse decode(Response response) {
+        return decode(response, new ErrorResponse());
+    }
+
+    /**
+     * Decodes into an existing instance, which is reset first.
+     *
+     * @return {@code into}
+     */
+    public static ErrorResponse decode(Response response, ErrorResponse into) {
+        return decode(response.getStatusCode(), response.getStatusLine(), response.getContentType(),
+                response.asByteArray(), DEFAULT_MAX_BODY_BYTES, into);
+    }
+
+    /**
+     * Decodes a response received by any client.
+     *
+     * @param contentType Content type of the body; only JSON bodies are parsed for fields
+     * @param body Raw body bytes, or null if there was none
+     * @param maxBodyBytes How many bytes of the body to keep as text
+     * @return {@code into}
+     */
+    public static ErrorResponse decode(int statusCode, String statusLine, String contentType, byte[] body,
+                                       int maxBodyBytes, ErrorResponse into) {
+        into.reset();
+        into.setStatusCode(statusCode);
+        into.setStatusLine(statusLine);
+        if (body == null) {
+            return into;
+        }
+        into.setBody(excerpt(body, maxBodyBytes), body.length, body.length > maxBodyBytes);
+        if (contentType != null && contentType.contains("application/json") && body.length > 0) {
+            readFields(body, into);
+        }
+        return into;
+    }
+
+    /**
+     * @return At most the first {@code maxBodyBytes} bytes of the body as UTF-8 text, cut
+     *         before any character that would not fit whole
+     */
+    public static String excerpt(byte[] body, int maxBodyBytes) {
+        int end = Math.min(body.length, Math.max(0, maxBodyBytes));
+        if (end < body.length) {
+            // Back off over continuation bytes (10xxxxxx) to the start of the character that
+            // was cut; a UTF-8 character has at most three of them.
+            int start = end;
+            while (start > 0 && end - start < 3 && (body[start] & 0xC0) == 0x80) {
+                start--;
+            }
+            if ((body[start] & 0xC0) != 0x80) {
+                end = start;
+            }
+        }
+        return new String(body, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static void readFields(byte[] body, ErrorResponse into) {
+        try (JsonParser parser = ObjectMappers.factory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            int found = 0;
+            Object code = null;
+            Object type = null;
+            Object message = null;
+            try {
+                while (found < 3 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "code":
+                            code = readValue(parser);
+                            into.setCode(toCode(code));
+                            found++;
+                            break;
+                        case "type":
+                            type = readValue(parser);
+                            into.setType(toText(type));
+                            found++;
+                            break;
+                        case "message":
+                            message = readValue(parser);
+                            into.setMessage(toText(message));
+                            found++;
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+            } finally {
+                into.setValues(code, type, message);
+            }
+        } catch (IOException e) {
+            logger.debug("Error response body is not valid JSON; keeping the fields read so far", e);
+        }
+    }
+
+    /**
+     * Reads the current value with the types {@code jsonPath()} gives it: the smallest of
+     * Integer, Long and BigInteger for whole numbers, Float unless only a Double can hold the
+     * value, and maps and lists for containers.
+     */
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                double number = parser.getDoubleValue();
+                return Float.isInfinite((float) number) ? (Object) number : (Object) (float) number;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case START_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    object.put(name, readValue(parser));
+                }
+                return object;
+            case START_ARRAY:
+                List<Object> array = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(readValue(parser));
+                }
+                return array;
+            default:
+                return null;
+        }
+    }
+
+    private static Integer toCode(Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.valueOf(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String toText(Object value) {
+        return value instanceof Map || value instanceof List ? null : value != null ? value.toString() : null;
+    }
+}
@@ -36,9 +36,13 @@ public class ErrorUtils {
     public static String getErrorMessage(Response response) {
         int statusCode = response.getStatusCode();
         String errorDescription = ERROR_MESSAGES.getOrDefault(statusCode, "Unknown error");
-        String responseBody = response.getBody().asString();
-        
-        return String.format("API Error - Status Code: %d (%s), Response: %s", 
+        byte[] body = response.asByteArray();
+        String responseBody = ErrorResponseDecoder.excerpt(body, ErrorResponseDecoder.DEFAULT_MAX_BODY_BYTES);
+        if (body.length > ErrorResponseDecoder.DEFAULT_MAX_BODY_BYTES) {
+            responseBody += "... (" + body.length + " bytes)";
+        }
+
+        return String.format("API Error - Status Code: %d (%s), Response: %s",
                              statusCode, errorDescription, responseBody);
     }
     
@@ -66,36 +70,13 @@ public class ErrorUtils {
     }
     
     /**
-     * Extracts error details from a response, if available.
+     * Extracts error details from a response, if available. The body is parsed once, see
+     * {@link ErrorResponseDecoder}.
      * 
      * @param response The REST Assured response
      * @return A map containing error details or an empty map if none found
      */
     public static Map<String, Object> extractErrorDetails(Response response) {
-        Map<String, Object> errorDetails = new HashMap<>();
-        
-        try {
-            if (response.getContentType().contains("application/json")) {
-                // Try to extract standard error fields
-                if (response.jsonPath().get("message") != null) {
-                    errorDetails.put("message", response.jsonPath().get("message"));
-                }
-                
-                if (response.jsonPath().get("code") != null) {
-                    errorDetails.put("code", response.jsonPath().get("code"));
-                }
-                
-                if (response.jsonPath().get("type") != null) {
-                    errorDetails.put("type", response.jsonPath().get("type"));
-                }
-            }
-        } catch (Exception e) {
-        }
-        
-        // Always include status code
-        errorDetails.put("statusCode", response.getStatusCode());
-        errorDetails.put("statusLine", response.getStatusLine());
-        
-        return errorDetails;
+        return ErrorResponseDecoder.decode(response).toMap();
     }
 } 
\ No newline at end of file
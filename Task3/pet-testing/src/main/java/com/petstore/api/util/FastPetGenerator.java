@@ -0,0 +1,182 @@
+package com.petstore.api.util;
+
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded pet fixture generator built on {@link SplittableRandom} and precomputed tables.
+ * <p>
+ * Names, category names, tag words and photo URLs are built once per class load, so a pet
+ * costs a handful of random draws plus the model objects themselves. An instance is not
+ * thread-safe; use {@link #current()} for a per-thread generator, or {@link #split()} to hand
+ * an independent one to another thread. The seed of the per-thread generators comes from
+ * the {@code test.data.seed} system property, or a random value that is logged so a failing
+ * run can be repeated. Generators are split from it in the order threads first ask, so a
+ * run is only reproduced exactly when threads ask in the same order.
+ */
+public final class FastPetGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(FastPetGenerator.class);
+
+    private static final String[] FIRST_NAMES = {
+            "Abby", "Ace", "Apollo", "Bailey", "Bandit", "Baxter", "Bean", "Bella",
+            "Biscuit", "Blue", "Boomer", "Bruno", "Buddy", "Buster", "Charlie", "Chester",
+            "Chloe", "Coco", "Cooper", "Daisy", "Dexter", "Diesel", "Duke", "Ellie",
+            "Finn", "Frankie", "Ginger", "Gizmo", "Gracie", "Gus", "Harley", "Hazel",
+            "Henry", "Jack", "Jasper", "Juno", "Kiwi", "Lady", "Leo", "Loki",
+            "Lola", "Louie", "Lucky", "Lucy", "Luna", "Maggie", "Mango", "Max",
+            "Milo", "Mochi", "Molly", "Murphy", "Nala", "Olive", "Oreo", "Oscar",
+            "Peanut", "Pepper", "Pickles", "Piper", "Rocky", "Rosie", "Rusty", "Zeus"};
+    private static final String[] LAST_NAMES = {
+            "Barkley", "Biscotti", "Bonkers", "Bubbles", "Buttons", "Cheddar", "Crumble", "Cupcake",
+            "Dumpling", "Fluffbottom", "Fuzzington", "Giggles", "Gumdrop", "Hopscotch", "Jellybean", "Jingles",
+            "Marmalade", "McFluff", "McSnout", "Meatball", "Moonbeam", "Muffin", "Noodle", "Nugget",
+            "Pancake", "Paws", "Pebbles", "Pickwick", "Pudding", "Puddles", "Quackers", "Rascal",
+            "Scooter", "Scruffles", "Shortcake", "Snickers", "Snowball", "Sparkles", "Sprinkles", "Squiggles",
+            "Stardust", "Sugarpaws", "Taco", "Tater", "Thunderpaws", "Tiddlywinks", "Tinkerbell", "Toffee",
+            "Truffle", "Tumbleweed", "Twinkletoes", "Waddles", "Waffles", "Whiskers", "Wiggles", "Wobbles",
+            "Woofington", "Yodel", "Zigzag", "Zoomies", "Bramble", "Clover", "Fiddlesticks", "Sniffles"};
+    private static final String[] ANIMALS = {
+            "dog", "cat", "rabbit", "hamster", "guinea pig", "parrot", "canary", "goldfish",
+            "turtle", "lizard", "snake", "ferret", "chinchilla", "hedgehog", "rat", "mouse",
+            "gerbil", "cockatiel", "budgerigar", "iguana", "gecko", "axolotl", "tarantula", "frog",
+            "pony", "goat", "pig", "duck", "chicken", "alpaca", "sugar glider", "degu"};
+    private static final String[] WORDS = {
+            "alias", "amet", "aperiam", "aut", "autem", "beatae", "commodi", "consequatur",
+            "corporis", "cupiditate", "debitis", "delectus", "dolor", "dolorem", "dolores", "eius",
+            "eligendi", "enim", "error", "esse", "est", "eum", "facilis", "fuga",
+            "harum", "id", "illo", "impedit", "ipsa", "ipsum", "iste", "itaque",
+            "labore", "laborum", "magnam", "maxime", "minima", "modi", "molestiae", "nam",
+            "natus", "nemo", "nihil", "nisi", "nobis", "officia", "omnis", "optio",
+            "pariatur", "placeat", "porro", "quae", "quia", "quibusdam", "quod", "ratione",
+            "rem", "saepe", "sed", "sint", "sunt", "tempora", "vel", "voluptas"};
+    private static final String[] NAMES = new String[FIRST_NAMES.length * LAST_NAMES.length];
+    private static final String[] PHOTO_URLS = new String[256];
+    private static final long MAX_ID = 10_000_000_000L;
+
+    static {
+        int i = 0;
+        for (String first : FIRST_NAMES) {
+            for (String last : LAST_NAMES) {
+                NAMES[i++] = first + " " + last;
+            }
+        }
+        for (int j = 0; j < PHOTO_URLS.length; j++) {
+            PHOTO_URLS[j] = "https://images.example.com/pets/" + (j + 1) + ".jpg";
+        }
+    }
+
+    private static final long ROOT_SEED = rootSeed();
+    private static final SplittableRandom ROOT = new SplittableRandom(ROOT_SEED);
+    private static final ThreadLocal<FastPetGenerator> CURRENT = ThreadLocal.withInitial(FastPetGenerator::splitRoot);
+
+    private final SplittableRandom random;
+
+    public FastPetGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private FastPetGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * @return The calling thread's generator
+     */
+    public static FastPetGenerator current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return A generator whose sequence depends only on the root seed and the key, so a run
+     *         with the same {@code test.data.seed} generates the same data for the same key
+     */
+    public static FastPetGenerator forKey(String key) {
+        return forKey(ROOT_SEED, key);
+    }
+
+    /**
+     * @return A generator whose sequence depends only on the given root seed and the key, e.g.
+     *         to regenerate the data of a recorded run whose seed differs from this run's
+     */
+    public static FastPetGenerator forKey(long rootSeed, String key) {
+        return new FastPetGenerator(rootSeed ^ (key.hashCode() * 0x9e3779b97f4a7c15L));
+    }
+
+    /**
+     * @return Seed the per-thread generators are split from
+     */
+    public static long getRootSeed() {
+        return ROOT_SEED;
+    }
+
+    /**
+     * @return A new generator whose sequence is independent of this one's
+     */
+    public FastPetGenerator split() {
+        return new FastPetGenerator(random.split());
+    }
+
+    /**
+     * @return A pet with a random id, name, category, photo and tag, status {@code available}
+     */
+    public Pet nextPet() {
+        return nextPet(nextId(), "available");
+    }
+
+    public Pet nextPet(long id, String status) {
+        List<String> photoUrls = new ArrayList<>(1);
+        photoUrls.add(nextPhotoUrl());
+        List<Tag> tags = new ArrayList<>(1);
+        tags.add(nextTag());
+        return new Pet(id, nextCategory(), nextName(), photoUrls, tags, status);
+    }
+
+    /**
+     * @return A positive id of up to ten digits
+     */
+    public long nextId() {
+        return random.nextLong(1, MAX_ID);
+    }
+
+    public String nextName() {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    public String nextPhotoUrl() {
+        return PHOTO_URLS[random.nextInt(PHOTO_URLS.length)];
+    }
+
+    public String nextWord() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    public Category nextCategory() {
+        int index = random.nextInt(ANIMALS.length);
+        return new Category(index + 1L, ANIMALS[index]);
+    }
+
+    public Tag nextTag() {
+        return new Tag(nextId(), nextWord());
+    }
+
+    private static synchronized FastPetGenerator splitRoot() {
+        return new FastPetGenerator(ROOT.split());
+    }
+
+    private static long rootSeed() {
+        String configured = System.getProperty("test.data.seed");
+        if (configured != null && !configured.isBlank()) {
+            return Long.parseLong(configured.trim());
+        }
+        long seed = new SplittableRandom().nextLong();
+        logger.info("Generating test data with seed {} (set -Dtest.data.seed to repeat)", seed);
+        return seed;
+    }
+}
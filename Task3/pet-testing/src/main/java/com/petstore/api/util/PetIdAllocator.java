@@ -0,0 +1,151 @@
+package com.petstore.api.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out pet ids that no other test, thread or JVM in the same run can receive.
+ * <p>
+ * An id packs three fields into a positive long: a run namespace (top {@value #NAMESPACE_BITS}
+ * bits), a worker index (next {@value #WORKER_BITS} bits) and a sequence number. Every JVM
+ * taking part in a run uses the same namespace and its own worker index, so their ranges are
+ * disjoint. Within a JVM each thread claims blocks of {@value #BLOCK_SIZE} sequence numbers
+ * with one atomic add and then allocates from its block without synchronization.
+ * <p>
+ * The upper half of the sequence range is kept for {@link #keyedBlock(String)}, whose ids
+ * depend only on a key so that a recorded run can be repeated with the same ids.
+ * <p>
+ * {@link #shared()} is configured by the {@code test.run.namespace} system property (random
+ * and logged if unset; give all JVMs of a run the same value) and {@code test.worker.index}
+ * (default 0; give each JVM its own).
+ */
+public final class PetIdAllocator {
+    private static final Logger logger = LoggerFactory.getLogger(PetIdAllocator.class);
+
+    static final int NAMESPACE_BITS = 14;
+    static final int WORKER_BITS = 12;
+    static final int SEQUENCE_BITS = 63 - NAMESPACE_BITS - WORKER_BITS;
+    public static final long BLOCK_SIZE = 4096;
+
+    public static final int MAX_NAMESPACE = (1 << NAMESPACE_BITS) - 1;
+    public static final int MAX_WORKER_INDEX = (1 << WORKER_BITS) - 1;
+    private static final long KEYED_SEQUENCE_START = 1L << (SEQUENCE_BITS - 1);
+    private static final long KEYED_BLOCKS = KEYED_SEQUENCE_START / BLOCK_SIZE;
+
+    private static final PetIdAllocator SHARED = new PetIdAllocator(configuredNamespace(),
+            Integer.parseInt(System.getProperty("test.worker.index", "0").trim()));
+
+    private final int namespace;
+    private final int workerIndex;
+    private final long prefix;
+    private final AtomicLong nextBlock = new AtomicLong();
+    private final ThreadLocal<Block> block = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * @param namespace Run namespace, 0 to {@value #MAX_NAMESPACE}
+     * @param workerIndex This JVM's worker index, 0 to {@value #MAX_WORKER_INDEX}
+     */
+    public PetIdAllocator(int namespace, int workerIndex) {
+        if (namespace < 0 || namespace > MAX_NAMESPACE) {
+            throw new IllegalArgumentException("Namespace must be between 0 and " + MAX_NAMESPACE + ": " + namespace);
+        }
+        if (workerIndex < 0 || workerIndex > MAX_WORKER_INDEX) {
+            throw new IllegalArgumentException(
+                    "Worker index must be between 0 and " + MAX_WORKER_INDEX + ": " + workerIndex);
+        }
+        this.namespace = namespace;
+        this.workerIndex = workerIndex;
+        this.prefix = ((long) namespace << (WORKER_BITS + SEQUENCE_BITS)) | ((long) workerIndex << SEQUENCE_BITS);
+    }
+
+    /**
+     * @return The allocator configured for this JVM by system properties
+     */
+    public static PetIdAllocator shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return An id not handed out before by this allocator or any other in the same namespace
+     */
+    public long nextId() {
+        Block current = block.get();
+        if (current.next == current.end) {
+            long start = claim(BLOCK_SIZE);
+            current.next = start;
+            current.end = start + BLOCK_SIZE;
+        }
+        return prefix | current.next++;
+    }
+
+    /**
+     * Reserves a contiguous range of ids, e.g. for a load run that derives ids from a counter.
+     *
+     * @return The first id of the range; the range is {@code [first, first + count)}
+     */
+    public long reserve(long count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive: " + count);
+        }
+        long blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        return prefix | claim(blocks * BLOCK_SIZE);
+    }
+
+    /**
+     * Returns the first id of a block of {@value #BLOCK_SIZE} ids chosen by hashing the key, the
+     * same in every run with this namespace and worker index. Blocks never overlap ids from
+     * {@link #nextId()} or {@link #reserve(long)}, but two keys may, rarely, share a block.
+     */
+    public long keyedBlock(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return prefix | (KEYED_SEQUENCE_START + Math.floorMod(hash, KEYED_BLOCKS) * BLOCK_SIZE);
+    }
+
+    /**
+     * @return Whether the id belongs to this allocator's namespace, i.e. was created by this run
+     */
+    public boolean isInNamespace(long id) {
+        return id >= 0 && id >>> (WORKER_BITS + SEQUENCE_BITS) == namespace;
+    }
+
+    public int getNamespace() {
+        return namespace;
+    }
+
+    public int getWorkerIndex() {
+        return workerIndex;
+    }
+
+    private long claim(long size) {
+        long start = nextBlock.getAndAdd(size);
+        if (start > KEYED_SEQUENCE_START - size) {
+            throw new IllegalStateException("Pet id range of worker " + workerIndex + " in namespace "
+                    + namespace + " is exhausted");
+        }
+        return start;
+    }
+
+    private static int configuredNamespace() {
+        String configured = System.getProperty("test.run.namespace");
+        if (configured != null && !configured.isBlank()) {
+            return Integer.parseInt(configured.trim());
+        }
+        int namespace = new SplittableRandom().nextInt(MAX_NAMESPACE + 1);
+        logger.info("Allocating pet ids in namespace {} (set -Dtest.run.namespace to share it across JVMs)", namespace);
+        return namespace;
+    }
+
+    /**
+     * The calling thread's unused part of a claimed block.
+     */
+    private static final class Block {
+        long next;
+        long end;
+    }
+}
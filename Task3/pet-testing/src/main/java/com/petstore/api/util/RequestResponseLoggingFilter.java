@@ -1,46 +1,125 @@
 package com.petstore.api.util;
 
+import com.petstore.api.config.ApiConfig;
 import io.restassured.filter.Filter;
 import io.restassured.filter.FilterContext;
+import io.restassured.http.Headers;
 import io.restassured.response.Response;
 import io.restassured.specification.FilterableRequestSpecification;
 import io.restassured.specification.FilterableResponseSpecification;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Custom filter for logging REST Assured request and response details.
+ * <p>
+ * A sampled request only captures references to the request and response parts on the
+ * calling thread; formatting, header redaction and body truncation happen later on the
+ * {@link AsyncLogDispatcher} thread. Requests that are not sampled cost one random draw.
  */
 public class RequestResponseLoggingFilter implements Filter {
-    private static final Logger logger = LoggerFactory.getLogger(RequestResponseLoggingFilter.class);
+    private final double sampleRate;
+    private final Set<String> redactedHeaders;
+    private final int maxBodyBytes;
+    private final AsyncLogDispatcher dispatcher;
+
+    /**
+     * Creates a filter configured from {@code api.logging.*} properties. With the default
+     * sample rate of 0 nothing is logged.
+     */
+    public RequestResponseLoggingFilter() {
+        this(ApiConfig.getLoggingSampleRate(), ApiConfig.getLoggingRedactedHeaders(),
+                ApiConfig.getLoggingMaxBodyBytes(), null);
+    }
+
+    /**
+     * @param sampleRate Fraction of requests to log, from 0 to 1
+     * @param redactedHeaders Header names whose values are masked, case-insensitive
+     * @param maxBodyBytes Maximum number of body bytes written per request or response
+     * @param dispatcher Dispatcher to hand events to, or null for the shared one
+     */
+    public RequestResponseLoggingFilter(double sampleRate, Set<String> redactedHeaders, int maxBodyBytes,
+                                        AsyncLogDispatcher dispatcher) {
+        this.sampleRate = sampleRate;
+        this.redactedHeaders = redactedHeaders.stream()
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxBodyBytes = maxBodyBytes;
+        this.dispatcher = dispatcher;
+    }
 
     @Override
-    public Response filter(FilterableRequestSpecification requestSpec, 
-                          FilterableResponseSpecification responseSpec, 
+    public Response filter(FilterableRequestSpecification requestSpec,
+                          FilterableResponseSpecification responseSpec,
                           FilterContext ctx) {
         Response response = ctx.next(requestSpec, responseSpec);
+        if (sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            LogEvent event = new LogEvent(requestSpec.getMethod(), requestSpec.getURI(), requestSpec.getHeaders(),
+                    requestSpec.getBody(), response.getStatusLine(), response.getHeaders(),
+                    response.asByteArray(), response.getTimeIn(TimeUnit.MILLISECONDS));
+            (dispatcher != null ? dispatcher : AsyncLogDispatcher.shared()).dispatch(event);
+        }
         return response;
     }
-    
-    private String formatHeaders(FilterableRequestSpecification requestSpec) {
-        StringBuilder sb = new StringBuilder();
-        requestSpec.getHeaders().forEach(header -> 
-            sb.append(header.getName()).append(": ").append(header.getValue()).append(", "));
-        return sb.toString();
-    }
-    
-    private String formatResponseHeaders(Response response) {
+
+    private String formatHeaders(Headers headers) {
         StringBuilder sb = new StringBuilder();
-        response.getHeaders().forEach(header -> 
-            sb.append(header.getName()).append(": ").append(header.getValue()).append(", "));
+        headers.forEach(header -> {
+            boolean redacted = redactedHeaders.contains(header.getName().toLowerCase(Locale.ROOT));
+            sb.append(header.getName()).append(": ").append(redacted ? "***" : header.getValue()).append(", ");
+        });
         return sb.toString();
     }
-    
-    private String formatBody(FilterableRequestSpecification requestSpec) {
-        Object body = requestSpec.getBody();
+
+    /**
+     * @return The body as text, cut to at most {@code maxBodyBytes} bytes of UTF-8 without
+     *         splitting a character
+     */
+    String formatBody(Object body) {
         if (body == null) {
             return "null";
         }
-        return body.toString();
+        byte[] bytes = body instanceof byte[] ? (byte[]) body : body.toString().getBytes(StandardCharsets.UTF_8);
+        String text = ErrorResponseDecoder.excerpt(bytes, maxBodyBytes);
+        return bytes.length > maxBodyBytes ? text + "... (" + bytes.length + " bytes)" : text;
+    }
+
+    /**
+     * References to one exchange, formatted only when the dispatcher writes it.
+     */
+    private final class LogEvent implements Supplier<String> {
+        private final String method;
+        private final String uri;
+        private final Headers requestHeaders;
+        private final Object requestBody;
+        private final String statusLine;
+        private final Headers responseHeaders;
+        private final byte[] responseBody;
+        private final long elapsedMillis;
+
+        LogEvent(String method, String uri, Headers requestHeaders, Object requestBody, String statusLine,
+                 Headers responseHeaders, byte[] responseBody, long elapsedMillis) {
+            this.method = method;
+            this.uri = uri;
+            this.requestHeaders = requestHeaders;
+            this.requestBody = requestBody;
+            this.statusLine = statusLine;
+            this.responseHeaders = responseHeaders;
+            this.responseBody = responseBody;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        @Override
+        public String get() {
+            return String.format("%s %s [%s] body: %s -> %s in %d ms [%s] body: %s",
+                    method, uri, formatHeaders(requestHeaders), formatBody(requestBody),
+                    statusLine, elapsedMillis, formatHeaders(responseHeaders), formatBody(responseBody));
+        }
     }
-} 
\ No newline at end of file
+}
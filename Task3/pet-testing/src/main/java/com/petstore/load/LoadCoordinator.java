@@ -0,0 +1,478 @@
+package com.petstore.load;
+
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.util.PetIdAllocator;
+import com.petstore.server.InMemoryPetStoreServer;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+
+/**
+ * Spreads an open-model load run over several local worker processes, for rates a single JVM
+ * cannot drive on its own.
+ * <p>
+ * Each {@link LoadWorker} runs a {@link LoadRunner} at an equal share of the target rate, in the
+ * coordinator's pet id namespace under its own worker index so their pets never collide. All
+ * workers start together once every one has connected. Their interval response-time histograms
+ * are merged here as they arrive; histograms recorded with the same precision add up losslessly,
+ * so the global percentiles are exact rather than an average of per-worker percentiles.
+ * <p>
+ * A worker whose completed requests trail its share of the schedule by more than the allowed
+ * lag is reported as behind: its process, not the target, may be what limited the rate.
+ */
+public class LoadCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadCoordinator.class);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMinutes(1);
+
+    private final int workerCount;
+    private final double targetRate;
+    private final Duration duration;
+    private final int threadsPerWorker;
+    private final String mix;
+    private final String baseUri;
+    private final List<String> jvmArgs;
+    private final Duration reportInterval;
+    private final double maxLagSeconds;
+    private final Path logDirectory;
+
+    private final List<WorkerState> workers = new ArrayList<>();
+    private final Map<LoadOperation, Histogram> responseTimes = new EnumMap<>(LoadOperation.class);
+    private final Histogram intervalResponseTimes = newHistogram();
+    private long elapsedNanos;
+
+    /**
+     * @param workerCount Number of worker processes to start
+     * @param targetRate Requests per second across all workers
+     * @param threadsPerWorker Maximum concurrent requests in each worker
+     * @param mix Comma-separated operation names, as for {@code load.mix}
+     * @param baseUri Pet store every worker sends its requests to
+     * @param jvmArgs Extra arguments for the worker JVMs, e.g. {@code -Xmx256m}
+     * @param reportInterval How often workers send their histograms and progress
+     * @param maxLagSeconds Seconds of its share of the schedule a worker may trail before it is reported
+     * @param logDirectory Where each worker's output goes, as {@code load-worker-<index>.log}
+     */
+    public LoadCoordinator(int workerCount, double targetRate, Duration duration, int threadsPerWorker, String mix,
+                           String baseUri, List<String> jvmArgs, Duration reportInterval, double maxLagSeconds,
+                           Path logDirectory) {
+        if (workerCount < 1 || workerCount > PetIdAllocator.MAX_WORKER_INDEX) {
+            throw new IllegalArgumentException("Worker count must be between 1 and "
+                    + PetIdAllocator.MAX_WORKER_INDEX + ": " + workerCount);
+        }
+        if (targetRate <= 0) {
+            throw new IllegalArgumentException("Target rate must be positive: " + targetRate);
+        }
+        this.workerCount = workerCount;
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.threadsPerWorker = threadsPerWorker;
+        this.mix = mix;
+        this.baseUri = baseUri;
+        this.jvmArgs = List.copyOf(jvmArgs);
+        this.reportInterval = reportInterval;
+        this.maxLagSeconds = maxLagSeconds;
+        this.logDirectory = logDirectory;
+    }
+
+    /**
+     * Starts the workers, merges their reports until all have finished and waits for their processes to exit.
+     */
+    public void run(PrintStream out) throws IOException, InterruptedException {
+        Files.createDirectories(logDirectory);
+        double share = targetRate / workerCount;
+        try (ServerSocket server = new ServerSocket(0, workerCount, InetAddress.getLoopbackAddress())) {
+            for (int i = 1; i <= workerCount; i++) {
+                workers.add(new WorkerState(i, share, startWorker(i, share, server.getLocalPort())));
+            }
+            try {
+                connectWorkers(server);
+                long start = System.nanoTime();
+                logger.info("Started {} workers at {} req/s each against {}", workerCount, share, baseUri);
+                for (WorkerState worker : workers) {
+                    worker.socket.getOutputStream().write(LoadWorker.START);
+                    worker.lastReportNanos = System.nanoTime();
+                    Thread reader = new Thread(() -> read(worker), "load-coordinator-" + worker.index);
+                    reader.setDaemon(true);
+                    reader.start();
+                    worker.reader = reader;
+                }
+                while (!allFinished()) {
+                    TimeUnit.NANOSECONDS.sleep(reportInterval.toNanos());
+                    printStatus(out, System.nanoTime() - start);
+                }
+                elapsedNanos = System.nanoTime() - start;
+            } finally {
+                for (WorkerState worker : workers) {
+                    finish(worker);
+                }
+            }
+        }
+    }
+
+    private Process startWorker(int index, double share, int port) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(workerClasspath());
+        // Forward the client configuration, but point every worker at the same target.
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("api.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-Dapi.target=remote");
+        command.add("-Dapi.base.uri=" + baseUri);
+        command.add("-Dtest.run.namespace=" + PetIdAllocator.shared().getNamespace());
+        command.add("-Dtest.worker.index=" + index);
+        command.add("-Dload.coordinator.port=" + port);
+        command.add("-Dload.rate=" + share);
+        command.add("-Dload.duration.seconds=" + duration.getSeconds());
+        command.add("-Dload.threads=" + threadsPerWorker);
+        command.add("-Dload.mix=" + mix);
+        command.add("-Dload.report.millis=" + reportInterval.toMillis());
+        command.add(LoadWorker.class.getName());
+        Path log = logDirectory.resolve("load-worker-" + index + ".log");
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    /**
+     * @return The classpath this class was loaded from: under {@code mvn exec:java} that is the
+     *         project's class loader, not the JVM's {@code java.class.path}
+     */
+    private static String workerClasspath() {
+        ClassLoader loader = LoadCoordinator.class.getClassLoader();
+        if (!(loader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        List<String> entries = new ArrayList<>();
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+            try {
+                entries.add(Path.of(url.toURI()).toString());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                logger.debug("Leaving {} off the worker classpath", url, e);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private void connectWorkers(ServerSocket server) throws IOException {
+        long deadline = System.nanoTime() + CONNECT_TIMEOUT.toNanos();
+        int connected = 0;
+        while (connected < workerCount) {
+            for (WorkerState worker : workers) {
+                if (!worker.process.isAlive() && worker.socket == null) {
+                    throw new IOException("Worker " + worker.index + " exited with status "
+                            + worker.process.exitValue() + " before connecting; see its log in " + logDirectory);
+                }
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IOException("Only " + connected + " of " + workerCount + " workers connected within "
+                        + CONNECT_TIMEOUT.getSeconds() + "s");
+            }
+            server.setSoTimeout((int) Math.min(TimeUnit.NANOSECONDS.toMillis(remaining), 1000));
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                continue;
+            }
+            socket.setTcpNoDelay(true);
+            int index = new DataInputStream(socket.getInputStream()).readInt();
+            if (index < 1 || index > workerCount || workers.get(index - 1).socket != null) {
+                socket.close();
+                throw new IOException("Unexpected hello from worker " + index);
+            }
+            workers.get(index - 1).socket = socket;
+            connected++;
+        }
+    }
+
+    private void read(WorkerState worker) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(worker.socket.getInputStream()));
+            byte type;
+            do {
+                type = in.readByte();
+                if (type != LoadWorker.INTERVAL && type != LoadWorker.DONE) {
+                    throw new IOException("Unexpected message type " + type);
+                }
+                readReport(worker, in);
+            } while (type != LoadWorker.DONE);
+            worker.done = true;
+        } catch (EOFException e) {
+            worker.failure = "disconnected before finishing";
+        } catch (IOException e) {
+            worker.failure = "report failed: " + e.getMessage();
+        }
+    }
+
+    private void readReport(WorkerState worker, DataInputStream in) throws IOException {
+        long elapsed = in.readLong();
+        long scheduled = in.readLong();
+        long completed = in.readLong();
+        int operations = in.readInt();
+        Map<LoadOperation, Histogram> interval = new EnumMap<>(LoadOperation.class);
+        for (int i = 0; i < operations; i++) {
+            LoadOperation operation = LoadOperation.fromShortName(in.readUTF());
+            worker.errors.put(operation, in.readLong());
+            byte[] encoded = new byte[in.readInt()];
+            in.readFully(encoded);
+            if (encoded.length > 0) {
+                try {
+                    interval.put(operation, Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0));
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupt histogram for " + operation, e);
+                }
+            }
+        }
+        synchronized (this) {
+            for (Map.Entry<LoadOperation, Histogram> entry : interval.entrySet()) {
+                responseTimes.computeIfAbsent(entry.getKey(), key -> newHistogram()).add(entry.getValue());
+                intervalResponseTimes.add(entry.getValue());
+            }
+            worker.update(elapsed, scheduled, completed, duration);
+        }
+        if (worker.getLagSeconds() > maxLagSeconds && !worker.behind) {
+            worker.behind = true;
+            logger.warn("Worker {} is {}s behind its schedule: expected {}, scheduled {}, completed {}",
+                    worker.index, String.format("%.1f", worker.getLagSeconds()), worker.getExpected(),
+                    scheduled, completed);
+        }
+    }
+
+    private boolean allFinished() {
+        return workers.stream().allMatch(worker -> worker.done || worker.failure != null || !worker.reader.isAlive());
+    }
+
+    private synchronized void printStatus(PrintStream out, long elapsed) {
+        long silentAfter = 3 * reportInterval.toNanos();
+        List<Integer> behind = new ArrayList<>();
+        List<Integer> silent = new ArrayList<>();
+        for (WorkerState worker : workers) {
+            if (worker.done || worker.failure != null) {
+                continue;
+            }
+            if (worker.getLagSeconds() > maxLagSeconds) {
+                behind.add(worker.index);
+            }
+            if (System.nanoTime() - worker.lastReportNanos > silentAfter) {
+                silent.add(worker.index);
+            }
+        }
+        double intervalSeconds = reportInterval.toNanos() / 1e9;
+        out.printf("[%6.1fs] %8.1f req/s  p50 %8.2fms  p99 %8.2fms%s%s%n",
+                elapsed / 1e9,
+                intervalResponseTimes.getTotalCount() / intervalSeconds,
+                millis(intervalResponseTimes.getValueAtPercentile(50.0)),
+                millis(intervalResponseTimes.getValueAtPercentile(99.0)),
+                behind.isEmpty() ? "" : "  behind: " + behind,
+                silent.isEmpty() ? "" : "  not reporting: " + silent);
+        intervalResponseTimes.reset();
+    }
+
+    private void finish(WorkerState worker) throws InterruptedException {
+        try {
+            if (worker.socket != null) {
+                if (worker.reader != null) {
+                    worker.reader.join(TimeUnit.SECONDS.toMillis(10));
+                }
+                worker.socket.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to close the connection to worker {}", worker.index, e);
+        }
+        if (!worker.done) {
+            worker.process.destroy();
+        }
+        if (!worker.process.waitFor(30, TimeUnit.SECONDS)) {
+            worker.process.destroyForcibly();
+            worker.failure = "did not exit";
+        } else if (worker.process.exitValue() != 0 && worker.failure == null) {
+            worker.failure = "exited with status " + worker.process.exitValue();
+        }
+    }
+
+    /**
+     * @return Whether any worker exited abnormally or stopped reporting before finishing its schedule
+     */
+    public boolean hasFailedWorkers() {
+        return workers.stream().anyMatch(worker -> worker.failure != null || !worker.done);
+    }
+
+    /**
+     * Prints the merged per-operation response-time percentiles, then each worker's progress
+     * against its share of the schedule and the largest lag seen while it ran.
+     */
+    public synchronized void printReport(PrintStream out) {
+        out.printf("%n%-12s %8s %7s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        long completed = 0;
+        for (Map.Entry<LoadOperation, Histogram> entry : responseTimes.entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.printf("%-12s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey().getShortName(),
+                    histogram.getTotalCount(),
+                    workers.stream().mapToLong(worker -> worker.errors.getOrDefault(entry.getKey(), 0L)).sum(),
+                    millis(histogram.getValueAtPercentile(50.0)),
+                    millis(histogram.getValueAtPercentile(90.0)),
+                    millis(histogram.getValueAtPercentile(99.0)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+
+        out.printf("%n%-8s %10s %10s %10s %12s %12s  %s%n",
+                "worker", "share/s", "scheduled", "completed", "achieved/s", "max lag(s)", "status");
+        for (WorkerState worker : workers) {
+            completed += worker.completed;
+            String status = worker.failure != null ? "FAILED: " + worker.failure
+                    : !worker.done ? "FAILED: no final report"
+                    : worker.maxLagSeconds > maxLagSeconds ? "BEHIND" : "ok";
+            out.printf("%-8d %10.1f %10d %10d %12.1f %12.2f  %s%n",
+                    worker.index, worker.share, worker.scheduled, worker.completed,
+                    worker.elapsedNanos > 0 ? worker.completed / (worker.elapsedNanos / 1e9) : 0.0,
+                    worker.maxLagSeconds, status);
+        }
+        double elapsedSeconds = elapsedNanos / 1e9;
+        out.printf("%nTarget rate: %.1f req/s over %d workers, completed %d in %.1fs, achieved %.1f req/s%n",
+                targetRate, workerCount, completed, elapsedSeconds,
+                elapsedSeconds > 0 ? completed / elapsedSeconds : 0.0);
+        String behind = workers.stream()
+                .filter(worker -> worker.maxLagSeconds > maxLagSeconds)
+                .map(worker -> String.valueOf(worker.index))
+                .collect(Collectors.joining(", "));
+        if (!behind.isEmpty()) {
+            out.printf("Workers behind schedule by more than %.1fs: %s%n", maxLagSeconds, behind);
+        }
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(LoadRunner.getHighestTrackableNanos(), LoadRunner.getSignificantDigits());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Runs a distributed load test configured through system properties:
+     * {@code load.workers}, {@code load.rate} (requests per second across all workers),
+     * {@code load.duration.seconds}, {@code load.threads} (per worker), {@code load.mix},
+     * {@code load.worker.jvm.args} (space-separated), {@code load.report.millis} and
+     * {@code load.max.lag.seconds}. Worker output goes to {@code load.worker.log.dir}.
+     * With {@code api.target=embedded} the coordinator hosts the pet store for all workers.
+     * Exits with status 1 if a worker failed.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int workerCount = Integer.parseInt(System.getProperty("load.workers", "2"));
+        double rate = Double.parseDouble(System.getProperty("load.rate", "50"));
+        long seconds = Long.parseLong(System.getProperty("load.duration.seconds", "30"));
+        int threads = Integer.parseInt(System.getProperty("load.threads", "256"));
+        String mix = System.getProperty("load.mix", "create,get,update,delete");
+        List<String> jvmArgs = Arrays.stream(System.getProperty("load.worker.jvm.args", "").split("\\s+"))
+                .filter(arg -> !arg.isEmpty())
+                .collect(Collectors.toList());
+        long reportMillis = Long.parseLong(System.getProperty("load.report.millis", "1000"));
+        double maxLagSeconds = Double.parseDouble(System.getProperty("load.max.lag.seconds", "1"));
+        Path logDirectory = Path.of(System.getProperty("load.worker.log.dir", "target/load-workers"));
+        for (String name : mix.split(",")) {
+            LoadOperation.fromShortName(name);
+        }
+
+        InMemoryPetStoreServer embeddedServer = ApiConfig.isEmbeddedTarget() ? InMemoryPetStoreServer.fromConfig() : null;
+        String baseUri = embeddedServer != null ? embeddedServer.getBaseUri() : ApiConfig.getBaseUri();
+        LoadCoordinator coordinator;
+        try {
+            coordinator = new LoadCoordinator(workerCount, rate, Duration.ofSeconds(seconds), threads, mix,
+                    baseUri, jvmArgs, Duration.ofMillis(reportMillis), maxLagSeconds, logDirectory);
+            coordinator.run(System.out);
+            coordinator.printReport(System.out);
+        } finally {
+            if (embeddedServer != null) {
+                embeddedServer.close();
+            }
+        }
+        if (coordinator.hasFailedWorkers()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * One worker process and the latest progress it reported. Progress fields are written by
+     * the worker's reader thread under the coordinator's lock.
+     */
+    private static final class WorkerState {
+        private final int index;
+        private final double share;
+        private final Process process;
+        private final Map<LoadOperation, Long> errors = new ConcurrentHashMap<>();
+        private volatile Socket socket;
+        private volatile Thread reader;
+        private volatile boolean done;
+        private volatile String failure;
+        private volatile boolean behind;
+        private volatile long lastReportNanos;
+        private long elapsedNanos;
+        private long scheduled;
+        private long completed;
+        private long expected;
+        private double maxLagSeconds;
+
+        WorkerState(int index, double share, Process process) {
+            this.index = index;
+            this.share = share;
+            this.process = process;
+        }
+
+        void update(long elapsedNanos, long scheduled, long completed, Duration duration) {
+            this.elapsedNanos = elapsedNanos;
+            this.scheduled = scheduled;
+            this.completed = completed;
+            double scheduleSeconds = Math.min(elapsedNanos, duration.toNanos()) / 1e9;
+            this.expected = (long) Math.ceil(share * scheduleSeconds);
+            this.maxLagSeconds = Math.max(maxLagSeconds, getLagSeconds());
+            this.lastReportNanos = System.nanoTime();
+        }
+
+        long getExpected() {
+            return expected;
+        }
+
+        /**
+         * @return Seconds of this worker's share of the schedule that were due but have not completed
+         */
+        double getLagSeconds() {
+            return Math.max(0, expected - completed) / share;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.petstore.load;
+
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.util.FastPetGenerator;
+import io.restassured.response.Response;
+
+/**
+ * Pet API operations that can be driven by the load runner.
+ */
+public enum LoadOperation {
+    CREATE_PET("create") {
+        @Override
+        public Response execute(PetApiClient client, long petId) {
+            return client.createPet(FastPetGenerator.current().nextPet(petId, "available"));
+        }
+    },
+    GET_PET("get") {
+        @Override
+        public Response execute(PetApiClient client, long petId) {
+            return client.getPetById(petId);
+        }
+    },
+    UPDATE_PET("update") {
+        @Override
+        public Response execute(PetApiClient client, long petId) {
+            return client.updatePet(FastPetGenerator.current().nextPet(petId, "sold"));
+        }
+    },
+    DELETE_PET("delete") {
+        @Override
+        public Response execute(PetApiClient client, long petId) {
+            return client.deletePet(petId);
+        }
+    },
+    FIND_BY_STATUS("findByStatus") {
+        @Override
+        public Response execute(PetApiClient client, long petId) {
+            return client.findPetsByStatus("available");
+        }
+    },
+    FIND_BY_TAGS("findByTags") {
+        @Override
+        public Response execute(PetApiClient client, long petId) {
+            return client.findPetsByTags(FastPetGenerator.current().nextWord());
+        }
+    };
+
+    private final String shortName;
+
+    LoadOperation(String shortName) {
+        this.shortName = shortName;
+    }
+
+    public String getShortName() {
+        return shortName;
+    }
+
+    /**
+     * Executes this operation against the given pet.
+     *
+     * @param client The client to issue the request with
+     * @param petId The pet the operation targets; ignored by the searches
+     * @return The API response
+     */
+    public abstract Response execute(PetApiClient client, long petId);
+
+    /**
+     * Resolves an operation from its short name (create, get, update, delete, findByStatus,
+     * findByTags).
+     *
+     * @param name The short name, case-insensitive
+     * @return The matching operation
+     */
+    public static LoadOperation fromShortName(String name) {
+        for (LoadOperation operation : values()) {
+            if (operation.shortName.equalsIgnoreCase(name.trim())) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load operation: " + name);
+    }
+}
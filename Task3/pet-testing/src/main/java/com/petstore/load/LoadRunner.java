@@ -0,0 +1,247 @@
+package com.petstore.load;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.util.PetIdAllocator;
+import com.petstore.server.InMemoryPetStoreServer;
+import io.restassured.response.Response;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load runner for the Pet API.
+ * <p>
+ * Requests are started on a fixed arrival schedule regardless of how fast earlier
+ * requests complete. Each call's latency is measured from its intended start time
+ * rather than the moment a worker picked it up, so queueing behind slow responses
+ * shows up in the histograms instead of being hidden (coordinated omission).
+ */
+public class LoadRunner {
+    private static final Logger logger = LoggerFactory.getLogger(LoadRunner.class);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final PetApiClient client;
+    private final double targetRate;
+    private final Duration duration;
+    private final int maxThreads;
+    private final LoadOperation[] mix;
+    private final long petIdBase;
+
+    private final Map<LoadOperation, Recorder> responseTimes = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, Recorder> serviceTimes = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+    private final LongAdder completed = new LongAdder();
+
+    private volatile long scheduled;
+    private long elapsedNanos;
+
+    public LoadRunner(PetApiClient client, double targetRate, Duration duration, int maxThreads, List<LoadOperation> mix) {
+        if (targetRate <= 0) {
+            throw new IllegalArgumentException("Target rate must be positive: " + targetRate);
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix must not be empty");
+        }
+        this.client = client;
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.maxThreads = maxThreads;
+        this.mix = mix.toArray(new LoadOperation[0]);
+        long petsNeeded = (long) Math.ceil(targetRate * duration.toNanos() / 1e9 / this.mix.length) + 1;
+        this.petIdBase = PetIdAllocator.shared().reserve(petsNeeded);
+        for (LoadOperation operation : LoadOperation.values()) {
+            responseTimes.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            serviceTimes.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Runs the schedule to completion and waits for all in-flight requests to finish.
+     */
+    public void run() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(maxThreads, new WorkerThreadFactory());
+        long intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / targetRate));
+        long durationNanos = duration.toNanos();
+        long start = System.nanoTime();
+
+        logger.info("Starting load run: {} req/s for {}s, mix {}", targetRate, duration.getSeconds(), List.of(mix));
+        long i = 0;
+        for (long offset = 0; offset < durationNanos; offset = ++i * intervalNanos) {
+            long intendedStart = start + offset;
+            parkUntil(intendedStart);
+            LoadOperation operation = mix[(int) (i % mix.length)];
+            long petId = petIdBase + i / mix.length;
+            workers.execute(() -> execute(operation, petId, intendedStart));
+            scheduled = i + 1;
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    private void execute(LoadOperation operation, long petId, long intendedStart) {
+        long actualStart = System.nanoTime();
+        boolean failed;
+        try {
+            Response response = operation.execute(client, petId);
+            failed = response.getStatusCode() >= 400;
+        } catch (Exception e) {
+            logger.debug("{} request for pet {} failed", operation, petId, e);
+            failed = true;
+        }
+        long end = System.nanoTime();
+        responseTimes.get(operation).recordValue(Math.min(end - intendedStart, HIGHEST_TRACKABLE_NANOS));
+        serviceTimes.get(operation).recordValue(Math.min(end - actualStart, HIGHEST_TRACKABLE_NANOS));
+        if (failed) {
+            errors.get(operation).increment();
+        }
+        completed.increment();
+    }
+
+    /**
+     * @return Requests started on the schedule so far
+     */
+    public long getScheduledCount() {
+        return scheduled;
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getErrorCount(LoadOperation operation) {
+        return errors.get(operation).sum();
+    }
+
+    /**
+     * Takes the response times recorded since the previous call, for reporting while the run
+     * is in progress. {@link #printReport} then only covers what was recorded after the last call.
+     *
+     * @return Histograms of the operations that completed requests in the interval
+     */
+    public Map<LoadOperation, Histogram> takeIntervalResponseTimes() {
+        Map<LoadOperation, Histogram> interval = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = responseTimes.get(operation).getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                interval.put(operation, histogram);
+            }
+        }
+        return interval;
+    }
+
+    /**
+     * @return Largest value response time histograms can hold, for merging them elsewhere
+     */
+    public static long getHighestTrackableNanos() {
+        return HIGHEST_TRACKABLE_NANOS;
+    }
+
+    public static int getSignificantDigits() {
+        return SIGNIFICANT_DIGITS;
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Prints per-operation response-time percentiles (measured from the intended start),
+     * the uncorrected service-time p99 for comparison, and achieved versus target rate.
+     */
+    public void printReport(PrintStream out) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        out.printf("%n%-12s %8s %7s %9s %9s %9s %9s %9s %12s%n",
+                "op", "count", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "svc p99(ms)");
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = responseTimes.get(operation).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Histogram service = serviceTimes.get(operation).getIntervalHistogram();
+            out.printf("%-12s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+                    operation.getShortName(),
+                    histogram.getTotalCount(),
+                    errors.get(operation).sum(),
+                    millis(histogram.getValueAtPercentile(50.0)),
+                    millis(histogram.getValueAtPercentile(90.0)),
+                    millis(histogram.getValueAtPercentile(99.0)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()),
+                    millis(service.getValueAtPercentile(99.0)));
+        }
+        out.printf("%nTarget rate: %.1f req/s, scheduled %d, completed %d in %.1fs, achieved %.1f req/s%n",
+                targetRate, scheduled, completed.sum(), elapsedSeconds,
+                elapsedSeconds > 0 ? completed.sum() / elapsedSeconds : 0.0);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Runs a load test configured through system properties:
+     * {@code load.rate} (requests per second), {@code load.duration.seconds},
+     * {@code load.threads} and {@code load.mix} (comma-separated operation names).
+     * With {@code api.target=embedded} the run targets an in-process pet store.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "50"));
+        long seconds = Long.parseLong(System.getProperty("load.duration.seconds", "30"));
+        int threads = Integer.parseInt(System.getProperty("load.threads", "256"));
+        List<LoadOperation> mix = new ArrayList<>();
+        for (String name : System.getProperty("load.mix", "create,get,update,delete").split(",")) {
+            mix.add(LoadOperation.fromShortName(name));
+        }
+
+        InMemoryPetStoreServer embeddedServer = ApiConfig.isEmbeddedTarget() ? InMemoryPetStoreServer.fromConfig() : null;
+        String baseUri = embeddedServer != null ? embeddedServer.getBaseUri() : ApiConfig.getBaseUri();
+        // One connection per worker thread, so requests measure the server rather than connection setup.
+        try (HttpConnectionPool connectionPool = new HttpConnectionPool(threads, threads,
+                Duration.ofMillis(ApiConfig.getPoolIdleTimeoutMillis()))) {
+            LoadRunner runner = new LoadRunner(new PetApiClient(baseUri, connectionPool),
+                    rate, Duration.ofSeconds(seconds), threads, mix);
+            runner.run();
+            runner.printReport(System.out);
+        } finally {
+            if (embeddedServer != null) {
+                embeddedServer.close();
+            }
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "load-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
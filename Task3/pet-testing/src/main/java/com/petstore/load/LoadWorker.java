@@ -0,0 +1,146 @@
+package com.petstore.load;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.util.PetIdAllocator;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A worker process started by {@link LoadCoordinator}. Runs a {@link LoadRunner} at its share of
+ * the target rate once the coordinator says to start, and streams the interval response-time
+ * histograms and progress back over a loopback socket.
+ * <p>
+ * Messages to the coordinator, all written with {@link DataOutputStream}:
+ * <ul>
+ *   <li>hello: worker index (int)</li>
+ *   <li>{@link #INTERVAL} or {@link #DONE}: elapsed nanos, scheduled and completed requests
+ *       (longs), the number of operations (int), then per operation its short name (UTF),
+ *       cumulative errors (long) and a compressed interval histogram (int length, bytes;
+ *       length 0 for no requests in the interval)</li>
+ * </ul>
+ * The coordinator answers the hello with a single {@link #START} byte.
+ */
+public class LoadWorker {
+    private static final Logger logger = LoggerFactory.getLogger(LoadWorker.class);
+
+    static final byte START = 1;
+    static final byte INTERVAL = 2;
+    static final byte DONE = 3;
+
+    private final LoadRunner runner;
+    private final Set<LoadOperation> operations;
+    private final DataOutputStream out;
+    private long startNanos;
+
+    private LoadWorker(LoadRunner runner, List<LoadOperation> mix, DataOutputStream out) {
+        this.runner = runner;
+        this.operations = new LinkedHashSet<>(mix);
+        this.out = out;
+    }
+
+    private void run(Duration reportInterval) throws InterruptedException, IOException {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-worker-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        startNanos = System.nanoTime();
+        reporter.scheduleAtFixedRate(() -> {
+            try {
+                report(INTERVAL);
+            } catch (IOException e) {
+                logger.error("Lost the connection to the coordinator", e);
+                reporter.shutdown();
+            }
+        }, reportInterval.toNanos(), reportInterval.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            runner.run();
+        } finally {
+            reporter.shutdown();
+            reporter.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        report(DONE);
+    }
+
+    private synchronized void report(byte type) throws IOException {
+        Map<LoadOperation, Histogram> interval = runner.takeIntervalResponseTimes();
+        out.writeByte(type);
+        out.writeLong(System.nanoTime() - startNanos);
+        out.writeLong(runner.getScheduledCount());
+        out.writeLong(runner.getCompletedCount());
+        out.writeInt(operations.size());
+        for (LoadOperation operation : operations) {
+            out.writeUTF(operation.getShortName());
+            out.writeLong(runner.getErrorCount(operation));
+            Histogram histogram = interval.get(operation);
+            if (histogram == null) {
+                out.writeInt(0);
+                continue;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            out.writeInt(length);
+            out.write(buffer.array(), 0, length);
+        }
+        out.flush();
+    }
+
+    /**
+     * Connects to the coordinator on {@code load.coordinator.port} and runs {@code load.rate},
+     * {@code load.duration.seconds}, {@code load.threads} and {@code load.mix} against
+     * {@code api.base.uri}, reporting every {@code load.report.millis}.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int port = Integer.parseInt(System.getProperty("load.coordinator.port"));
+        double rate = Double.parseDouble(System.getProperty("load.rate", "50"));
+        long seconds = Long.parseLong(System.getProperty("load.duration.seconds", "30"));
+        int threads = Integer.parseInt(System.getProperty("load.threads", "256"));
+        long reportMillis = Long.parseLong(System.getProperty("load.report.millis", "1000"));
+        List<LoadOperation> mix = new ArrayList<>();
+        for (String name : System.getProperty("load.mix", "create,get,update,delete").split(",")) {
+            mix.add(LoadOperation.fromShortName(name));
+        }
+
+        int workerIndex = PetIdAllocator.shared().getWorkerIndex();
+        // One connection per worker thread, as in LoadRunner.
+        try (HttpConnectionPool connectionPool = new HttpConnectionPool(threads, threads,
+                Duration.ofMillis(ApiConfig.getPoolIdleTimeoutMillis()))) {
+            PetApiClient client = new PetApiClient(ApiConfig.getBaseUri(), connectionPool);
+            // Load the client's classes before the coordinator starts the clock, so a cold JVM
+            // does not show up as this worker falling behind its schedule.
+            client.getPetById(0L);
+            LoadRunner runner = new LoadRunner(client, rate, Duration.ofSeconds(seconds), threads, mix);
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.setTcpNoDelay(true);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                out.writeInt(workerIndex);
+                out.flush();
+                if (new DataInputStream(socket.getInputStream()).readByte() != START) {
+                    throw new IOException("Unexpected message from the coordinator");
+                }
+                logger.info("Worker {} starting at {} req/s", workerIndex, rate);
+                new LoadWorker(runner, mix, out).run(Duration.ofMillis(reportMillis));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.petstore.load;
+
+/**
+ * JVM and connection pool resource usage at one point of a soak run. GC figures cover the
+ * interval since the previous sample; counts that cannot be read on this platform are -1.
+ */
+public final class ResourceSample {
+    private final long elapsedMillis;
+    private final long heapAfterGcBytes;
+    private final long heapUsedBytes;
+    private final long gcCount;
+    private final long gcPauseMillis;
+    private final long maxGcPauseMillis;
+    private final int threadCount;
+    private final long openFileDescriptors;
+    private final int poolOpenConnections;
+    private final int poolPending;
+
+    ResourceSample(long elapsedMillis, long heapAfterGcBytes, long heapUsedBytes, long gcCount, long gcPauseMillis,
+                   long maxGcPauseMillis, int threadCount, long openFileDescriptors, int poolOpenConnections,
+                   int poolPending) {
+        this.elapsedMillis = elapsedMillis;
+        this.heapAfterGcBytes = heapAfterGcBytes;
+        this.heapUsedBytes = heapUsedBytes;
+        this.gcCount = gcCount;
+        this.gcPauseMillis = gcPauseMillis;
+        this.maxGcPauseMillis = maxGcPauseMillis;
+        this.threadCount = threadCount;
+        this.openFileDescriptors = openFileDescriptors;
+        this.poolOpenConnections = poolOpenConnections;
+        this.poolPending = poolPending;
+    }
+
+    /**
+     * @return Time since sampling started
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return Lowest heap occupancy left by a collection in the interval, the previous value if
+     *         there was none, or -1 before the first collection
+     */
+    public long getHeapAfterGcBytes() {
+        return heapAfterGcBytes;
+    }
+
+    public long getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    /**
+     * @return Collections in the interval, including concurrent cycles
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * @return Total stop-the-world pause time in the interval
+     */
+    public long getGcPauseMillis() {
+        return gcPauseMillis;
+    }
+
+    /**
+     * @return Longest stop-the-world pause in the interval
+     */
+    public long getMaxGcPauseMillis() {
+        return maxGcPauseMillis;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public long getOpenFileDescriptors() {
+        return openFileDescriptors;
+    }
+
+    /**
+     * @return Leased plus idle pooled connections, or -1 without a pool
+     */
+    public int getPoolOpenConnections() {
+        return poolOpenConnections;
+    }
+
+    /**
+     * @return Requests waiting for a pooled connection, or -1 without a pool
+     */
+    public int getPoolPending() {
+        return poolPending;
+    }
+}
@@ -0,0 +1,144 @@
+package com.petstore.load;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Takes {@link ResourceSample}s of this JVM and, optionally, a connection pool.
+ * <p>
+ * Heap after GC and pause times come from garbage collection notifications rather than
+ * polling, so every collection between two samples is seen, and the heap figure is what the
+ * collector left behind rather than whatever garbage happened to be live at sampling time.
+ * Concurrent collector cycles count as collections but not as pauses.
+ */
+public class ResourceSampler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceSampler.class);
+    private static final long NONE = -1;
+
+    private final HttpConnectionPool connectionPool;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    private final Set<String> heapPools = new HashSet<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onGarbageCollection;
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder gcCount = new LongAdder();
+    private final LongAdder gcPauseMillis = new LongAdder();
+    private final AtomicLong maxGcPauseMillis = new AtomicLong();
+    private final AtomicLong minHeapAfterGc = new AtomicLong(Long.MAX_VALUE);
+    private long lastHeapAfterGc = NONE;
+
+    /**
+     * @param connectionPool Pool whose open connections are sampled, or null
+     */
+    public ResourceSampler(HttpConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+        if (emitters.isEmpty()) {
+            logger.warn("Garbage collectors publish no notifications; heap after GC and pauses are not sampled");
+        }
+    }
+
+    /**
+     * Samples current usage and starts a new GC interval. Call from one thread at a time.
+     */
+    public ResourceSample sample() {
+        long heapAfterGc = minHeapAfterGc.getAndSet(Long.MAX_VALUE);
+        if (heapAfterGc != Long.MAX_VALUE) {
+            lastHeapAfterGc = heapAfterGc;
+        }
+        long openFileDescriptors = operatingSystem instanceof UnixOperatingSystemMXBean
+                ? ((UnixOperatingSystemMXBean) operatingSystem).getOpenFileDescriptorCount()
+                : NONE;
+        return new ResourceSample(
+                (System.nanoTime() - startNanos) / 1_000_000,
+                lastHeapAfterGc,
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                gcCount.sumThenReset(),
+                gcPauseMillis.sumThenReset(),
+                maxGcPauseMillis.getAndSet(0),
+                threads.getThreadCount(),
+                openFileDescriptors,
+                connectionPool != null ? connectionPool.getLeased() + connectionPool.getIdle() : (int) NONE,
+                connectionPool != null ? connectionPool.getPending() : (int) NONE);
+    }
+
+    private void onGarbageCollection(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        gcCount.increment();
+        if (!isConcurrent(info.getGcName())) {
+            long duration = info.getGcInfo().getDuration();
+            gcPauseMillis.add(duration);
+            maxGcPauseMillis.accumulateAndGet(duration, Math::max);
+        }
+        long heapAfter = 0;
+        for (Map.Entry<String, MemoryUsage> usage : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPools.contains(usage.getKey())) {
+                heapAfter += usage.getValue().getUsed();
+            }
+        }
+        minHeapAfterGc.accumulateAndGet(heapAfter, Math::min);
+    }
+
+    /**
+     * G1, ZGC and Shenandoah report their concurrent phases as separate collectors, whose
+     * durations are mostly not pauses.
+     */
+    private static boolean isConcurrent(String gcName) {
+        return gcName.contains("Concurrent") || gcName.contains("Cycles");
+    }
+
+    /**
+     * Stops listening for collections.
+     */
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                logger.debug("GC listener was already removed", e);
+            }
+        }
+        emitters.clear();
+    }
+}
@@ -0,0 +1,55 @@
+package com.petstore.load;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Resources a soak run watches for upward trends.
+ * <p>
+ * Each has a minimum growth that is never treated as a leak, so a relative threshold does
+ * not flag noise on a small baseline, such as a pause going from 2 to 4 ms.
+ */
+public enum SoakMetric {
+    HEAP_AFTER_GC("heap", "MB", 16, sample -> sample.getHeapAfterGcBytes() < 0
+            ? -1 : sample.getHeapAfterGcBytes() / (1024.0 * 1024.0)),
+    GC_PAUSE("gc-pause", "ms", 25, sample -> sample.getMaxGcPauseMillis()),
+    THREADS("threads", "", 4, sample -> sample.getThreadCount()),
+    FILE_DESCRIPTORS("fds", "", 8, sample -> sample.getOpenFileDescriptors()),
+    POOL_CONNECTIONS("pool", "", 4, sample -> sample.getPoolOpenConnections());
+
+    private final String shortName;
+    private final String unit;
+    private final double minGrowth;
+    private final ToDoubleFunction<ResourceSample> value;
+
+    SoakMetric(String shortName, String unit, double minGrowth, ToDoubleFunction<ResourceSample> value) {
+        this.shortName = shortName;
+        this.unit = unit;
+        this.minGrowth = minGrowth;
+        this.value = value;
+    }
+
+    /**
+     * @return Name used in reports and in the {@code soak.max.growth.<name>.percent} property
+     */
+    public String getShortName() {
+        return shortName;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return Growth over a run, in {@link #getUnit()}, that is tolerated whatever the baseline
+     */
+    public double getMinGrowth() {
+        return minGrowth;
+    }
+
+    /**
+     * @return This metric's value in the sample, negative if it was not available
+     */
+    public double valueOf(ResourceSample sample) {
+        return value.applyAsDouble(sample);
+    }
+}
@@ -0,0 +1,365 @@
+package com.petstore.load;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.util.PetIdAllocator;
+import com.petstore.server.InMemoryPetStoreServer;
+import io.restassured.response.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Soak test for the Pet API: repeats an operation mix for hours while watching the JVM for
+ * leaks.
+ * <p>
+ * Each worker runs the whole mix against a fresh pet, back to back, until the duration is
+ * up. Every sample interval a {@link ResourceSample} is taken and appended to a CSV file, which
+ * is flushed each time so the series survives a crashed JVM. At the end a least-squares line is
+ * fitted through each {@link SoakMetric} after the warm-up, and the run fails if the line rises
+ * over the run by more than the allowed percentage of its starting value.
+ */
+public class SoakRunner {
+    private static final Logger logger = LoggerFactory.getLogger(SoakRunner.class);
+    private static final String CSV_HEADER = "elapsed_s,requests,errors,heap_after_gc_mb,heap_used_mb,gc_count,"
+            + "gc_pause_ms,max_gc_pause_ms,threads,open_fds,pool_open,pool_pending";
+    private static final int MIN_TREND_SAMPLES = 3;
+
+    private final PetApiClient client;
+    private final HttpConnectionPool connectionPool;
+    private final int threads;
+    private final LoadOperation[] mix;
+    private final Duration duration;
+    private final Duration sampleInterval;
+    private final Duration warmup;
+    private final Map<SoakMetric, Double> maxGrowthPercent;
+    private final Path output;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final List<ResourceSample> samples = new ArrayList<>();
+    private final List<Trend> trends = new ArrayList<>();
+    private long totalRequests;
+    private long totalErrors;
+
+    /**
+     * @param client Client the mix is run through
+     * @param connectionPool Pool the client uses, sampled for open connections, or null
+     * @param threads Workers running the mix concurrently
+     * @param mix Operations each worker runs, in order, against a new pet
+     * @param duration How long to keep running the mix
+     * @param sampleInterval Time between resource samples
+     * @param warmup Initial period left out of the trend analysis
+     * @param maxGrowthPercent Allowed rise of each metric over the run, as a percentage of its start
+     * @param output CSV file the samples are written to
+     */
+    public SoakRunner(PetApiClient client, HttpConnectionPool connectionPool, int threads, List<LoadOperation> mix,
+                      Duration duration, Duration sampleInterval, Duration warmup,
+                      Map<SoakMetric, Double> maxGrowthPercent, Path output) {
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix must not be empty");
+        }
+        if (sampleInterval.isZero() || sampleInterval.isNegative()) {
+            throw new IllegalArgumentException("Sample interval must be positive: " + sampleInterval);
+        }
+        this.client = client;
+        this.connectionPool = connectionPool;
+        this.threads = threads;
+        this.mix = mix.toArray(new LoadOperation[0]);
+        this.duration = duration;
+        this.sampleInterval = sampleInterval;
+        this.warmup = warmup;
+        this.maxGrowthPercent = new EnumMap<>(maxGrowthPercent);
+        this.output = output;
+    }
+
+    /**
+     * Runs the mix for the configured duration, sampling as it goes, then analyses the trends.
+     */
+    public void run() throws IOException, InterruptedException {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        logger.info("Starting soak run: {} workers for {}s, mix {}, sampling every {}s into {}",
+                threads, duration.getSeconds(), List.of(mix), sampleInterval.getSeconds(), output);
+        AtomicInteger workerCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "soak-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (BufferedWriter csv = Files.newBufferedWriter(output);
+             ResourceSampler sampler = new ResourceSampler(connectionPool)) {
+            csv.write(CSV_HEADER);
+            csv.newLine();
+            record(csv, sampler.sample());
+
+            long start = System.nanoTime();
+            long end = start + duration.toNanos();
+            for (int i = 0; i < threads; i++) {
+                workers.execute(() -> runMix(end));
+            }
+            long intervalNanos = sampleInterval.toNanos();
+            for (long next = start + intervalNanos; next - end < 0; next += intervalNanos) {
+                parkUntil(next);
+                record(csv, sampler.sample());
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.HOURS);
+            record(csv, sampler.sample());
+        } finally {
+            workers.shutdownNow();
+        }
+        analyse();
+    }
+
+    private void runMix(long end) {
+        PetIdAllocator ids = PetIdAllocator.shared();
+        while (System.nanoTime() - end < 0) {
+            long petId = ids.nextId();
+            for (LoadOperation operation : mix) {
+                try {
+                    Response response = operation.execute(client, petId);
+                    if (response.getStatusCode() >= 400) {
+                        errors.increment();
+                    }
+                } catch (Exception e) {
+                    logger.debug("{} request for pet {} failed", operation, petId, e);
+                    errors.increment();
+                }
+                requests.increment();
+            }
+        }
+    }
+
+    private void record(BufferedWriter csv, ResourceSample sample) throws IOException {
+        long intervalRequests = requests.sumThenReset();
+        long intervalErrors = errors.sumThenReset();
+        totalRequests += intervalRequests;
+        totalErrors += intervalErrors;
+        samples.add(sample);
+        csv.write(String.format(Locale.ROOT, "%.1f,%d,%d,%.2f,%.2f,%d,%d,%d,%d,%d,%d,%d",
+                sample.getElapsedMillis() / 1000.0, intervalRequests, intervalErrors,
+                SoakMetric.HEAP_AFTER_GC.valueOf(sample), sample.getHeapUsedBytes() / (1024.0 * 1024.0),
+                sample.getGcCount(), sample.getGcPauseMillis(), sample.getMaxGcPauseMillis(),
+                sample.getThreadCount(), sample.getOpenFileDescriptors(),
+                sample.getPoolOpenConnections(), sample.getPoolPending()));
+        csv.newLine();
+        csv.flush();
+        logger.info("Soak {}s: {} requests ({} errors), heap after GC {} MB, max GC pause {} ms, {} threads, "
+                        + "{} fds, {} pooled connections", sample.getElapsedMillis() / 1000, intervalRequests,
+                intervalErrors, Math.round(SoakMetric.HEAP_AFTER_GC.valueOf(sample)), sample.getMaxGcPauseMillis(),
+                sample.getThreadCount(), sample.getOpenFileDescriptors(), sample.getPoolOpenConnections());
+    }
+
+    private void analyse() {
+        trends.clear();
+        long warmupMillis = warmup.toMillis();
+        for (SoakMetric metric : SoakMetric.values()) {
+            List<double[]> points = new ArrayList<>();
+            for (ResourceSample sample : samples) {
+                double value = metric.valueOf(sample);
+                if (sample.getElapsedMillis() >= warmupMillis && value >= 0) {
+                    points.add(new double[] {sample.getElapsedMillis() / 1000.0, value});
+                }
+            }
+            trends.add(Trend.fit(metric, points, maxGrowthPercent.getOrDefault(metric, Double.POSITIVE_INFINITY)));
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * @return True unless a metric rose by more than it is allowed to
+     */
+    public boolean isPassed() {
+        return trends.stream().noneMatch(Trend::isFailed);
+    }
+
+    public List<Trend> getTrends() {
+        return List.copyOf(trends);
+    }
+
+    /**
+     * Prints each metric's fitted start and end values after the warm-up, its growth against
+     * the allowed growth, and the verdict.
+     */
+    public void printReport(PrintStream out) {
+        out.printf("%n%-10s %8s %12s %12s %12s %12s  %s%n",
+                "metric", "samples", "start", "end", "growth", "allowed", "verdict");
+        for (Trend trend : trends) {
+            if (trend.getSamples() < MIN_TREND_SAMPLES) {
+                out.printf("%-10s %8d %12s %12s %12s %12s  %s%n", trend.getMetric().getShortName(),
+                        trend.getSamples(), "-", "-", "-", "-", "too few samples");
+                continue;
+            }
+            String unit = trend.getMetric().getUnit();
+            out.printf("%-10s %8d %12s %12s %12s %12s  %s%n", trend.getMetric().getShortName(), trend.getSamples(),
+                    format(trend.getStart(), unit), format(trend.getEnd(), unit), format(trend.getGrowth(), unit),
+                    format(trend.getAllowedGrowth(), unit), trend.isFailed() ? "FAILED" : "ok");
+        }
+        out.printf("%n%d requests, %d errors; samples written to %s%nSoak run %s%n",
+                totalRequests, totalErrors, output, isPassed() ? "passed" : "FAILED");
+    }
+
+    private static String format(double value, String unit) {
+        return Double.isInfinite(value) ? "-" : String.format(Locale.ROOT, "%.1f%s", value, unit);
+    }
+
+    /**
+     * Runs a soak test configured through system properties: {@code soak.duration.seconds},
+     * {@code soak.threads}, {@code soak.mix} (comma-separated operation names),
+     * {@code soak.sample.seconds}, {@code soak.warmup.seconds}, {@code soak.max.growth.percent}
+     * (overridable per metric as {@code soak.max.growth.<metric>.percent}) and {@code soak.output}.
+     * With {@code api.target=embedded} the run targets an in-process pet store. Exits with
+     * status 1 when a metric trends upward beyond its threshold.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        long seconds = Long.parseLong(System.getProperty("soak.duration.seconds", "3600"));
+        int threads = Integer.parseInt(System.getProperty("soak.threads", "8"));
+        long sampleSeconds = Long.parseLong(System.getProperty("soak.sample.seconds", "10"));
+        long warmupSeconds = Long.parseLong(System.getProperty("soak.warmup.seconds", "60"));
+        double defaultGrowth = Double.parseDouble(System.getProperty("soak.max.growth.percent", "20"));
+        Map<SoakMetric, Double> maxGrowth = new EnumMap<>(SoakMetric.class);
+        for (SoakMetric metric : SoakMetric.values()) {
+            maxGrowth.put(metric, Double.parseDouble(System.getProperty(
+                    "soak.max.growth." + metric.getShortName() + ".percent", String.valueOf(defaultGrowth))));
+        }
+        List<LoadOperation> mix = new ArrayList<>();
+        for (String name : System.getProperty("soak.mix", "create,get,update,delete").split(",")) {
+            mix.add(LoadOperation.fromShortName(name));
+        }
+        Path output = Path.of(System.getProperty("soak.output", "target/soak-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv"));
+
+        InMemoryPetStoreServer embeddedServer = ApiConfig.isEmbeddedTarget() ? InMemoryPetStoreServer.fromConfig() : null;
+        String baseUri = embeddedServer != null ? embeddedServer.getBaseUri() : ApiConfig.getBaseUri();
+        boolean passed;
+        try (HttpConnectionPool connectionPool = new HttpConnectionPool(
+                ApiConfig.getPoolMaxTotal(),
+                ApiConfig.getPoolMaxPerRoute(),
+                Duration.ofMillis(ApiConfig.getPoolIdleTimeoutMillis()))) {
+            SoakRunner runner = new SoakRunner(new PetApiClient(baseUri, connectionPool), connectionPool, threads,
+                    mix, Duration.ofSeconds(seconds), Duration.ofSeconds(sampleSeconds),
+                    Duration.ofSeconds(warmupSeconds), maxGrowth, output);
+            runner.run();
+            runner.printReport(System.out);
+            passed = runner.isPassed();
+        } finally {
+            if (embeddedServer != null) {
+                embeddedServer.close();
+            }
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Least-squares line through one metric's samples after the warm-up.
+     */
+    public static final class Trend {
+        private final SoakMetric metric;
+        private final int samples;
+        private final double start;
+        private final double end;
+        private final double allowedGrowth;
+
+        private Trend(SoakMetric metric, int samples, double start, double end, double allowedGrowth) {
+            this.metric = metric;
+            this.samples = samples;
+            this.start = start;
+            this.end = end;
+            this.allowedGrowth = allowedGrowth;
+        }
+
+        static Trend fit(SoakMetric metric, List<double[]> points, double maxGrowthPercent) {
+            int n = points.size();
+            if (n < MIN_TREND_SAMPLES) {
+                return new Trend(metric, n, Double.NaN, Double.NaN, Double.POSITIVE_INFINITY);
+            }
+            double meanX = 0;
+            double meanY = 0;
+            for (double[] point : points) {
+                meanX += point[0];
+                meanY += point[1];
+            }
+            meanX /= n;
+            meanY /= n;
+            double covariance = 0;
+            double variance = 0;
+            for (double[] point : points) {
+                covariance += (point[0] - meanX) * (point[1] - meanY);
+                variance += (point[0] - meanX) * (point[0] - meanX);
+            }
+            double slope = variance > 0 ? covariance / variance : 0;
+            double start = meanY + slope * (points.get(0)[0] - meanX);
+            double end = meanY + slope * (points.get(n - 1)[0] - meanX);
+            double allowed = Math.max(metric.getMinGrowth(), Math.max(0, start) * maxGrowthPercent / 100);
+            return new Trend(metric, n, start, end, allowed);
+        }
+
+        public SoakMetric getMetric() {
+            return metric;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return Fitted value at the first sample after the warm-up
+         */
+        public double getStart() {
+            return start;
+        }
+
+        /**
+         * @return Fitted value at the last sample
+         */
+        public double getEnd() {
+            return end;
+        }
+
+        public double getGrowth() {
+            return end - start;
+        }
+
+        public double getAllowedGrowth() {
+            return allowedGrowth;
+        }
+
+        /**
+         * @return True if the fitted line rose by more than allowed; never with too few samples
+         */
+        public boolean isFailed() {
+            return samples >= MIN_TREND_SAMPLES && getGrowth() > allowedGrowth;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.petstore.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.petstore.model.json.ObjectMappers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A workload for {@link WorkloadRunner}: weighted scenarios, each a sequence of
+ * {@link LoadOperation} steps, run by a number of virtual users that changes phase by phase.
+ * <p>
+ * Declared in JSON:
+ * <pre>
+ * {
+ *   "scenarios": [
+ *     {"name": "lifecycle", "weight": 3, "thinkTimeMs": 200, "thinkTimeJitterMs": 100,
+ *      "steps": ["create", "get", "update", "findByStatus", "delete"]},
+ *     {"name": "browse", "weight": 1, "steps": ["findByStatus", "findByTags"]}
+ *   ],
+ *   "phases": [
+ *     {"name": "ramp", "durationSeconds": 30, "users": 1, "targetUsers": 20},
+ *     {"name": "steady", "durationSeconds": 120, "users": 20},
+ *     {"name": "spike", "durationSeconds": 15, "users": 80}
+ *   ]
+ * }
+ * </pre>
+ * A user picks a scenario at random in proportion to the weights and runs its steps against a
+ * new pet, pausing for the think time plus a uniform random jitter after each step. A phase
+ * with {@code targetUsers} changes the number of users linearly from {@code users} to it.
+ */
+public final class Workload {
+    private final List<Scenario> scenarios;
+    private final List<Phase> phases;
+
+    public Workload(List<Scenario> scenarios, List<Phase> phases) {
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("A workload needs at least one scenario");
+        }
+        if (phases.isEmpty()) {
+            throw new IllegalArgumentException("A workload needs at least one phase");
+        }
+        this.scenarios = List.copyOf(scenarios);
+        this.phases = List.copyOf(phases);
+    }
+
+    /**
+     * Reads a workload from a file, or from the classpath if no such file exists.
+     */
+    public static Workload load(String location) throws IOException {
+        Path path = Path.of(location);
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                return parse(in);
+            }
+        }
+        try (InputStream in = Workload.class.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IOException("No workload file or resource " + location);
+            }
+            return parse(in);
+        }
+    }
+
+    public static Workload parse(InputStream in) throws IOException {
+        JsonNode root = ObjectMappers.shared().readTree(in);
+        List<Scenario> scenarios = new ArrayList<>();
+        for (JsonNode node : required(root, "scenarios")) {
+            List<LoadOperation> steps = new ArrayList<>();
+            for (JsonNode step : required(node, "steps")) {
+                steps.add(LoadOperation.fromShortName(step.asText()));
+            }
+            scenarios.add(new Scenario(required(node, "name").asText(), node.path("weight").asDouble(1),
+                    steps, Duration.ofMillis(node.path("thinkTimeMs").asLong(0)),
+                    Duration.ofMillis(node.path("thinkTimeJitterMs").asLong(0))));
+        }
+        List<Phase> phases = new ArrayList<>();
+        for (JsonNode node : required(root, "phases")) {
+            int users = required(node, "users").asInt();
+            phases.add(new Phase(required(node, "name").asText(),
+                    Duration.ofSeconds(required(node, "durationSeconds").asLong()),
+                    users, node.path("targetUsers").asInt(users)));
+        }
+        return new Workload(scenarios, phases);
+    }
+
+    private static JsonNode required(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            throw new IllegalArgumentException("Workload is missing \"" + field + "\" in " + node);
+        }
+        return value;
+    }
+
+    public List<Scenario> getScenarios() {
+        return scenarios;
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * @return The most users any phase runs at once
+     */
+    public int getMaxUsers() {
+        return phases.stream().mapToInt(phase -> Math.max(phase.getUsers(), phase.getTargetUsers())).max().orElse(0);
+    }
+
+    public Duration getDuration() {
+        return phases.stream().map(Phase::getDuration).reduce(Duration.ZERO, Duration::plus);
+    }
+
+    /**
+     * A named sequence of steps, chosen in proportion to its weight.
+     */
+    public static final class Scenario {
+        private final String name;
+        private final double weight;
+        private final List<LoadOperation> steps;
+        private final Duration thinkTime;
+        private final Duration thinkTimeJitter;
+
+        public Scenario(String name, double weight, List<LoadOperation> steps, Duration thinkTime,
+                        Duration thinkTimeJitter) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight of scenario " + name + " must be positive: " + weight);
+            }
+            if (steps.isEmpty()) {
+                throw new IllegalArgumentException("Scenario " + name + " has no steps");
+            }
+            this.name = name;
+            this.weight = weight;
+            this.steps = List.copyOf(steps);
+            this.thinkTime = thinkTime;
+            this.thinkTimeJitter = thinkTimeJitter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public List<LoadOperation> getSteps() {
+            return steps;
+        }
+
+        public Duration getThinkTime() {
+            return thinkTime;
+        }
+
+        public Duration getThinkTimeJitter() {
+            return thinkTimeJitter;
+        }
+    }
+
+    /**
+     * A period with a fixed number of users, or one changing linearly to a target.
+     */
+    public static final class Phase {
+        private final String name;
+        private final Duration duration;
+        private final int users;
+        private final int targetUsers;
+
+        public Phase(String name, Duration duration, int users, int targetUsers) {
+            if (users < 0 || targetUsers < 0) {
+                throw new IllegalArgumentException("User counts of phase " + name + " must not be negative");
+            }
+            this.name = name;
+            this.duration = duration;
+            this.users = users;
+            this.targetUsers = targetUsers;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public int getTargetUsers() {
+            return targetUsers;
+        }
+
+        /**
+         * @return Users that should be active the given time into the phase
+         */
+        public int usersAt(Duration elapsed) {
+            if (users == targetUsers || duration.isZero()) {
+                return users;
+            }
+            double progress = Math.min(1.0, (double) elapsed.toNanos() / duration.toNanos());
+            return (int) Math.round(users + (targetUsers - users) * progress);
+        }
+    }
+}
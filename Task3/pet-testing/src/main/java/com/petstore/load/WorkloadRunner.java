@@ -0,0 +1,325 @@
+package com.petstore.load;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.util.PetIdAllocator;
+import com.petstore.server.InMemoryPetStoreServer;
+import io.restassured.response.Response;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closed-model load runner for a {@link Workload}: virtual users, each on its own thread,
+ * repeatedly pick a weighted scenario and run its steps with think time in between.
+ * <p>
+ * Threads for the largest phase are started up front; the number allowed to start new
+ * scenarios follows the phase's user count, re-evaluated every {@value #CONTROL_INTERVAL_MILLIS}
+ * ms, and users above it idle once their current scenario ends. Latency and errors are
+ * recorded per scenario (the sum of its steps, without think time) and per step, and reported
+ * for each phase and for the whole run.
+ */
+public class WorkloadRunner {
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadRunner.class);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long CONTROL_INTERVAL_MILLIS = 100;
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final PetApiClient client;
+    private final Workload workload;
+    private final List<Workload.Scenario> scenarios;
+    private final double[] cumulativeWeights;
+    private final List<ScenarioStats> stats = new ArrayList<>();
+    private final List<PhaseResult> results = new ArrayList<>();
+    private final List<Thread> users = new ArrayList<>();
+
+    private volatile int activeUsers;
+    private volatile boolean running;
+
+    public WorkloadRunner(PetApiClient client, Workload workload) {
+        this.client = client;
+        this.workload = workload;
+        this.scenarios = workload.getScenarios();
+        this.cumulativeWeights = new double[scenarios.size()];
+        double total = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            total += scenarios.get(i).getWeight();
+            cumulativeWeights[i] = total;
+            stats.add(new ScenarioStats(scenarios.get(i).getSteps().size()));
+        }
+    }
+
+    /**
+     * Runs every phase in turn, then stops the users once their current scenario ends.
+     */
+    public void run() throws InterruptedException {
+        running = true;
+        for (int i = 0; i < workload.getMaxUsers(); i++) {
+            int index = i;
+            Thread user = new Thread(() -> runUser(index), "virtual-user-" + (i + 1));
+            user.setDaemon(true);
+            users.add(user);
+            user.start();
+        }
+        logger.info("Starting workload: {} scenarios, {} phases over {}s, up to {} users",
+                scenarios.size(), workload.getPhases().size(), workload.getDuration().getSeconds(), users.size());
+        for (Workload.Phase phase : workload.getPhases()) {
+            long start = System.nanoTime();
+            long end = start + phase.getDuration().toNanos();
+            long now;
+            while ((now = System.nanoTime()) - end < 0) {
+                activeUsers = phase.usersAt(Duration.ofNanos(now - start));
+                LockSupport.parkNanos(Math.min(TimeUnit.MILLISECONDS.toNanos(CONTROL_INTERVAL_MILLIS), end - now));
+            }
+            results.add(snapshot(phase, System.nanoTime() - start));
+            logger.info("Finished phase {}", phase.getName());
+        }
+        running = false;
+        activeUsers = 0;
+        for (Thread user : users) {
+            LockSupport.unpark(user);
+        }
+        for (Thread user : users) {
+            user.join(TimeUnit.MINUTES.toMillis(1));
+        }
+        if (!results.isEmpty()) {
+            // Scenarios that were still running when the last phase ended count towards it.
+            PhaseResult last = results.get(results.size() - 1);
+            last.add(snapshot(last.phase, 0));
+        }
+    }
+
+    private void runUser(int index) {
+        while (running) {
+            if (index >= activeUsers) {
+                LockSupport.parkNanos(IDLE_POLL_NANOS);
+                continue;
+            }
+            int scenarioIndex = pickScenario();
+            runScenario(scenarios.get(scenarioIndex), stats.get(scenarioIndex));
+        }
+    }
+
+    private int pickScenario() {
+        double point = ThreadLocalRandom.current().nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (point < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private void runScenario(Workload.Scenario scenario, ScenarioStats scenarioStats) {
+        long petId = PetIdAllocator.shared().nextId();
+        long busyNanos = 0;
+        boolean failed = false;
+        List<LoadOperation> steps = scenario.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            LoadOperation step = steps.get(i);
+            long start = System.nanoTime();
+            boolean stepFailed;
+            try {
+                Response response = step.execute(client, petId);
+                stepFailed = response.getStatusCode() >= 400;
+            } catch (Exception e) {
+                logger.debug("{} step of scenario {} for pet {} failed", step, scenario.getName(), petId, e);
+                stepFailed = true;
+            }
+            long elapsed = System.nanoTime() - start;
+            busyNanos += elapsed;
+            StepStats stepStats = scenarioStats.steps[i];
+            stepStats.latency.recordValue(Math.min(elapsed, HIGHEST_TRACKABLE_NANOS));
+            if (stepFailed) {
+                stepStats.errors.increment();
+                failed = true;
+            }
+            think(scenario);
+        }
+        scenarioStats.latency.recordValue(Math.min(busyNanos, HIGHEST_TRACKABLE_NANOS));
+        if (failed) {
+            scenarioStats.failures.increment();
+        }
+    }
+
+    /**
+     * Pauses after a step, or not at all once the run is stopping, so the users finish their
+     * scenarios, and delete the pets they created, without delay.
+     */
+    private void think(Workload.Scenario scenario) {
+        long pause = scenario.getThinkTime().toNanos();
+        long jitter = scenario.getThinkTimeJitter().toNanos();
+        if (jitter > 0) {
+            pause += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        long deadline = System.nanoTime() + pause;
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private PhaseResult snapshot(Workload.Phase phase, long elapsedNanos) {
+        PhaseResult result = new PhaseResult(phase, elapsedNanos);
+        for (ScenarioStats scenarioStats : stats) {
+            Histogram[] steps = new Histogram[scenarioStats.steps.length];
+            long[] stepErrors = new long[steps.length];
+            for (int i = 0; i < steps.length; i++) {
+                steps[i] = scenarioStats.steps[i].latency.getIntervalHistogram();
+                stepErrors[i] = scenarioStats.steps[i].errors.sumThenReset();
+            }
+            result.scenarios.add(scenarioStats.latency.getIntervalHistogram());
+            result.failures.add(scenarioStats.failures.sumThenReset());
+            result.steps.add(steps);
+            result.stepErrors.add(stepErrors);
+        }
+        return result;
+    }
+
+    /**
+     * Prints, for each phase and for the whole run, every scenario's completions, failures,
+     * rate and latency percentiles, followed by the same for each of its steps.
+     */
+    public void printReport(PrintStream out) {
+        PhaseResult total = null;
+        for (PhaseResult result : results) {
+            Workload.Phase phase = result.phase;
+            String users = phase.getUsers() == phase.getTargetUsers()
+                    ? String.valueOf(phase.getUsers())
+                    : phase.getUsers() + "->" + phase.getTargetUsers();
+            printTable(out, String.format("Phase %s (%.1fs, %s users)", phase.getName(),
+                    result.elapsedNanos / 1e9, users), result);
+            if (total == null) {
+                total = new PhaseResult(null, 0);
+            }
+            total.add(result);
+        }
+        if (total != null && results.size() > 1) {
+            printTable(out, String.format("Total (%.1fs)", total.elapsedNanos / 1e9), total);
+        }
+    }
+
+    private void printTable(PrintStream out, String title, PhaseResult result) {
+        double seconds = Math.max(result.elapsedNanos / 1e9, 1e-9);
+        out.printf("%n%s%n%-24s %8s %7s %9s %9s %9s %9s %9s%n", title,
+                "scenario / step", "count", "errors", "rate/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+        for (int s = 0; s < scenarios.size(); s++) {
+            Workload.Scenario scenario = scenarios.get(s);
+            printRow(out, scenario.getName(), result.scenarios.get(s), result.failures.get(s), seconds);
+            List<LoadOperation> steps = scenario.getSteps();
+            for (int i = 0; i < steps.size(); i++) {
+                printRow(out, "  " + (i + 1) + " " + steps.get(i).getShortName(), result.steps.get(s)[i],
+                        result.stepErrors.get(s)[i], seconds);
+            }
+        }
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errors, double seconds) {
+        out.printf("%-24s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", label, histogram.getTotalCount(), errors,
+                histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50.0)),
+                millis(histogram.getValueAtPercentile(90.0)),
+                millis(histogram.getValueAtPercentile(99.0)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Runs the workload in the file or classpath resource named by {@code workload.file}
+     * (default {@code workloads/pet-mix.json}). With {@code api.target=embedded} the run targets
+     * an in-process pet store.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Workload workload = Workload.load(System.getProperty("workload.file", "workloads/pet-mix.json"));
+        InMemoryPetStoreServer embeddedServer = ApiConfig.isEmbeddedTarget() ? InMemoryPetStoreServer.fromConfig() : null;
+        String baseUri = embeddedServer != null ? embeddedServer.getBaseUri() : ApiConfig.getBaseUri();
+        try (HttpConnectionPool connectionPool = new HttpConnectionPool(
+                Math.max(ApiConfig.getPoolMaxTotal(), workload.getMaxUsers()),
+                Math.max(ApiConfig.getPoolMaxPerRoute(), workload.getMaxUsers()),
+                Duration.ofMillis(ApiConfig.getPoolIdleTimeoutMillis()))) {
+            WorkloadRunner runner = new WorkloadRunner(new PetApiClient(baseUri, connectionPool), workload);
+            runner.run();
+            runner.printReport(System.out);
+        } finally {
+            if (embeddedServer != null) {
+                embeddedServer.close();
+            }
+        }
+    }
+
+    private static final class ScenarioStats {
+        final Recorder latency = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        final LongAdder failures = new LongAdder();
+        final StepStats[] steps;
+
+        ScenarioStats(int stepCount) {
+            steps = new StepStats[stepCount];
+            for (int i = 0; i < stepCount; i++) {
+                steps[i] = new StepStats();
+            }
+        }
+    }
+
+    private static final class StepStats {
+        final Recorder latency = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Scenario and step histograms and error counts of one phase, in workload order.
+     */
+    private static final class PhaseResult {
+        final Workload.Phase phase;
+        long elapsedNanos;
+        final List<Histogram> scenarios = new ArrayList<>();
+        final List<Long> failures = new ArrayList<>();
+        final List<Histogram[]> steps = new ArrayList<>();
+        final List<long[]> stepErrors = new ArrayList<>();
+
+        PhaseResult(Workload.Phase phase, long elapsedNanos) {
+            this.phase = phase;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void add(PhaseResult other) {
+            elapsedNanos += other.elapsedNanos;
+            if (scenarios.isEmpty()) {
+                for (int s = 0; s < other.scenarios.size(); s++) {
+                    scenarios.add(other.scenarios.get(s).copy());
+                    failures.add(other.failures.get(s));
+                    Histogram[] copies = new Histogram[other.steps.get(s).length];
+                    for (int i = 0; i < copies.length; i++) {
+                        copies[i] = other.steps.get(s)[i].copy();
+                    }
+                    steps.add(copies);
+                    stepErrors.add(other.stepErrors.get(s).clone());
+                }
+                return;
+            }
+            for (int s = 0; s < scenarios.size(); s++) {
+                scenarios.get(s).add(other.scenarios.get(s));
+                failures.set(s, failures.get(s) + other.failures.get(s));
+                for (int i = 0; i < steps.get(s).length; i++) {
+                    steps.get(s)[i].add(other.steps.get(s)[i]);
+                    stepErrors.get(s)[i] += other.stepErrors.get(s)[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.petstore.model.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.petstore.model.Category;
+
+import java.io.IOException;
+
+/**
+ * Streaming JSON codec for {@link Category}.
+ */
+public final class CategoryCodec {
+
+    private CategoryCodec() {
+    }
+
+    public static void write(JsonGenerator generator, Category category) throws IOException {
+        generator.writeStartObject();
+        if (category.getId() != null) {
+            generator.writeNumberField("id", category.getId());
+        }
+        if (category.getName() != null) {
+            generator.writeStringField("name", category.getName());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a category from a parser positioned on its START_OBJECT (or VALUE_NULL) token.
+     *
+     * @throws com.fasterxml.jackson.core.JsonParseException if it is on any other token
+     */
+    public static Category read(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        JsonValues.expectObject(parser, "category");
+        Category category = new Category();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    category.setId(JsonValues.readLong(parser));
+                    break;
+                case "name":
+                    category.setName(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return category;
+    }
+}
@@ -0,0 +1,53 @@
+package com.petstore.model.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Token checks and scalar coercions shared by the codecs, matching what Jackson's
+ * annotation-driven binding accepts.
+ */
+final class JsonValues {
+
+    private JsonValues() {
+    }
+
+    /**
+     * Fails unless the parser is on a START_OBJECT token, so a value of the wrong shape is
+     * reported instead of being read past.
+     */
+    static void expectObject(JsonParser parser, String type) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a " + type + " object but found " + parser.currentToken());
+        }
+    }
+
+    /**
+     * Reads a long from a number, truncating fractions, or from a string holding one, as
+     * databind coerces them. An empty string reads as null.
+     */
+    static Long readLong(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getValueAsLong();
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    return null;
+                }
+                try {
+                    return Long.parseLong(text);
+                } catch (NumberFormatException e) {
+                    throw new JsonParseException(parser, "Not a valid long: \"" + text + "\"", e);
+                }
+            default:
+                throw new JsonParseException(parser, "Expected a long but found " + parser.currentToken());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.petstore.model.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+
+import java.io.IOException;
+
+/**
+ * Holds the single, pre-configured {@link ObjectMapper} used for API payloads.
+ * <p>
+ * ObjectMapper is thread-safe once configured and expensive to build, so it is created
+ * once and shared. {@link Pet}, {@link Category} and {@link Tag} are bound through the
+ * hand-written streaming codecs in this package rather than reflection.
+ */
+public final class ObjectMappers {
+    private static final ObjectMapper SHARED = createMapper();
+
+    private ObjectMappers() {
+    }
+
+    /**
+     * @return The shared mapper
+     */
+    public static ObjectMapper shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return The JSON factory backing the shared mapper, for streaming parsers and generators
+     */
+    public static JsonFactory factory() {
+        return SHARED.getFactory();
+    }
+
+    private static ObjectMapper createMapper() {
+        SimpleModule codecs = new SimpleModule("petstore-codecs");
+        codecs.addSerializer(Pet.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(Pet pet, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                PetCodec.write(generator, pet);
+            }
+        });
+        codecs.addDeserializer(Pet.class, new JsonDeserializer<>() {
+            @Override
+            public Pet deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return PetCodec.read(parser);
+            }
+        });
+        codecs.addSerializer(Category.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(Category category, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                CategoryCodec.write(generator, category);
+            }
+        });
+        codecs.addDeserializer(Category.class, new JsonDeserializer<>() {
+            @Override
+            public Category deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return CategoryCodec.read(parser);
+            }
+        });
+        codecs.addSerializer(Tag.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(Tag tag, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                TagCodec.write(generator, tag);
+            }
+        });
+        codecs.addDeserializer(Tag.class, new JsonDeserializer<>() {
+            @Override
+            public Tag deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return TagCodec.read(parser);
+            }
+        });
+
+        return new ObjectMapper()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .registerModule(codecs);
+    }
+}
@@ -0,0 +1,96 @@
+package com.petstore.model.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.petstore.model.Pet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily reads the elements of a JSON array of pets from a stream.
+ * <p>
+ * Only the pet currently being returned is held in memory, so arbitrarily large
+ * arrays can be filtered or counted in constant space. The underlying stream is
+ * closed when the array is exhausted or {@link #close()} is called.
+ */
+public class PetArrayIterator implements Iterator<Pet>, Closeable {
+    private final JsonParser parser;
+    private Pet next;
+    private boolean done;
+
+    public PetArrayIterator(InputStream json) throws IOException {
+        this.parser = ObjectMappers.factory().createParser(json);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("Expected a JSON array of pets but found " + parser.currentToken());
+        }
+    }
+
+    /**
+     * Wraps a JSON array stream as a sequential {@link Stream}. Close the returned stream
+     * (for example with try-with-resources) if it may not be consumed to the end.
+     */
+    public static Stream<Pet> stream(InputStream json) throws IOException {
+        PetArrayIterator iterator = new PetArrayIterator(json);
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        try {
+            JsonToken token = parser.nextToken();
+            while (token == JsonToken.VALUE_NULL) {
+                token = parser.nextToken();
+            }
+            if (token == JsonToken.END_ARRAY || token == null) {
+                close();
+                return false;
+            }
+            next = PetCodec.read(parser);
+            return true;
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Pet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Pet pet = next;
+        next = null;
+        return pet;
+    }
+
+    @Override
+    public void close() {
+        if (done) {
+            return;
+        }
+        done = true;
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
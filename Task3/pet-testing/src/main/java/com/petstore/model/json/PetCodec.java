@@ -0,0 +1,154 @@
+package com.petstore.model.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming JSON codec for {@link Pet}.
+ * <p>
+ * Writes the same document Jackson's annotation-driven binding produces (fields in
+ * declaration order, nulls omitted) and tolerates unknown fields when reading, but
+ * avoids reflection and intermediate trees.
+ */
+public final class PetCodec {
+
+    private PetCodec() {
+    }
+
+    public static void write(JsonGenerator generator, Pet pet) throws IOException {
+        generator.writeStartObject();
+        if (pet.getId() != null) {
+            generator.writeNumberField("id", pet.getId());
+        }
+        if (pet.getCategory() != null) {
+            generator.writeFieldName("category");
+            CategoryCodec.write(generator, pet.getCategory());
+        }
+        if (pet.getName() != null) {
+            generator.writeStringField("name", pet.getName());
+        }
+        if (pet.getPhotoUrls() != null) {
+            generator.writeArrayFieldStart("photoUrls");
+            for (String photoUrl : pet.getPhotoUrls()) {
+                generator.writeString(photoUrl);
+            }
+            generator.writeEndArray();
+        }
+        if (pet.getTags() != null) {
+            generator.writeArrayFieldStart("tags");
+            for (Tag tag : pet.getTags()) {
+                if (tag == null) {
+                    generator.writeNull();
+                } else {
+                    TagCodec.write(generator, tag);
+                }
+            }
+            generator.writeEndArray();
+        }
+        if (pet.getStatus() != null) {
+            generator.writeStringField("status", pet.getStatus());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a pet from a parser positioned on its START_OBJECT (or VALUE_NULL) token.
+     * On return the parser is positioned on the pet's END_OBJECT token.
+     *
+     * @throws com.fasterxml.jackson.core.JsonParseException if it is on any other token
+     */
+    public static Pet read(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        JsonValues.expectObject(parser, "pet");
+        Pet pet = new Pet();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    pet.setId(JsonValues.readLong(parser));
+                    break;
+                case "category":
+                    pet.setCategory(CategoryCodec.read(parser));
+                    break;
+                case "name":
+                    pet.setName(parser.getValueAsString());
+                    break;
+                case "photoUrls":
+                    pet.setPhotoUrls(readPhotoUrls(parser));
+                    break;
+                case "tags":
+                    pet.setTags(readTags(parser));
+                    break;
+                case "status":
+                    pet.setStatus(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return pet;
+    }
+
+    /**
+     * Serializes a pet to UTF-8 JSON bytes.
+     */
+    public static byte[] toBytes(Pet pet) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(ObjectMappers.factory()._getBufferRecycler());
+        try (JsonGenerator generator = ObjectMappers.factory().createGenerator(buffer)) {
+            write(generator, pet);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] json = buffer.toByteArray();
+        buffer.release();
+        return json;
+    }
+
+    /**
+     * Parses a pet from UTF-8 JSON bytes.
+     */
+    public static Pet fromBytes(byte[] json) {
+        try (JsonParser parser = ObjectMappers.factory().createParser(json)) {
+            parser.nextToken();
+            return read(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> readPhotoUrls(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> photoUrls = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            photoUrls.add(parser.getValueAsString());
+        }
+        return photoUrls;
+    }
+
+    private static List<Tag> readTags(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Tag> tags = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            tags.add(TagCodec.read(parser));
+        }
+        return tags;
+    }
+}
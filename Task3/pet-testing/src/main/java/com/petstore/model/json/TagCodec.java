@@ -0,0 +1,56 @@
+package com.petstore.model.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.petstore.model.Tag;
+
+import java.io.IOException;
+
+/**
+ * Streaming JSON codec for {@link Tag}.
+ */
+public final class TagCodec {
+
+    private TagCodec() {
+    }
+
+    public static void write(JsonGenerator generator, Tag tag) throws IOException {
+        generator.writeStartObject();
+        if (tag.getId() != null) {
+            generator.writeNumberField("id", tag.getId());
+        }
+        if (tag.getName() != null) {
+            generator.writeStringField("name", tag.getName());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a tag from a parser positioned on its START_OBJECT (or VALUE_NULL) token.
+     *
+     * @throws com.fasterxml.jackson.core.JsonParseException if it is on any other token
+     */
+    public static Tag read(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        JsonValues.expectObject(parser, "tag");
+        Tag tag = new Tag();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    tag.setId(JsonValues.readLong(parser));
+                    break;
+                case "name":
+                    tag.setName(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return tag;
+    }
+}
@@ -0,0 +1,689 @@
+package com.petstore.server;
+
+import com.petstore.api.config.ApiConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * A TCP proxy on the loopback interface that degrades the network between the client and a
+ * pet store, so timeouts, retries and the connection pool can be tested against it.
+ * <p>
+ * The proxy follows HTTP/1.1 request boundaries on each connection to pick a {@link Fault} per
+ * request, by method and path template relative to the target's base path (e.g.
+ * {@code GET /pet/{petId}}); requests matching no route get the default fault. A fault can
+ * <ul>
+ *   <li>delay the request by a latency plus uniform random jitter,</li>
+ *   <li>cap the bandwidth of both directions,</li>
+ *   <li>drop the connection, resetting it instead of forwarding the request,</li>
+ *   <li>leave the connection half-open, accepting the request but never answering,</li>
+ *   <li>drip the response back a few bytes at a time.</li>
+ * </ul>
+ * Each request's {@code Host} header is rewritten to the target's, so virtual hosts and
+ * absolute URLs the target builds see their own authority rather than the proxy's.
+ * Faults can be changed while requests are in flight and apply from the next request on.
+ * The response direction is shaped by the fault of the last request on its connection, which
+ * is exact as long as the client does not pipeline, as Apache HttpClient does not.
+ */
+public class ChaosProxy implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ChaosProxy.class);
+    private static final int MAX_HEAD_BYTES = 64 * 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final InetSocketAddress upstream;
+    private final String upstreamAuthority;
+    private final String basePath;
+    private final ExecutorService executor;
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private volatile Fault defaultFault = Fault.none();
+    private volatile boolean closed;
+
+    private final LongAdder connectionCount = new LongAdder();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder halfOpenCount = new LongAdder();
+
+    /**
+     * Starts a proxy to the given target.
+     *
+     * @param targetBaseUri Base URI of the pet store, e.g. {@code http://localhost:8080/api/v3}
+     * @param port Port to listen on, or 0 for any free port
+     */
+    public ChaosProxy(String targetBaseUri, int port) throws IOException {
+        URI target = URI.create(targetBaseUri);
+        if (!"http".equalsIgnoreCase(target.getScheme())) {
+            throw new IllegalArgumentException("Only http targets can be proxied: " + targetBaseUri);
+        }
+        this.upstream = new InetSocketAddress(target.getHost(), target.getPort() != -1 ? target.getPort() : 80);
+        this.upstreamAuthority = target.getPort() != -1 ? target.getHost() + ":" + target.getPort() : target.getHost();
+        String path = target.getRawPath() != null ? target.getRawPath() : "";
+        this.basePath = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        this.executor = Executors.newCachedThreadPool(new ProxyThreadFactory());
+        executor.execute(this::accept);
+        logger.info("Chaos proxy for {} listening on {}", targetBaseUri, getBaseUri());
+    }
+
+    /**
+     * Starts a proxy to the given target on the configured {@code api.chaos.port}.
+     */
+    public static ChaosProxy fromConfig(String targetBaseUri) throws IOException {
+        return new ChaosProxy(targetBaseUri, ApiConfig.getChaosPort());
+    }
+
+    /**
+     * @return Base URI to pass to the API clients instead of the target's
+     */
+    public String getBaseUri() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + basePath;
+    }
+
+    /**
+     * Sets the fault of requests matching a route, replacing any fault set for the same route.
+     * Routes are matched in the order they were first set.
+     *
+     * @param method HTTP method, or {@code *} for any
+     * @param pathTemplate Path relative to the target's base path; {@code {name}} matches one
+     *                     path segment and a trailing {@code /**} any number
+     */
+    public void setFault(String method, String pathTemplate, Fault fault) {
+        Route route = new Route(method, pathTemplate, fault);
+        for (int i = 0; i < routes.size(); i++) {
+            Route existing = routes.get(i);
+            if (existing.method.equals(route.method) && existing.pathTemplate.equals(pathTemplate)) {
+                routes.set(i, route);
+                return;
+            }
+        }
+        routes.add(route);
+    }
+
+    /**
+     * Sets the fault of requests matching no route.
+     */
+    public void setDefaultFault(Fault fault) {
+        this.defaultFault = fault;
+    }
+
+    /**
+     * Removes all routes and resets the default fault, restoring an unimpaired network.
+     */
+    public void clearFaults() {
+        routes.clear();
+        defaultFault = Fault.none();
+    }
+
+    /**
+     * Resets every open connection, as a restarting target or a failing network would.
+     */
+    public void resetConnections() {
+        connections.forEach(Connection::reset);
+    }
+
+    public long getConnectionCount() {
+        return connectionCount.sum();
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getHalfOpenCount() {
+        return halfOpenCount.sum();
+    }
+
+    private Fault faultFor(String method, String path) {
+        for (Route route : routes) {
+            if (route.matches(method, path)) {
+                return route.fault;
+            }
+        }
+        return defaultFault;
+    }
+
+    private void accept() {
+        while (!closed) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Chaos proxy stopped accepting connections", e);
+                }
+                return;
+            }
+            connectionCount.increment();
+            Connection connection = new Connection(client);
+            connections.add(connection);
+            executor.execute(connection::forwardRequests);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close chaos proxy socket", e);
+        }
+        connections.forEach(Connection::close);
+        executor.shutdownNow();
+        logger.info("Chaos proxy closed: {}", this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ChaosProxy[connections=%d, requests=%d, dropped=%d, halfOpen=%d]",
+                getConnectionCount(), getRequestCount(), getDroppedCount(), getHalfOpenCount());
+    }
+
+    /**
+     * One client connection and its connection to the target. Requests are forwarded on the
+     * accepting thread, responses on a second thread.
+     */
+    private final class Connection implements Closeable {
+        private final Socket client;
+        private volatile Socket target;
+        private volatile Fault responseFault = Fault.none();
+
+        Connection(Socket client) {
+            this.client = client;
+        }
+
+        void forwardRequests() {
+            try {
+                client.setTcpNoDelay(true);
+                InputStream in = new BufferedInputStream(client.getInputStream(), BUFFER_SIZE);
+                OutputStream out = null;
+                byte[] head;
+                while ((head = readHead(in)) != null) {
+                    String[] requestLine = new String(head, 0, lineEnd(head), StandardCharsets.ISO_8859_1).split(" ");
+                    if (requestLine.length < 2) {
+                        throw new IOException("Malformed request line");
+                    }
+                    String method = requestLine[0];
+                    String path = relativePath(requestLine[1]);
+                    Fault fault = faultFor(method, path);
+                    requestCount.increment();
+                    if (fault.rolls(fault.dropRate)) {
+                        droppedCount.increment();
+                        logger.debug("Dropping connection at {} {}", method, path);
+                        reset();
+                        return;
+                    }
+                    if (fault.rolls(fault.halfOpenRate)) {
+                        halfOpenCount.increment();
+                        logger.debug("Leaving connection half-open at {} {}", method, path);
+                        // Swallow whatever the client sends until it gives up and closes.
+                        in.transferTo(OutputStream.nullOutputStream());
+                        close();
+                        return;
+                    }
+                    fault.delay();
+                    if (out == null) {
+                        target = new Socket();
+                        target.setTcpNoDelay(true);
+                        target.connect(upstream);
+                        out = target.getOutputStream();
+                        InputStream responses = target.getInputStream();
+                        executor.execute(() -> forwardResponses(responses));
+                    }
+                    responseFault = fault;
+                    Shaper shaper = new Shaper(fault, false);
+                    byte[] forwardedHead = withHost(head, upstreamAuthority);
+                    shaper.write(out, forwardedHead, 0, forwardedHead.length);
+                    copyBody(in, out, head, shaper);
+                    out.flush();
+                }
+                if (target != null) {
+                    target.shutdownOutput();
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.debug("Request forwarding ended", e);
+                }
+                close();
+            } finally {
+                if (target == null) {
+                    close();
+                }
+            }
+        }
+
+        private void forwardResponses(InputStream in) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try {
+                OutputStream out = client.getOutputStream();
+                Shaper shaper = null;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    Fault fault = responseFault;
+                    if (shaper == null || shaper.fault != fault) {
+                        shaper = new Shaper(fault, true);
+                    }
+                    shaper.write(out, buffer, 0, read);
+                    out.flush();
+                }
+                client.shutdownOutput();
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.debug("Response forwarding ended", e);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private String relativePath(String requestTarget) {
+            int query = requestTarget.indexOf('?');
+            String path = query >= 0 ? requestTarget.substring(0, query) : requestTarget;
+            return path.startsWith(basePath) ? path.substring(basePath.length()) : path;
+        }
+
+        void reset() {
+            try {
+                client.setSoLinger(true, 0);
+            } catch (IOException e) {
+                logger.debug("Failed to arm connection reset", e);
+            }
+            close();
+        }
+
+        @Override
+        public void close() {
+            connections.remove(this);
+            closeQuietly(client);
+            if (target != null) {
+                closeQuietly(target);
+            }
+        }
+    }
+
+    /**
+     * Reads a request's head, up to and including the blank line.
+     *
+     * @return The head, or null if the connection was closed between requests
+     */
+    private static byte[] readHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream(512);
+        int matched = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            head.write(b);
+            if (b == '\r') {
+                matched = matched == 2 ? 3 : 1;
+            } else {
+                matched = b == '\n' && (matched == 1 || matched == 3) ? matched + 1 : 0;
+            }
+            if (matched == 4) {
+                return head.toByteArray();
+            }
+            if (head.size() > MAX_HEAD_BYTES) {
+                throw new IOException("Request head exceeds " + MAX_HEAD_BYTES + " bytes");
+            }
+        }
+        if (head.size() > 0) {
+            throw new EOFException("Connection closed inside a request head");
+        }
+        return null;
+    }
+
+    /**
+     * @return The head with its {@code Host} header, if any, replaced by the given authority
+     */
+    static byte[] withHost(byte[] head, String authority) {
+        String text = new String(head, StandardCharsets.ISO_8859_1);
+        StringBuilder rewritten = new StringBuilder(text.length() + authority.length());
+        int start = 0;
+        int end;
+        while ((end = text.indexOf("\r\n", start)) >= 0) {
+            String line = text.substring(start, end);
+            int colon = line.indexOf(':');
+            // The request line comes first and is never a header.
+            if (start > 0 && colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("host")) {
+                rewritten.append("Host: ").append(authority);
+            } else {
+                rewritten.append(line);
+            }
+            rewritten.append("\r\n");
+            start = end + 2;
+        }
+        return rewritten.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static int lineEnd(byte[] head) {
+        for (int i = 0; i < head.length; i++) {
+            if (head[i] == '\r') {
+                return i;
+            }
+        }
+        return head.length;
+    }
+
+    /**
+     * Forwards the body the head announces, by {@code Content-Length} or chunked encoding.
+     */
+    private static void copyBody(InputStream in, OutputStream out, byte[] head, Shaper shaper) throws IOException {
+        long contentLength = 0;
+        boolean chunked = false;
+        for (String line : new String(head, StandardCharsets.ISO_8859_1).split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (name.equals("content-length")) {
+                contentLength = Long.parseLong(value);
+            } else if (name.equals("transfer-encoding") && value.toLowerCase(Locale.ROOT).contains("chunked")) {
+                chunked = true;
+            }
+        }
+        if (!chunked) {
+            copy(in, out, contentLength, shaper);
+            return;
+        }
+        while (true) {
+            String sizeLine = copyLine(in, out, shaper);
+            int extension = sizeLine.indexOf(';');
+            long size = Long.parseLong((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+            if (size == 0) {
+                // Trailers, if any, end with a blank line.
+                while (!copyLine(in, out, shaper).isEmpty()) {
+                    // keep copying
+                }
+                return;
+            }
+            copy(in, out, size + 2, shaper);
+        }
+    }
+
+    private static String copyLine(InputStream in, OutputStream out, Shaper shaper) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(16);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new EOFException("Connection closed inside a chunked body");
+            }
+            line.write(b);
+        }
+        line.write('\n');
+        byte[] bytes = line.toByteArray();
+        shaper.write(out, bytes, 0, bytes.length);
+        return new String(bytes, 0, bytes.length - 2, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length, Shaper shaper) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, length))];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new EOFException("Connection closed inside a request body");
+            }
+            shaper.write(out, buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close socket", e);
+        }
+    }
+
+    private static void parkNanos(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Writes bytes at the pace a fault allows: in drips for responses, or under its bandwidth cap.
+     */
+    private static final class Shaper {
+        private final Fault fault;
+        private final boolean drip;
+        private long nextWriteNanos = System.nanoTime();
+
+        Shaper(Fault fault, boolean response) {
+            this.fault = fault;
+            this.drip = response && fault.dripBytes > 0;
+        }
+
+        void write(OutputStream out, byte[] bytes, int offset, int length) throws IOException {
+            if (drip) {
+                for (int i = 0; i < length; i += fault.dripBytes) {
+                    if (i > 0 || nextWriteNanos > System.nanoTime()) {
+                        parkNanos(fault.dripIntervalNanos);
+                    }
+                    out.write(bytes, offset + i, Math.min(fault.dripBytes, length - i));
+                    out.flush();
+                    nextWriteNanos = System.nanoTime() + fault.dripIntervalNanos;
+                }
+                return;
+            }
+            if (fault.bytesPerSecond <= 0) {
+                out.write(bytes, offset, length);
+                return;
+            }
+            // Send in slices of about 50 ms worth of bandwidth, waiting for each one's turn.
+            int slice = (int) Math.max(1, Math.min(BUFFER_SIZE, fault.bytesPerSecond / 20));
+            for (int i = 0; i < length; i += slice) {
+                int size = Math.min(slice, length - i);
+                parkNanos(nextWriteNanos - System.nanoTime());
+                out.write(bytes, offset + i, size);
+                out.flush();
+                nextWriteNanos = Math.max(nextWriteNanos, System.nanoTime() - 50_000_000L)
+                        + size * 1_000_000_000L / fault.bytesPerSecond;
+            }
+        }
+    }
+
+    /**
+     * A method and path template with the fault for requests matching them.
+     */
+    private static final class Route {
+        private final String method;
+        private final String pathTemplate;
+        private final Pattern pattern;
+        private final Fault fault;
+
+        Route(String method, String pathTemplate, Fault fault) {
+            this.method = method.toUpperCase(Locale.ROOT);
+            this.pathTemplate = pathTemplate;
+            String regex = pathTemplate.endsWith("/**")
+                    ? quoteTemplate(pathTemplate.substring(0, pathTemplate.length() - 3)) + "(/.*)?"
+                    : quoteTemplate(pathTemplate);
+            this.pattern = Pattern.compile(regex);
+            this.fault = fault;
+        }
+
+        private static String quoteTemplate(String template) {
+            StringBuilder regex = new StringBuilder();
+            for (String part : template.split("(?=\\{)|(?<=})")) {
+                regex.append(part.startsWith("{") && part.endsWith("}") ? "[^/]+" : Pattern.quote(part));
+            }
+            return regex.toString();
+        }
+
+        boolean matches(String requestMethod, String path) {
+            return (method.equals("*") || method.equalsIgnoreCase(requestMethod)) && pattern.matcher(path).matches();
+        }
+    }
+
+    /**
+     * What the proxy does to a request and its response. Immutable; each {@code with} method
+     * returns a copy with one more impairment.
+     */
+    public static final class Fault {
+        private static final Fault NONE = new Fault(0, 0, 0, 0, 0, 0, 0);
+
+        private final long latencyNanos;
+        private final long jitterNanos;
+        private final long bytesPerSecond;
+        private final double dropRate;
+        private final double halfOpenRate;
+        private final int dripBytes;
+        private final long dripIntervalNanos;
+
+        private Fault(long latencyNanos, long jitterNanos, long bytesPerSecond, double dropRate,
+                      double halfOpenRate, int dripBytes, long dripIntervalNanos) {
+            this.latencyNanos = latencyNanos;
+            this.jitterNanos = jitterNanos;
+            this.bytesPerSecond = bytesPerSecond;
+            this.dropRate = dropRate;
+            this.halfOpenRate = halfOpenRate;
+            this.dripBytes = dripBytes;
+            this.dripIntervalNanos = dripIntervalNanos;
+        }
+
+        /**
+         * @return A fault that forwards everything untouched
+         */
+        public static Fault none() {
+            return NONE;
+        }
+
+        /**
+         * Delays each request by the latency plus a uniform random amount up to the jitter.
+         */
+        public Fault withLatency(Duration latency, Duration jitter) {
+            return new Fault(latency.toNanos(), jitter.toNanos(), bytesPerSecond, dropRate, halfOpenRate,
+                    dripBytes, dripIntervalNanos);
+        }
+
+        /**
+         * Caps each direction of the connection at the given rate.
+         */
+        public Fault withBandwidth(long bytesPerSecond) {
+            if (bytesPerSecond <= 0) {
+                throw new IllegalArgumentException("Bandwidth must be positive: " + bytesPerSecond);
+            }
+            return new Fault(latencyNanos, jitterNanos, bytesPerSecond, dropRate, halfOpenRate,
+                    dripBytes, dripIntervalNanos);
+        }
+
+        /**
+         * Resets the connection instead of forwarding a request, with the given probability.
+         */
+        public Fault withDropRate(double probability) {
+            return new Fault(latencyNanos, jitterNanos, bytesPerSecond, checkProbability(probability),
+                    halfOpenRate, dripBytes, dripIntervalNanos);
+        }
+
+        /**
+         * Accepts a request but never forwards or answers it, with the given probability. The
+         * connection stays open until the client closes it.
+         */
+        public Fault withHalfOpenRate(double probability) {
+            return new Fault(latencyNanos, jitterNanos, bytesPerSecond, dropRate, checkProbability(probability),
+                    dripBytes, dripIntervalNanos);
+        }
+
+        /**
+         * Sends the response a few bytes at a time, each drip after the given interval. This
+         * keeps every read within a socket timeout while the whole response takes far longer.
+         */
+        public Fault withSlowDrip(int bytes, Duration interval) {
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("Drip size must be positive: " + bytes);
+            }
+            return new Fault(latencyNanos, jitterNanos, bytesPerSecond, dropRate, halfOpenRate,
+                    bytes, interval.toNanos());
+        }
+
+        private static double checkProbability(double probability) {
+            if (probability < 0 || probability > 1) {
+                throw new IllegalArgumentException("Probability must be between 0 and 1: " + probability);
+            }
+            return probability;
+        }
+
+        boolean rolls(double probability) {
+            return probability > 0 && ThreadLocalRandom.current().nextDouble() < probability;
+        }
+
+        void delay() {
+            long delay = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+            if (delay > 0) {
+                parkNanos(delay);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder description = new StringBuilder("Fault[");
+            if (latencyNanos > 0 || jitterNanos > 0) {
+                description.append(String.format("latency=%dms+-%dms, ", latencyNanos / 1_000_000, jitterNanos / 1_000_000));
+            }
+            if (bytesPerSecond > 0) {
+                description.append("bandwidth=").append(bytesPerSecond).append("B/s, ");
+            }
+            if (dropRate > 0) {
+                description.append("drop=").append(dropRate).append(", ");
+            }
+            if (halfOpenRate > 0) {
+                description.append("halfOpen=").append(halfOpenRate).append(", ");
+            }
+            if (dripBytes > 0) {
+                description.append(String.format("drip=%dB/%dms, ", dripBytes, dripIntervalNanos / 1_000_000));
+            }
+            if (description.charAt(description.length() - 1) == ' ') {
+                description.setLength(description.length() - 2);
+            } else {
+                description.append("none");
+            }
+            return description.append(']').toString();
+        }
+    }
+
+    private static final class ProxyThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "chaos-proxy-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.petstore.server;
+
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+import com.petstore.model.json.PetCodec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe pet storage with secondary indexes by status and tag name.
+ * <p>
+ * Each pet is kept together with its serialized JSON so reads never serialize. Index
+ * entries for a pet are changed while holding that pet's map entry, and lookups re-check
+ * the stored pet, so a query racing with an update never returns a pet that does not match.
+ */
+public class InMemoryPetStore {
+    private final ConcurrentMap<Long, StoredPet> pets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> byStatus = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> byTag = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1_000_000L);
+
+    /**
+     * Adds or replaces a pet. A pet without an ID is assigned one.
+     *
+     * @return The stored pet
+     */
+    public StoredPet put(Pet pet) {
+        if (pet.getId() == null) {
+            pet.setId(nextId.getAndIncrement());
+        }
+        StoredPet stored = new StoredPet(pet);
+        pets.compute(pet.getId(), (id, previous) -> {
+            unindex(previous);
+            index(stored);
+            return stored;
+        });
+        return stored;
+    }
+
+    /**
+     * Replaces an existing pet.
+     *
+     * @return The stored pet, or null if no pet has the same ID
+     */
+    public StoredPet replace(Pet pet) {
+        if (pet.getId() == null) {
+            return null;
+        }
+        StoredPet stored = new StoredPet(pet);
+        return pets.computeIfPresent(pet.getId(), (id, previous) -> {
+            unindex(previous);
+            index(stored);
+            return stored;
+        });
+    }
+
+    /**
+     * Applies a change to a copy of an existing pet and stores the result.
+     *
+     * @return The stored pet, or null if there is no pet with the ID
+     */
+    public StoredPet update(long id, Consumer<Pet> change) {
+        return pets.computeIfPresent(id, (key, previous) -> {
+            Pet pet = previous.copy();
+            change.accept(pet);
+            pet.setId(key);
+            StoredPet stored = new StoredPet(pet);
+            unindex(previous);
+            index(stored);
+            return stored;
+        });
+    }
+
+    public StoredPet get(long id) {
+        return pets.get(id);
+    }
+
+    /**
+     * @return true if a pet was removed
+     */
+    public boolean remove(long id) {
+        boolean[] removed = new boolean[1];
+        pets.computeIfPresent(id, (key, previous) -> {
+            unindex(previous);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    public List<StoredPet> findByStatus(String status) {
+        Set<Long> ids = byStatus.getOrDefault(status, Collections.emptySet());
+        List<StoredPet> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            StoredPet pet = pets.get(id);
+            if (pet != null && status.equals(pet.getStatus())) {
+                result.add(pet);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Pets carrying at least one of the tag names, each listed once
+     */
+    public List<StoredPet> findByTags(Collection<String> tagNames) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (String tagName : tagNames) {
+            ids.addAll(byTag.getOrDefault(tagName, Collections.emptySet()));
+        }
+        List<StoredPet> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            StoredPet pet = pets.get(id);
+            if (pet != null && !Collections.disjoint(pet.getTagNames(), tagNames)) {
+                result.add(pet);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return pets.size();
+    }
+
+    public void clear() {
+        pets.clear();
+        byStatus.clear();
+        byTag.clear();
+    }
+
+    private void index(StoredPet pet) {
+        if (pet.getStatus() != null) {
+            byStatus.computeIfAbsent(pet.getStatus(), key -> ConcurrentHashMap.newKeySet()).add(pet.getId());
+        }
+        for (String tagName : pet.getTagNames()) {
+            byTag.computeIfAbsent(tagName, key -> ConcurrentHashMap.newKeySet()).add(pet.getId());
+        }
+    }
+
+    private void unindex(StoredPet pet) {
+        if (pet == null) {
+            return;
+        }
+        if (pet.getStatus() != null) {
+            Set<Long> ids = byStatus.get(pet.getStatus());
+            if (ids != null) {
+                ids.remove(pet.getId());
+            }
+        }
+        for (String tagName : pet.getTagNames()) {
+            Set<Long> ids = byTag.get(tagName);
+            if (ids != null) {
+                ids.remove(pet.getId());
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of a stored pet: its JSON plus the fields the indexes need.
+     */
+    public static final class StoredPet {
+        private final long id;
+        private final String status;
+        private final Set<String> tagNames;
+        private final byte[] json;
+
+        StoredPet(Pet pet) {
+            this.id = pet.getId();
+            this.status = pet.getStatus();
+            Set<String> names = new LinkedHashSet<>();
+            if (pet.getTags() != null) {
+                for (Tag tag : pet.getTags()) {
+                    if (tag != null && tag.getName() != null) {
+                        names.add(tag.getName());
+                    }
+                }
+            }
+            this.tagNames = Collections.unmodifiableSet(names);
+            this.json = PetCodec.toBytes(pet);
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Set<String> getTagNames() {
+            return tagNames;
+        }
+
+        /**
+         * @return The pet's JSON; callers must not modify the array
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return A new, mutable copy of the pet
+         */
+        public Pet copy() {
+            return PetCodec.fromBytes(json);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.petstore.server;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.petstore.api.config.ApiConfig;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+import com.petstore.model.json.ObjectMappers;
+import com.petstore.model.json.PetCodec;
+import com.petstore.server.InMemoryPetStore.StoredPet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stand-in for the Pet Store v3 {@code /pet} endpoints, backed by an
+ * {@link InMemoryPetStore}, so the suite and load tests can run offline and measure the
+ * client rather than the network or a shared server.
+ * <p>
+ * Responses follow the public v3 server: form updates read {@code name} and {@code status}
+ * from the query string only, missing pets are 404 {@code Pet not found}, deletes always
+ * answer 200 {@code Pet deleted}, and an unknown status in {@code findByStatus} is a 400.
+ * Every request can be delayed by a fixed latency plus uniform random jitter. Image uploads
+ * are counted as they arrive rather than buffered, so large uploads do not fill the heap.
+ */
+public class InMemoryPetStoreServer implements AutoCloseable {
+    public static final String DEFAULT_BASE_PATH = "/api/v3";
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryPetStoreServer.class);
+    private static final Set<String> VALID_STATUSES = Set.of("available", "pending", "sold");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final InMemoryPetStore store = new InMemoryPetStore();
+    private final String petPath;
+    private final String basePath;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Starts a server on the loopback interface.
+     *
+     * @param port Port to listen on, or 0 for any free port
+     * @param threads Number of request handling threads, or 0 to handle requests on the
+     *                server's dispatcher thread, which has the least overhead when no latency
+     *                is injected
+     * @param latency Fixed delay added to every request
+     * @param jitter Upper bound of a random delay added on top of {@code latency}
+     */
+    public InMemoryPetStoreServer(int port, int threads, Duration latency, Duration jitter) throws IOException {
+        this.basePath = DEFAULT_BASE_PATH;
+        this.petPath = basePath + "/pet";
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.executor = threads > 0 ? Executors.newFixedThreadPool(threads, new ServerThreadFactory()) : null;
+        server.setExecutor(executor != null ? executor : Runnable::run);
+        server.createContext(petPath, this::handle);
+        server.start();
+        logger.info("Embedded pet store listening on {}", getBaseUri());
+    }
+
+    /**
+     * Starts a server configured from the {@code api.embedded.*} properties and seeds it
+     * with {@code api.embedded.seed.pets} pets. Turns on TCP_NODELAY for the JDK HTTP servers
+     * of the process, which takes effect if none has been started yet.
+     */
+    public static InMemoryPetStoreServer fromConfig() throws IOException {
+        // The JDK server writes headers and body separately, so without this each response waits on a delayed ACK.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        InMemoryPetStoreServer server = new InMemoryPetStoreServer(
+                ApiConfig.getEmbeddedPort(),
+                ApiConfig.getEmbeddedThreads(),
+                Duration.ofMillis(ApiConfig.getEmbeddedLatencyMillis()),
+                Duration.ofMillis(ApiConfig.getEmbeddedJitterMillis()));
+        server.seed(ApiConfig.getEmbeddedSeedPets());
+        return server;
+    }
+
+    /**
+     * @return Base URI to pass to the API clients, including the {@code /api/v3} prefix
+     */
+    public String getBaseUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + basePath;
+    }
+
+    public InMemoryPetStore getStore() {
+        return store;
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Adds pets with IDs 1 to {@code count}, cycling through the three statuses, similar to
+     * the sample data the public server starts with.
+     */
+    public void seed(int count) {
+        String[] statuses = {"available", "pending", "sold"};
+        for (int i = 1; i <= count; i++) {
+            Category category = i % 2 == 0 ? new Category(1L, "Dogs") : new Category(2L, "Cats");
+            List<Tag> tags = new ArrayList<>(List.of(new Tag((long) (i % 3 + 1), "tag" + (i % 3 + 1))));
+            store.put(new Pet((long) i, category, category.getName().substring(0, 3) + " " + i,
+                    new ArrayList<>(List.of("url" + i)), tags, statuses[(i - 1) % statuses.length]));
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            injectLatency();
+            String path = exchange.getRequestURI().getRawPath().substring(petPath.length());
+            byte[] body;
+            long bodyLength;
+            try (InputStream in = exchange.getRequestBody()) {
+                if (path.endsWith("/uploadImage")) {
+                    body = new byte[0];
+                    bodyLength = in.transferTo(OutputStream.nullOutputStream());
+                } else {
+                    body = in.readAllBytes();
+                    bodyLength = body.length;
+                }
+            }
+            route(exchange, exchange.getRequestMethod(), path, parseQuery(exchange.getRequestURI().getRawQuery()),
+                    body, bodyLength);
+        } catch (RuntimeException e) {
+            logger.warn("Embedded pet store failed to handle {} {}", exchange.getRequestMethod(),
+                    exchange.getRequestURI(), e);
+            if (exchange.getResponseCode() == -1) {
+                sendMessage(exchange, 500, "Internal server error");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, String method, String path, Map<String, List<String>> query,
+                       byte[] body, long bodyLength) throws IOException {
+        if (path.isEmpty() || "/".equals(path)) {
+            if ("POST".equals(method)) {
+                createPet(exchange, body);
+            } else if ("PUT".equals(method)) {
+                updatePet(exchange, body);
+            } else {
+                sendMessage(exchange, 405, "Method not allowed");
+            }
+        } else if ("/findByStatus".equals(path) && "GET".equals(method)) {
+            findByStatus(exchange, query);
+        } else if ("/findByTags".equals(path) && "GET".equals(method)) {
+            findByTags(exchange, query);
+        } else {
+            String[] segments = path.substring(1).split("/");
+            Long id = parseId(segments[0]);
+            if (id == null) {
+                sendMessage(exchange, 400, "Invalid ID supplied");
+            } else if (segments.length == 1 && "GET".equals(method)) {
+                getPet(exchange, id);
+            } else if (segments.length == 1 && "POST".equals(method)) {
+                updatePetWithForm(exchange, id, query);
+            } else if (segments.length == 1 && "DELETE".equals(method)) {
+                store.remove(id);
+                sendMessage(exchange, 200, "Pet deleted");
+            } else if (segments.length == 2 && "uploadImage".equals(segments[1]) && "POST".equals(method)) {
+                uploadImage(exchange, id, query, bodyLength);
+            } else {
+                sendMessage(exchange, 404, "Not found");
+            }
+        }
+    }
+
+    private void createPet(HttpExchange exchange, byte[] body) throws IOException {
+        Pet pet = parsePet(body);
+        if (pet == null) {
+            sendMessage(exchange, 400, "Invalid input");
+            return;
+        }
+        sendJson(exchange, 200, store.put(pet).getJson());
+    }
+
+    private void updatePet(HttpExchange exchange, byte[] body) throws IOException {
+        Pet pet = parsePet(body);
+        if (pet == null) {
+            sendMessage(exchange, 400, "Invalid ID supplied");
+            return;
+        }
+        StoredPet stored = store.replace(pet);
+        if (stored == null) {
+            sendMessage(exchange, 404, "Pet not found");
+            return;
+        }
+        sendJson(exchange, 200, stored.getJson());
+    }
+
+    private void getPet(HttpExchange exchange, long id) throws IOException {
+        StoredPet stored = store.get(id);
+        if (stored == null) {
+            sendMessage(exchange, 404, "Pet not found");
+            return;
+        }
+        sendJson(exchange, 200, stored.getJson());
+    }
+
+    private void updatePetWithForm(HttpExchange exchange, long id, Map<String, List<String>> query)
+            throws IOException {
+        String name = first(query, "name");
+        String status = first(query, "status");
+        if (name == null) {
+            sendMessage(exchange, 400, "No Name provided");
+            return;
+        }
+        StoredPet stored = store.update(id, pet -> {
+            pet.setName(name);
+            if (status != null) {
+                pet.setStatus(status);
+            }
+        });
+        if (stored == null) {
+            sendMessage(exchange, 404, "Pet not found");
+            return;
+        }
+        sendJson(exchange, 200, stored.getJson());
+    }
+
+    private void findByStatus(HttpExchange exchange, Map<String, List<String>> query) throws IOException {
+        String status = first(query, "status");
+        if (status == null) {
+            status = "available";
+        }
+        if (!VALID_STATUSES.contains(status)) {
+            sendMessage(exchange, 400, "Input error: query parameter `status value `" + status
+                    + "` is not in the allowable values `[available, pending, sold]`");
+            return;
+        }
+        sendJson(exchange, 200, toJsonArray(store.findByStatus(status)));
+    }
+
+    private void findByTags(HttpExchange exchange, Map<String, List<String>> query) throws IOException {
+        List<String> tags = new ArrayList<>();
+        for (String value : query.getOrDefault("tags", Collections.emptyList())) {
+            for (String tag : value.split(",")) {
+                if (!tag.isBlank()) {
+                    tags.add(tag.trim());
+                }
+            }
+        }
+        if (tags.isEmpty()) {
+            sendMessage(exchange, 400, "No tags provided. Try again?");
+            return;
+        }
+        sendJson(exchange, 200, toJsonArray(store.findByTags(tags)));
+    }
+
+    private void uploadImage(HttpExchange exchange, long id, Map<String, List<String>> query, long bodyLength)
+            throws IOException {
+        if (store.get(id) == null) {
+            sendMessage(exchange, 404, "Pet not found");
+            return;
+        }
+        String metadata = first(query, "additionalMetadata");
+        String message = (metadata != null ? "additionalMetadata: " + metadata + "\n" : "")
+                + "File uploaded, " + bodyLength + " bytes";
+        sendMessage(exchange, 200, message);
+    }
+
+    private void injectLatency() {
+        long delay = latencyNanos;
+        if (jitterNanos > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitterNanos + 1);
+        }
+        if (delay > 0) {
+            long deadline = System.nanoTime() + delay;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    /**
+     * @return The pet, or null if the body is not a JSON object
+     */
+    private static Pet parsePet(byte[] body) {
+        try (JsonParser parser = ObjectMappers.factory().createParser(body)) {
+            return parser.nextToken() == JsonToken.START_OBJECT ? PetCodec.read(parser) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Long parseId(String segment) {
+        try {
+            return Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static byte[] toJsonArray(List<StoredPet> pets) {
+        int size = 2;
+        for (StoredPet pet : pets) {
+            size += pet.getJson().length + 1;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.write('[');
+        for (int i = 0; i < pets.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(pets.get(i).getJson());
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    private static Map<String, List<String>> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> params = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static String first(Map<String, List<String>> params, String name) {
+        List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static void sendMessage(HttpExchange exchange, int status, String message) throws IOException {
+        String type = status < 400 ? "unknown" : "error";
+        String escaped = message.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        sendJson(exchange, status, ("{\"code\":" + status + ",\"type\":\"" + type + "\",\"message\":\""
+                + escaped + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class ServerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "petstore-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.petstore.server;
+
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.replay.ExchangeLog;
+import com.petstore.api.replay.RecordedExchange;
+import com.petstore.api.replay.ReplayKeyFilter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves the responses held in an {@link ExchangeLog}, so a recorded run can be repeated
+ * offline and client changes compared against identical traffic.
+ * <p>
+ * A request carrying the {@value ReplayKeyFilter#HEADER} header gets the response recorded
+ * under that key; any other request gets the first response recorded for its method and path.
+ * Unmatched requests are answered 404 with type {@code replay}. Responses are sent as fast as
+ * possible, or after their recorded duration times a latency scale.
+ */
+public class ReplayServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayServer.class);
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "content-length", "transfer-encoding", "connection", "keep-alive", "date");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ExchangeLog log;
+    private final String basePath;
+    private final double latencyScale;
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+
+    /**
+     * Starts a server on the loopback interface.
+     *
+     * @param log Recorded exchanges to serve
+     * @param port Port to listen on, or 0 for any free port
+     * @param threads Number of request handling threads, or 0 to use the dispatcher thread
+     * @param latencyScale Fraction of each exchange's recorded duration to wait before responding
+     */
+    public ReplayServer(ExchangeLog log, int port, int threads, double latencyScale) throws IOException {
+        this.log = log;
+        this.basePath = InMemoryPetStoreServer.DEFAULT_BASE_PATH;
+        this.latencyScale = latencyScale;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.executor = threads > 0 ? Executors.newFixedThreadPool(threads, new ServerThreadFactory()) : null;
+        server.setExecutor(executor != null ? executor : Runnable::run);
+        server.createContext(basePath, this::handle);
+        server.start();
+        logger.info("Replaying {} exchanges from {} on {}", log.size(), log.getPath(), getBaseUri());
+    }
+
+    /**
+     * Starts a server over {@code api.replay.file}, on the {@code api.embedded.port} and with
+     * the {@code api.embedded.threads} of the embedded pet store. Turns on TCP_NODELAY as
+     * {@link InMemoryPetStoreServer#fromConfig()} does.
+     */
+    public static ReplayServer fromConfig() throws IOException {
+        // The JDK server writes headers and body separately, so without this each response waits on a delayed ACK.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        return new ReplayServer(
+                ExchangeLog.open(Path.of(ApiConfig.getReplayFile())),
+                ApiConfig.getEmbeddedPort(),
+                ApiConfig.getEmbeddedThreads(),
+                ApiConfig.getReplayLatencyScale());
+    }
+
+    /**
+     * @return Base URI to pass to the API clients, including the {@code /api/v3} prefix
+     */
+    public String getBaseUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + basePath;
+    }
+
+    public ExchangeLog getLog() {
+        return log;
+    }
+
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    public long getUnmatchedCount() {
+        return unmatched.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String method = exchange.getRequestMethod();
+        String key = exchange.getRequestHeaders().getFirst(ReplayKeyFilter.HEADER);
+        RecordedExchange recorded = key != null ? log.findByKey(key) : null;
+        if (recorded == null || !recorded.getMethod().equals(method)) {
+            String path = exchange.getRequestURI().getRawPath().substring(basePath.length());
+            String query = exchange.getRequestURI().getRawQuery();
+            recorded = log.findByRequest(method, query != null ? path + "?" + query : path);
+        }
+        if (recorded == null) {
+            unmatched.increment();
+            logger.debug("No recorded exchange for {} {} (key {})", method, exchange.getRequestURI(), key);
+            byte[] body = ("{\"code\":404,\"type\":\"replay\",\"message\":\"No recorded exchange for " + method
+                    + " " + exchange.getRequestURI().getRawPath() + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            send(exchange, 404, body);
+            return;
+        }
+        replayed.increment();
+        delay(recorded.getDurationNanos());
+        for (Map.Entry<String, String> header : recorded.getResponseHeaders()) {
+            if (!HOP_BY_HOP_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+            }
+        }
+        send(exchange, recorded.getStatus(), recorded.getResponseBody());
+    }
+
+    private void delay(long recordedNanos) {
+        if (latencyScale <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + (long) (recordedNanos * latencyScale);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        boolean empty = body == null || body.length == 0;
+        exchange.sendResponseHeaders(status, empty ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (!empty) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        logger.info("Replay server served {} recorded responses, {} requests unmatched",
+                getReplayedCount(), getUnmatchedCount());
+    }
+
+    private static final class ServerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "replay-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
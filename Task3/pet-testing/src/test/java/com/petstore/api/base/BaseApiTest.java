@@ -1,26 +1,271 @@
 package com.petstore.api.base;
 
+import com.petstore.api.cleanup.PetReaper;
+import com.petstore.api.client.HttpConnectionPool;
 import com.petstore.api.client.PetApiClient;
+import com.petstore.api.client.PetCache;
 import com.petstore.api.config.ApiConfig;
+import com.petstore.api.metrics.EndpointMetrics;
+import com.petstore.api.metrics.EndpointMetricsFilter;
+import com.petstore.api.replay.ExchangeLog;
+import com.petstore.api.replay.ExchangeLogWriter;
+import com.petstore.api.replay.ExchangeRecordingFilter;
+import com.petstore.api.replay.ExchangeScope;
+import com.petstore.api.replay.ReplayKeyFilter;
+import com.petstore.api.resilience.AdaptiveConcurrencyLimiter;
+import com.petstore.api.resilience.AdaptiveTimeouts;
+import com.petstore.api.resilience.CircuitBreaker;
+import com.petstore.api.resilience.CircuitBreakerFilter;
+import com.petstore.api.resilience.ConcurrencyLimitFilter;
+import com.petstore.api.resilience.Deadline;
+import com.petstore.api.resilience.RequestHedger;
+import com.petstore.api.resilience.TimeoutFilter;
+import com.petstore.api.util.FastPetGenerator;
+import com.petstore.api.util.PetIdAllocator;
+import com.petstore.api.util.TestDataGenerator;
+import com.petstore.server.ChaosProxy;
+import com.petstore.server.InMemoryPetStoreServer;
+import com.petstore.server.ReplayServer;
+import io.qameta.allure.Allure;
 import io.qameta.allure.Step;
+import io.restassured.filter.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 public class BaseApiTest {
-    protected PetApiClient petApiClient;
+    private static final Logger logger = LoggerFactory.getLogger(BaseApiTest.class);
+    private static final Path METRICS_FILE = Path.of("target", "endpoint-metrics.json");
+    protected static PetApiClient petApiClient;
+    protected static ChaosProxy chaosProxy;
+    protected static CircuitBreakerFilter circuitBreakerFilter;
+    private static HttpConnectionPool connectionPool;
+    private static EndpointMetrics endpointMetrics;
+    private static ConcurrencyLimitFilter concurrencyLimitFilter;
+    private static RequestHedger requestHedger;
+    private static PetReaper petReaper;
+    private static TimeoutFilter timeoutFilter;
+    private static InMemoryPetStoreServer embeddedServer;
+    private static ReplayServer replayServer;
+    private static ExchangeLogWriter exchangeLogWriter;
+    private static PetIdAllocator scopeIds;
+    private static long scopeDataSeed;
 
     @BeforeSuite
-    public void setupSuite() {
+    public void setupSuite() throws IOException {
+        String baseUri = ApiConfig.getBaseUri();
+        if (ApiConfig.isEmbeddedTarget()) {
+            embeddedServer = InMemoryPetStoreServer.fromConfig();
+            baseUri = embeddedServer.getBaseUri();
+        } else if (ApiConfig.isReplayTarget()) {
+            replayServer = ReplayServer.fromConfig();
+            baseUri = replayServer.getBaseUri();
+            ExchangeLog log = replayServer.getLog();
+            checkRecordedRun(log);
+            scopeIds = new PetIdAllocator(log.getNamespace(), log.getWorkerIndex());
+            scopeDataSeed = log.getDataSeed();
+        }
+        if (ApiConfig.isChaosEnabled()) {
+            chaosProxy = ChaosProxy.fromConfig(baseUri);
+            baseUri = chaosProxy.getBaseUri();
+        }
+        connectionPool = new HttpConnectionPool(
+                ApiConfig.getPoolMaxTotal(),
+                ApiConfig.getPoolMaxPerRoute(),
+                Duration.ofMillis(ApiConfig.getPoolIdleTimeoutMillis()));
+        endpointMetrics = new EndpointMetrics();
+        List<Filter> filters = new ArrayList<>();
+        if (replayServer != null) {
+            filters.add(new ReplayKeyFilter());
+        } else if (ApiConfig.isRecordEnabled()) {
+            scopeIds = PetIdAllocator.shared();
+            scopeDataSeed = FastPetGenerator.getRootSeed();
+            exchangeLogWriter = new ExchangeLogWriter(Path.of(ApiConfig.getReplayFile()),
+                    scopeIds.getNamespace(), scopeIds.getWorkerIndex(), scopeDataSeed);
+            filters.add(new ExchangeRecordingFilter(exchangeLogWriter, ApiConfig.getLoggingRedactedHeaders()));
+        }
+        filters.add(new EndpointMetricsFilter(endpointMetrics));
+        if (ApiConfig.isBreakerEnabled()) {
+            circuitBreakerFilter = new CircuitBreakerFilter(endpoint -> new CircuitBreaker(endpoint,
+                    ApiConfig.getBreakerWindowSize(),
+                    ApiConfig.getBreakerMinCalls(),
+                    ApiConfig.getBreakerFailureRateThreshold(),
+                    Duration.ofMillis(ApiConfig.getBreakerSlowCallMillis()),
+                    ApiConfig.getBreakerSlowCallRateThreshold(),
+                    Duration.ofMillis(ApiConfig.getBreakerOpenMillis()),
+                    ApiConfig.getBreakerHalfOpenCalls()));
+            filters.add(circuitBreakerFilter);
+        }
+        if (ApiConfig.isLimiterEnabled()) {
+            concurrencyLimitFilter = new ConcurrencyLimitFilter(new AdaptiveConcurrencyLimiter(
+                    ApiConfig.getLimiterInitialLimit(),
+                    ApiConfig.getLimiterMinLimit(),
+                    ApiConfig.getLimiterMaxLimit(),
+                    Duration.ofMillis(ApiConfig.getLimiterLatencyThresholdMillis()),
+                    Duration.ofMillis(ApiConfig.getLimiterMaxQueueWaitMillis()),
+                    Duration.ofMillis(ApiConfig.getLimiterMaxPauseMillis())),
+                    ApiConfig.getLimiterMaxRetries());
+            filters.add(concurrencyLimitFilter);
+        }
+        AdaptiveTimeouts adaptiveTimeouts = ApiConfig.isAdaptiveTimeoutEnabled()
+                ? new AdaptiveTimeouts(
+                        ApiConfig.getAdaptiveTimeoutPercentile(),
+                        ApiConfig.getAdaptiveTimeoutHeadroom(),
+                        Duration.ofMillis(ApiConfig.getAdaptiveTimeoutMinMillis()),
+                        Duration.ofMillis(ApiConfig.getDefaultTimeout()),
+                        ApiConfig.getAdaptiveTimeoutMinSamples())
+                : null;
+        timeoutFilter = new TimeoutFilter(Duration.ofMillis(ApiConfig.getDefaultTimeout()), adaptiveTimeouts);
+        filters.add(timeoutFilter);
+        connectionPool.addRequestInterceptor(TimeoutFilter.getSocketTimeoutInterceptor());
+        petApiClient = new PetApiClient(baseUri, connectionPool, filters);
+        if (ApiConfig.isHedgingEnabled()) {
+            requestHedger = new RequestHedger(
+                    ApiConfig.getHedgingPercentile(),
+                    Duration.ofMillis(ApiConfig.getHedgingMinDelayMillis()),
+                    ApiConfig.getHedgingMinSamples(),
+                    ApiConfig.getHedgingBudgetRatio());
+            connectionPool.addRequestInterceptor(requestHedger.getConnectionInterceptor());
+            petApiClient.setHedger(requestHedger);
+        }
+        if (ApiConfig.isCacheEnabled()) {
+            petApiClient.setCache(new PetCache(ApiConfig.getCacheMaxSize(),
+                    Duration.ofMillis(ApiConfig.getCacheTtlMillis())));
+        }
+        if (ApiConfig.isReaperEnabled() && replayServer == null) {
+            petReaper = new PetReaper(petApiClient,
+                    ApiConfig.getReaperBatchSize(),
+                    ApiConfig.getReaperMaxInFlight(),
+                    Duration.ofMillis(ApiConfig.getReaperIntervalMillis()));
+            petApiClient.setReaper(petReaper);
+        }
+    }
+
+    /**
+     * Replaying needs the ids and seed the log was recorded with, since test data is derived
+     * from them. Scoped test data is generated from the recorded values; this only fails if
+     * different values were asked for explicitly.
+     */
+    private static void checkRecordedRun(ExchangeLog log) {
+        if (isOverridden("test.run.namespace", log.getNamespace())
+                || isOverridden("test.worker.index", log.getWorkerIndex())
+                || isOverridden("test.data.seed", log.getDataSeed())) {
+            throw new IllegalStateException(String.format("%s was recorded with -Dtest.run.namespace=%d "
+                            + "-Dtest.worker.index=%d -Dtest.data.seed=%d; replay it with the same values or none",
+                    log.getPath(), log.getNamespace(), log.getWorkerIndex(), log.getDataSeed()));
+        }
+    }
+
+    private static boolean isOverridden(String property, long recorded) {
+        String configured = System.getProperty(property);
+        return configured != null && !configured.isBlank() && Long.parseLong(configured.trim()) != recorded;
     }
 
-    @BeforeMethod
-    public void setupTest() {
-        petApiClient = new PetApiClient(ApiConfig.getBaseUri());
+    @BeforeMethod(alwaysRun = true)
+    public void setupTest(Method method) {
+        if (replayServer != null || exchangeLogWriter != null) {
+            String scope = getClass().getSimpleName() + "." + method.getName();
+            ExchangeScope.open(scope);
+            TestDataGenerator.startScope(scope, scopeIds, scopeDataSeed);
+        }
+        long deadlineMillis = ApiConfig.getTestDeadlineMillis();
+        if (deadlineMillis > 0) {
+            Deadline.start(Duration.ofMillis(deadlineMillis));
+        }
+        if (petReaper != null) {
+            petReaper.openScope();
+        }
     }
 
-    @AfterMethod
+    @AfterMethod(alwaysRun = true)
     public void teardownTest() {
+        ExchangeScope.close();
+        TestDataGenerator.endScope();
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.close();
+        }
+        if (petReaper != null) {
+            petReaper.closeScope();
+        }
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void teardownSuite() {
+        if (petReaper != null) {
+            petReaper.close();
+        }
+        if (endpointMetrics != null) {
+            publishEndpointMetrics();
+        }
+        if (requestHedger != null) {
+            requestHedger.close();
+        }
+        if (petApiClient != null) {
+            petApiClient.close();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+        if (exchangeLogWriter != null) {
+            try {
+                exchangeLogWriter.close();
+            } catch (IOException e) {
+                logger.warn("Failed to finish exchange log {}", exchangeLogWriter.getPath(), e);
+            }
+        }
+        if (chaosProxy != null) {
+            chaosProxy.close();
+        }
+        if (replayServer != null) {
+            replayServer.close();
+        }
+        if (embeddedServer != null) {
+            embeddedServer.close();
+        }
+    }
+
+    private void publishEndpointMetrics() {
+        String table = endpointMetrics.formatTable();
+        if (concurrencyLimitFilter != null) {
+            table += String.format("%n%s, retries=%d%n", concurrencyLimitFilter.getLimiter(),
+                    concurrencyLimitFilter.getRetryCount());
+        }
+        if (circuitBreakerFilter != null) {
+            table += String.format("%n%s%n", circuitBreakerFilter);
+        }
+        if (requestHedger != null) {
+            table += String.format("%n%s%n", requestHedger);
+        }
+        if (timeoutFilter != null) {
+            table += String.format("%n%s%n", timeoutFilter);
+        }
+        if (petApiClient != null && petApiClient.getCache() != null) {
+            table += String.format("%n%s%n", petApiClient.getCache());
+        }
+        if (petReaper != null) {
+            table += String.format("%n%s%n", petReaper);
+        }
+        if (chaosProxy != null) {
+            table += String.format("%n%s%n", chaosProxy);
+        }
+        logger.info("Endpoint latency summary:{}{}", System.lineSeparator(), table);
+        Allure.addAttachment("Endpoint latency summary", "text/plain", table, ".txt");
+        try {
+            endpointMetrics.writeJson(METRICS_FILE);
+        } catch (IOException e) {
+            logger.warn("Failed to write endpoint metrics to {}", METRICS_FILE, e);
+        }
     }
 
     @Step("Verify response status code is {expectedStatusCode}")
@@ -0,0 +1,310 @@
+package com.petstore.api.chaos;
+
+import com.petstore.api.base.BaseApiTest;
+import com.petstore.api.config.ApiConfig;
+import com.petstore.api.resilience.CircuitBreaker;
+import com.petstore.api.resilience.CircuitBreakerOpenException;
+import com.petstore.api.resilience.RequestTimeoutException;
+import com.petstore.api.util.TestDataGenerator;
+import com.petstore.model.Pet;
+import com.petstore.server.ChaosProxy.Fault;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import io.restassured.response.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs bursts of calls through the {@link com.petstore.server.ChaosProxy} under one fault at a
+ * time and records how the client's throughput and errors respond. Runs in the chaos suite:
+ * {@code mvn -Pchaos test -Dapi.target=embedded}.
+ */
+@Feature("Resilience")
+@Story("Network Faults")
+public class NetworkFaultTests extends BaseApiTest {
+    private static final Logger logger = LoggerFactory.getLogger(NetworkFaultTests.class);
+    private static final List<String> summary = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass(alwaysRun = true)
+    public void requireChaosProxy() {
+        if (chaosProxy == null) {
+            throw new SkipException("Chaos proxy is off; run with -Dapi.chaos.enabled=true");
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clearFaults() {
+        if (chaosProxy != null) {
+            chaosProxy.clearFaults();
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void publishSummary() {
+        if (summary.isEmpty()) {
+            return;
+        }
+        StringBuilder table = new StringBuilder(String.format("%-44s %6s %6s %9s %9s %9s %9s%n",
+                "fault", "calls", "errors", "req/s", "p50(ms)", "p99(ms)", "max(ms)"));
+        summary.forEach(table::append);
+        table.append(String.format("%n%s%n", chaosProxy));
+        logger.info("Client behavior under network faults:{}{}", System.lineSeparator(), table);
+        Allure.addAttachment("Network fault summary", "text/plain", table.toString(), ".txt");
+    }
+
+    @Test(description = "Reads succeed at full speed without faults")
+    public void baselineWithoutFaults() {
+        // Given
+        Long petId = createPet();
+
+        // When
+        Burst burst = Burst.run("none", 40, 4, () -> petApiClient.getPetById(petId));
+
+        // Then
+        assertThat(burst.errors).isZero();
+    }
+
+    @Test(description = "Added latency with jitter slows every call on the route but fails none")
+    public void addedLatencyWithJitter() {
+        // Given
+        Long petId = createPet();
+        Fault fault = Fault.none().withLatency(Duration.ofMillis(200), Duration.ofMillis(100));
+        chaosProxy.setFault("GET", "/pet/{petId}", fault);
+
+        // When
+        Burst burst = Burst.run(fault.toString(), 20, 4, () -> petApiClient.getPetById(petId));
+
+        // Then
+        assertThat(burst.errors).isZero();
+        assertThat(burst.minMillis()).isGreaterThanOrEqualTo(200);
+        verifyStatusCode(petApiClient.createPet(TestDataGenerator.generatePet()).getStatusCode(), 200);
+    }
+
+    @Test(description = "A bandwidth cap stretches large responses in proportion to their size")
+    public void bandwidthCap() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            createPet();
+        }
+        int bodyBytes = petApiClient.findPetsByStatus("available").asByteArray().length;
+        long bytesPerSecond = 2048;
+        Fault fault = Fault.none().withBandwidth(bytesPerSecond);
+        chaosProxy.setFault("GET", "/pet/findByStatus", fault);
+
+        // When
+        Burst burst = Burst.run(fault.toString(), 4, 2, () -> petApiClient.findPetsByStatus("available"));
+
+        // Then
+        assertThat(burst.errors).isZero();
+        // Pets of earlier tests may be cleaned up meanwhile, so allow for a smaller body.
+        long expectedMillis = bodyBytes * 1000L / bytesPerSecond;
+        assertThat(burst.minMillis()).isGreaterThanOrEqualTo(expectedMillis * 3 / 4);
+    }
+
+    @Test(description = "Dropped connections fail fast instead of waiting for the timeout")
+    public void droppedConnections() {
+        // Given
+        Long petId = createPet();
+        long droppedBefore = chaosProxy.getDroppedCount();
+        Fault fault = Fault.none().withDropRate(0.3);
+        chaosProxy.setFault("GET", "/pet/{petId}", fault);
+
+        // When
+        Burst burst = Burst.run(fault.toString(), 30, 3, () -> petApiClient.getPetById(petId));
+
+        // Then
+        assertThat(chaosProxy.getDroppedCount()).isGreaterThan(droppedBefore);
+        assertThat((long) burst.errors).isLessThanOrEqualTo(chaosProxy.getDroppedCount() - droppedBefore);
+        assertThat(burst.maxMillis()).isLessThan(ApiConfig.getDefaultTimeout());
+    }
+
+    @Test(description = "Half-open connections time out on their route while other routes keep working")
+    public void halfOpenConnections() {
+        // Given
+        Long petId = createPet();
+        Fault fault = Fault.none().withHalfOpenRate(1.0);
+        chaosProxy.setFault("GET", "/pet/{petId}", fault);
+
+        // When
+        Burst burst = Burst.run(fault.toString(), 3, 3, () -> petApiClient.getPetById(petId));
+
+        // Then
+        assertThat(burst.errors).isEqualTo(3);
+        assertThat(burst.failures).allMatch(RequestTimeoutException.class::isInstance);
+        assertThat(burst.minMillis()).isGreaterThanOrEqualTo(ApiConfig.getDefaultTimeout() * 9 / 10);
+        assertThat(burst.maxMillis()).isLessThan(ApiConfig.getDefaultTimeout() + 2000);
+        verifyStatusCode(petApiClient.createPet(TestDataGenerator.generatePet()).getStatusCode(), 200);
+        chaosProxy.clearFaults();
+        verifyStatusCode(petApiClient.getPetById(petId).getStatusCode(), 200);
+    }
+
+    @Test(description = "A slow drip outlasts the read timeout, which only bounds the gap between bytes")
+    public void slowDripResponses() {
+        // Given
+        Long petId = createPet();
+        Response unimpaired = petApiClient.getPetById(petId);
+        // Status line, headers and body as they go over the wire.
+        int responseBytes = "HTTP/1.1 200 OK\r\n\r\n".length() + unimpaired.asByteArray().length
+                + unimpaired.getHeaders().asList().stream()
+                        .mapToInt(header -> header.getName().length() + header.getValue().length() + 4)
+                        .sum();
+        int dripBytes = 8;
+        long totalMillis = ApiConfig.getDefaultTimeout() * 3L / 2;
+        Fault fault = Fault.none().withSlowDrip(dripBytes,
+                Duration.ofMillis(totalMillis * dripBytes / responseBytes));
+        chaosProxy.setFault("GET", "/pet/{petId}", fault);
+
+        // When
+        Burst burst = Burst.run(fault.toString(), 2, 2, () -> petApiClient.getPetById(petId));
+
+        // Then
+        assertThat(burst.errors).isZero();
+        assertThat(burst.minMillis()).isGreaterThan(ApiConfig.getDefaultTimeout());
+    }
+
+    @Test(description = "Pooled connections reset by the network are replaced without failing calls")
+    public void resetPooledConnections() {
+        // Given
+        Long petId = createPet();
+        Burst.run("none (warm pool)", 10, 4, () -> petApiClient.getPetById(petId));
+
+        // When
+        chaosProxy.resetConnections();
+        Burst burst = Burst.run("reset pooled connections", 10, 4, () -> petApiClient.getPetById(petId));
+
+        // Then
+        assertThat(burst.errors).isZero();
+    }
+
+    @Test(description = "A circuit breaker fails fast on a hung endpoint and closes again once it recovers")
+    public void circuitBreakerOnHungEndpoint() throws InterruptedException {
+        if (circuitBreakerFilter == null) {
+            throw new SkipException("Circuit breaker is off; run with -Dapi.breaker.enabled=true");
+        }
+        // Given
+        String endpoint = "GET /pet/findByTags";
+        int minCalls = ApiConfig.getBreakerMinCalls();
+        Fault fault = Fault.none().withHalfOpenRate(1.0);
+        chaosProxy.setFault("GET", "/pet/findByTags", fault);
+        Burst hung = Burst.run(fault.toString(), minCalls, minCalls, () -> petApiClient.findPetsByTags("tag1"));
+        CircuitBreaker breaker = circuitBreakerFilter.getBreakers().get(endpoint);
+
+        // When
+        Burst rejected = Burst.run(fault + " (breaker open)", 10, 2, () -> petApiClient.findPetsByTags("tag1"));
+
+        // Then
+        assertThat(hung.errors).isEqualTo(minCalls);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(rejected.failures).hasSize(10).allMatch(CircuitBreakerOpenException.class::isInstance);
+        assertThat(rejected.maxMillis()).isLessThan(ApiConfig.getDefaultTimeout() / 10);
+        verifyStatusCode(petApiClient.createPet(TestDataGenerator.generatePet()).getStatusCode(), 200);
+
+        // And when the endpoint recovers, trial calls close the breaker
+        chaosProxy.clearFaults();
+        TimeUnit.MILLISECONDS.sleep(breaker.getRemainingOpen().toMillis() + 50);
+        for (int i = 0; i < ApiConfig.getBreakerHalfOpenCalls(); i++) {
+            verifyStatusCode(petApiClient.findPetsByTags("tag1").getStatusCode(), 200);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getTransitionCount(CircuitBreaker.State.HALF_OPEN)).isGreaterThanOrEqualTo(1);
+    }
+
+    private static Long createPet() {
+        Pet pet = TestDataGenerator.generatePet();
+        Response response = petApiClient.createPet(pet);
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        return pet.getId();
+    }
+
+    /**
+     * Outcome of a number of calls spread over a few threads: each call's duration, and the
+     * calls that threw or answered with a server error.
+     */
+    private static final class Burst {
+        private final List<Long> millis = new ArrayList<>();
+        private final List<Exception> failures = new ArrayList<>();
+        private int errors;
+
+        static Burst run(String fault, int calls, int threads, Supplier<Response> call) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Outcome>> outcomes = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                outcomes.add(executor.submit(() -> Outcome.of(call)));
+            }
+            Burst burst = new Burst();
+            try {
+                for (Future<Outcome> future : outcomes) {
+                    Outcome outcome = future.get();
+                    burst.millis.add(outcome.millis);
+                    if (outcome.failure != null) {
+                        burst.failures.add(outcome.failure);
+                        burst.errors++;
+                    } else if (outcome.status >= 500) {
+                        burst.errors++;
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Burst under " + fault + " did not complete", e);
+            } finally {
+                executor.shutdownNow();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Collections.sort(burst.millis);
+            summary.add(String.format("%-44s %6d %6d %9.1f %9d %9d %9d%n", fault, calls, burst.errors,
+                    calls / seconds, burst.percentile(50), burst.percentile(99), burst.maxMillis()));
+            burst.failures.forEach(failure -> logger.debug("Call under {} failed", fault, failure));
+            return burst;
+        }
+
+        long percentile(double percentile) {
+            return millis.get((int) Math.min(millis.size() - 1, Math.ceil(percentile / 100 * millis.size()) - 1));
+        }
+
+        long minMillis() {
+            return millis.get(0);
+        }
+
+        long maxMillis() {
+            return millis.get(millis.size() - 1);
+        }
+    }
+
+    private static final class Outcome {
+        private int status;
+        private Exception failure;
+        private long millis;
+
+        static Outcome of(Supplier<Response> call) {
+            Outcome outcome = new Outcome();
+            long start = System.nanoTime();
+            try {
+                Response response = call.get();
+                response.asByteArray();
+                outcome.status = response.getStatusCode();
+            } catch (Exception e) {
+                outcome.failure = e;
+            }
+            outcome.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return outcome;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.petstore.api.client;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Client")
+@Story("Pet Cache")
+public class PetCacheTests {
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    @Test(description = "A read that raced an invalidation of its pet is not stored")
+    public void readRacingInvalidationIsNotStored() {
+        // Given
+        PetCache cache = new PetCache(10, TTL);
+        long readToken = cache.startRead();
+
+        // When
+        cache.invalidate(1L);
+        cache.put(1L, response(200), readToken);
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test(description = "Any invalidation during a read keeps that read out of the cache")
+    public void invalidationOfAnotherPetAlsoBlocksRacingRead() {
+        // Given
+        PetCache cache = new PetCache(10, TTL);
+        long readToken = cache.startRead();
+
+        // When
+        cache.invalidate(2L);
+        cache.put(1L, response(200), readToken);
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test(description = "A read started after an invalidation is stored and served")
+    public void readAfterInvalidationIsStored() {
+        // Given
+        PetCache cache = new PetCache(10, TTL);
+        cache.invalidate(1L);
+        Response response = response(200);
+
+        // When
+        cache.put(1L, response, cache.startRead());
+
+        // Then
+        assertThat(cache.get(1L)).isSameAs(response);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test(description = "Clearing the cache also keeps in-flight reads out")
+    public void clearBlocksRacingRead() {
+        // Given
+        PetCache cache = new PetCache(10, TTL);
+        cache.put(1L, response(200), cache.startRead());
+        long readToken = cache.startRead();
+
+        // When
+        cache.clear();
+        cache.put(2L, response(200), readToken);
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test(description = "Invalidating a cached pet drops it")
+    public void invalidationDropsEntry() {
+        // Given
+        PetCache cache = new PetCache(10, TTL);
+        cache.put(1L, response(200), cache.startRead());
+
+        // When
+        cache.invalidate(1L);
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test(description = "Only 200 responses are stored")
+    public void onlyOkResponsesAreStored() {
+        // Given
+        PetCache cache = new PetCache(10, TTL);
+
+        // When
+        cache.put(1L, response(404), cache.startRead());
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test(description = "The least recently used pet is evicted when the cache is full")
+    public void evictsLeastRecentlyUsed() {
+        // Given
+        PetCache cache = new PetCache(2, TTL);
+        cache.put(1L, response(200), cache.startRead());
+        cache.put(2L, response(200), cache.startRead());
+        cache.get(1L);
+
+        // When
+        cache.put(3L, response(200), cache.startRead());
+
+        // Then
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(3L)).isNotNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test(description = "Entries expire after their time to live")
+    public void entriesExpire() throws InterruptedException {
+        // Given
+        PetCache cache = new PetCache(10, Duration.ofMillis(50));
+        cache.put(1L, response(200), cache.startRead());
+
+        // When
+        Thread.sleep(100);
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getExpirationCount()).isEqualTo(1);
+    }
+
+    @Test(description = "A bypassed cache neither serves nor stores responses")
+    public void bypassedCacheIsInactive() {
+        // Given
+        PetCache cache = new PetCache(10, TTL);
+        cache.put(1L, response(200), cache.startRead());
+
+        // When
+        cache.setBypassed(true);
+        cache.put(2L, response(200), cache.startRead());
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+        cache.setBypassed(false);
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    private static Response response(int statusCode) {
+        return new ResponseBuilder()
+                .setStatusCode(statusCode)
+                .setStatusLine("HTTP/1.1 " + statusCode)
+                .setContentType("application/json")
+                .setBody("{\"id\":1,\"name\":\"doggie\"}")
+                .build();
+    }
+}
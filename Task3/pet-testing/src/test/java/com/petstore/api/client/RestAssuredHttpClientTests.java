@@ -0,0 +1,120 @@
+package com.petstore.api.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Feature("Client")
+@Story("HTTP Client Adapter")
+public class RestAssuredHttpClientTests {
+    private static final String CREDENTIALS = "Basic "
+            + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8));
+
+    private HttpServer server;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+        server.createContext("/old", exchange -> {
+            exchange.getResponseHeaders().set("Location", "/new");
+            reply(exchange, 302);
+        });
+        server.createContext("/new", exchange -> reply(exchange, 200));
+        server.createContext("/secure", exchange -> {
+            if (CREDENTIALS.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                reply(exchange, 200);
+            } else {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"pets\"");
+                reply(exchange, 401);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reply(exchange, 200);
+        });
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test(description = "Redirects are followed by default")
+    public void followsRedirectsByDefault() {
+        // When
+        Response response = given(HttpClientConfig.httpClientConfig()).get("/old");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+    }
+
+    @Test(description = "Turning off redirects in REST Assured reaches the wrapped client")
+    public void honoursRedirectConfig() {
+        // When
+        Response response = given(HttpClientConfig.httpClientConfig()).redirects().follow(false).get("/old");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(302);
+        assertThat(response.getHeader("Location")).isEqualTo("/new");
+    }
+
+    @Test(description = "Challenged basic auth answers the challenge with REST Assured's credentials")
+    public void answersAuthChallenge() {
+        // When
+        Response response = given(HttpClientConfig.httpClientConfig()).auth().basic("user", "secret").get("/secure");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+    }
+
+    @Test(description = "A read timeout set as a REST Assured client parameter overrides the client's default")
+    public void honoursTimeoutParameter() {
+        // Given
+        HttpClientConfig config = HttpClientConfig.httpClientConfig().setParam("http.socket.timeout", 200);
+
+        // When / Then
+        assertThatThrownBy(() -> given(config).get("/slow")).isInstanceOf(SocketTimeoutException.class);
+    }
+
+    private RequestSpecification given(HttpClientConfig httpClientConfig) {
+        RequestConfig defaults = RequestConfig.custom().setSocketTimeout(5000).build();
+        RestAssuredConfig config = RestAssuredConfig.config().httpClient(httpClientConfig
+                .httpClientFactory(() -> new RestAssuredHttpClient(HttpClientBuilder.create()
+                        .setDefaultRequestConfig(defaults)
+                        .disableCookieManagement()
+                        .disableContentCompression()
+                        .build())));
+        return RestAssured.given().config(config).baseUri("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    private static void reply(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+}
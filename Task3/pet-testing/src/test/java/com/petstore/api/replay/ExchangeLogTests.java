@@ -0,0 +1,136 @@
+package com.petstore.api.replay;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Record and Replay")
+@Story("Exchange Log Index")
+public class ExchangeLogTests {
+
+    @Test(description = "Every exchange is found by its key")
+    public void findsEveryKey() throws IOException {
+        // Given
+        Path path = write(tempLog(), 500);
+
+        // When
+        ExchangeLog log = ExchangeLog.open(path);
+
+        // Then
+        assertThat(log.size()).isEqualTo(500);
+        for (int i = 0; i < 500; i++) {
+            RecordedExchange exchange = log.findByKey("scope GET /pet/" + i + " - #1");
+            assertThat(exchange).isNotNull();
+            assertThat(exchange.getPath()).isEqualTo("/pet/" + i);
+            assertThat(new String(exchange.getResponseBody(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":" + i + "}");
+        }
+    }
+
+    @Test(description = "A request is answered with the first exchange recorded for its method and path")
+    public void findsFirstExchangeForRequest() throws IOException {
+        // Given
+        Path path = tempLog();
+        try (ExchangeLogWriter writer = new ExchangeLogWriter(path, 1, 0, 42)) {
+            writer.append(exchange("a", "GET", "/pet/1", 200));
+            writer.append(exchange("b", "GET", "/pet/1", 404));
+            writer.append(exchange("c", "DELETE", "/pet/1", 204));
+            writer.append(exchange("", "GET", "/pet/findByStatus?status=sold", 200));
+        }
+
+        // When
+        ExchangeLog log = ExchangeLog.open(path);
+
+        // Then
+        assertThat(log.findByRequest("GET", "/pet/1").getStatus()).isEqualTo(200);
+        assertThat(log.findByRequest("DELETE", "/pet/1").getStatus()).isEqualTo(204);
+        assertThat(log.findByKey("b").getStatus()).isEqualTo(404);
+        assertThat(log.findByRequest("GET", "/pet/findByStatus?status=sold")).isNotNull();
+        assertThat(log.findByRequest("GET", "/pet/findByStatus?status=pending")).isNull();
+        assertThat(log.findByRequest("PUT", "/pet/1")).isNull();
+        assertThat(log.findByKey("missing")).isNull();
+        assertThat(log.findByKey("")).isNull();
+    }
+
+    @Test(description = "The recorded run's ids and seed are read back from the header")
+    public void readsRecordedRun() throws IOException {
+        // Given
+        Path path = tempLog();
+        new ExchangeLogWriter(path, 321, 7, -99L).close();
+
+        // When
+        ExchangeLog log = ExchangeLog.open(path);
+
+        // Then
+        assertThat(log.getNamespace()).isEqualTo(321);
+        assertThat(log.getWorkerIndex()).isEqualTo(7);
+        assertThat(log.getDataSeed()).isEqualTo(-99L);
+        assertThat(log.size()).isZero();
+        assertThat(log.findByKey("scope GET /pet/1 - #1")).isNull();
+    }
+
+    @Test(description = "An index built for another log is rebuilt")
+    public void rebuildsStaleIndex() throws IOException {
+        // Given
+        Path path = write(tempLog(), 3);
+        Path staleIndex = Files.copy(ExchangeLog.indexPath(path), path.resolveSibling("stale.idx"));
+        write(path, 10);
+        Files.copy(staleIndex, ExchangeLog.indexPath(path), StandardCopyOption.REPLACE_EXISTING);
+
+        // When
+        ExchangeLog log = ExchangeLog.open(path);
+
+        // Then
+        assertThat(log.size()).isEqualTo(10);
+        assertThat(log.findByKey("scope GET /pet/9 - #1")).isNotNull();
+    }
+
+    @Test(description = "A record cut short ends the log")
+    public void ignoresTruncatedRecord() throws IOException {
+        // Given
+        Path path = write(tempLog(), 5);
+        Files.delete(ExchangeLog.indexPath(path));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // When
+        ExchangeLog log = ExchangeLog.open(path);
+
+        // Then
+        assertThat(log.size()).isEqualTo(4);
+        assertThat(log.findByKey("scope GET /pet/3 - #1")).isNotNull();
+        assertThat(log.findByKey("scope GET /pet/4 - #1")).isNull();
+    }
+
+    private static Path tempLog() throws IOException {
+        return Files.createTempDirectory("exchange-log").resolve("exchanges.petx");
+    }
+
+    private static Path write(Path path, int exchanges) throws IOException {
+        try (ExchangeLogWriter writer = new ExchangeLogWriter(path, 1, 0, 42)) {
+            for (int i = 0; i < exchanges; i++) {
+                RecordedExchange exchange = new RecordedExchange(0, 1_000_000, "scope GET /pet/" + i + " - #1",
+                        "GET", "/pet/{petId}", "/pet/" + i, List.of(Map.entry("Accept", "application/json")), null,
+                        200, List.of(), ("{\"id\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+                writer.append(exchange);
+            }
+        }
+        return path;
+    }
+
+    private static RecordedExchange exchange(String key, String method, String path, int status) {
+        return new RecordedExchange(0, 1_000_000, key, method, path, path, List.of(), null, status, List.of(), null);
+    }
+}
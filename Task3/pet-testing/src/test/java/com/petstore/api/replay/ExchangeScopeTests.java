@@ -0,0 +1,77 @@
+package com.petstore.api.replay;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Record and Replay")
+@Story("Exchange Keys")
+public class ExchangeScopeTests {
+
+    @AfterMethod(alwaysRun = true)
+    public void closeScope() {
+        ExchangeScope.close();
+    }
+
+    @Test(description = "Different requests keep their keys when sent in another order")
+    public void keysDoNotDependOnOrder() {
+        // Given
+        ExchangeScope.open("PetTests.update");
+        String read = ExchangeScope.nextKey("GET", "/pet/1", null);
+        String update = ExchangeScope.nextKey("PUT", "/pet", body("{\"id\":1}"));
+
+        // When
+        ExchangeScope.open("PetTests.update");
+        String updateFirst = ExchangeScope.nextKey("PUT", "/pet", body("{\"id\":1}"));
+        String readSecond = ExchangeScope.nextKey("GET", "/pet/1", null);
+
+        // Then
+        assertThat(updateFirst).isEqualTo(update);
+        assertThat(readSecond).isEqualTo(read);
+    }
+
+    @Test(description = "Identical requests are told apart by how many came before")
+    public void identicalRequestsAreCounted() {
+        // Given
+        ExchangeScope.open("PetTests.poll");
+
+        // When
+        String first = ExchangeScope.nextKey("GET", "/pet/1", null);
+        String other = ExchangeScope.nextKey("GET", "/pet/2", null);
+        String second = ExchangeScope.nextKey("GET", "/pet/1", null);
+
+        // Then
+        assertThat(first).isEqualTo("PetTests.poll GET /pet/1 - #1");
+        assertThat(other).isEqualTo("PetTests.poll GET /pet/2 - #1");
+        assertThat(second).isEqualTo("PetTests.poll GET /pet/1 - #2");
+    }
+
+    @Test(description = "Requests that differ only in their body get different keys")
+    public void bodyIsPartOfKey() {
+        // Given
+        ExchangeScope.open("PetTests.create");
+
+        // When
+        String rex = ExchangeScope.nextKey("POST", "/pet", body("{\"name\":\"Rex\"}"));
+        String max = ExchangeScope.nextKey("POST", "/pet", body("{\"name\":\"Max\"}"));
+
+        // Then
+        assertThat(rex).isNotEqualTo(max);
+        assertThat(rex).endsWith("#1");
+        assertThat(max).endsWith("#1");
+    }
+
+    @Test(description = "Requests outside a scope have no key")
+    public void noKeyOutsideScope() {
+        assertThat(ExchangeScope.nextKey("GET", "/pet/1", null)).isNull();
+    }
+
+    private static byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,161 @@
+package com.petstore.api.resilience;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Feature("Resilience")
+@Story("Concurrency Limiting")
+public class AdaptiveConcurrencyLimiterTests {
+    private static final long FAST_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test(description = "Fast responses under load raise the limit by about one per round of requests")
+    public void additiveIncrease() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 100);
+        holdSlots(limiter, 5);
+
+        // When
+        int releases = 0;
+        while (limiter.getLimit() == 10) {
+            limiter.acquire();
+            limiter.release(FAST_NANOS, false, null);
+            releases++;
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(11);
+        assertThat(releases).isBetween(10, 11);
+    }
+
+    @Test(description = "The limit does not grow while less than half of it is in use")
+    public void noIncreaseWhenLightlyLoaded() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 100);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(FAST_NANOS, false, null);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test(description = "The limit never grows past its maximum")
+    public void increaseStopsAtMaximum() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 5);
+        holdSlots(limiter, 3);
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire();
+            limiter.release(FAST_NANOS, false, null);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test(description = "Throttled and slow responses cut the limit multiplicatively")
+    public void multiplicativeDecrease() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 1, 100);
+
+        // When
+        limiter.acquire();
+        limiter.release(FAST_NANOS, true, Duration.ZERO);
+        int afterThrottle = limiter.getLimit();
+        limiter.acquire();
+        limiter.release(SLOW_NANOS, false, null);
+        int afterSlow = limiter.getLimit();
+
+        // Then
+        assertThat(afterThrottle).isEqualTo(90);
+        assertThat(afterSlow).isEqualTo(81);
+        assertThat(limiter.getThrottledCount()).isEqualTo(1);
+        assertThat(limiter.getSlowCount()).isEqualTo(1);
+    }
+
+    @Test(description = "The limit never falls below its minimum")
+    public void decreaseStopsAtMinimum() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 3, 10);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(SLOW_NANOS, false, null);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test(description = "Retry-After pauses every new request for the requested delay")
+    public void retryAfterPausesNewRequests() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 10);
+        limiter.acquire();
+        limiter.release(FAST_NANOS, true, Duration.ofMillis(300));
+
+        // When
+        long start = System.nanoTime();
+        limiter.acquire();
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertThat(waitedMillis).isGreaterThanOrEqualTo(250);
+    }
+
+    @Test(description = "A Retry-After longer than the maximum pause only pauses new requests for the maximum")
+    public void retryAfterIsCapped() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10,
+                Duration.ofMillis(100), Duration.ofSeconds(5), Duration.ofMillis(100));
+        limiter.acquire();
+
+        // When
+        limiter.release(FAST_NANOS, true, Duration.ofHours(1));
+
+        // Then
+        assertThat(limiter.getRemainingPause()).isLessThanOrEqualTo(Duration.ofMillis(100));
+        long start = System.nanoTime();
+        limiter.acquire();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+    }
+
+    @Test(description = "A caller over the limit fails once the maximum queue wait has passed")
+    public void queueWaitTimesOut() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1,
+                Duration.ofSeconds(1), Duration.ofMillis(100), Duration.ofSeconds(5));
+        limiter.acquire();
+
+        // When / Then
+        assertThatThrownBy(limiter::acquire).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("waiting for a request slot");
+        assertThat(limiter.getTimedOutCount()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(initial, min, max, Duration.ofMillis(100), Duration.ofSeconds(5),
+                Duration.ofSeconds(5));
+    }
+
+    private static void holdSlots(AdaptiveConcurrencyLimiter limiter, int slots) {
+        for (int i = 0; i < slots; i++) {
+            limiter.acquire();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.petstore.api.resilience;
+
+import com.petstore.api.resilience.CircuitBreaker.State;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Resilience")
+@Story("Circuit Breaking")
+public class CircuitBreakerTests {
+    private static final int MIN_CALLS = 4;
+    private static final int HALF_OPEN_CALLS = 2;
+    private static final Duration OPEN = Duration.ofMillis(50);
+    private static final long FAST_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    @Test(description = "The breaker opens once enough calls have failed, and not before the minimum number of calls")
+    public void opensAtFailureRate() {
+        // Given
+        CircuitBreaker breaker = breaker();
+        calls(breaker, MIN_CALLS - 1, FAST_NANOS, true);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+        // When
+        calls(breaker, 1, FAST_NANOS, false);
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+        assertThat(breaker.getRejectedCount()).isEqualTo(1);
+        assertThat(breaker.getTransitionCount(State.OPEN)).isEqualTo(1);
+    }
+
+    @Test(description = "Slow calls open the breaker even when they succeed")
+    public void opensAtSlowCallRate() {
+        // Given
+        CircuitBreaker breaker = breaker();
+
+        // When
+        calls(breaker, MIN_CALLS, SLOW_NANOS, false);
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test(description = "After the open duration a limited number of trials are let through, and passing trials close the breaker")
+    public void passingTrialsClose() throws InterruptedException {
+        // Given
+        CircuitBreaker breaker = openBreaker();
+        TimeUnit.MILLISECONDS.sleep(OPEN.toMillis() + 10);
+
+        // When
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+        breaker.record(first, FAST_NANOS, false);
+        breaker.record(second, FAST_NANOS, false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test(description = "A failing trial opens the breaker again")
+    public void failingTrialReopens() throws InterruptedException {
+        // Given
+        CircuitBreaker breaker = openBreaker();
+        TimeUnit.MILLISECONDS.sleep(OPEN.toMillis() + 10);
+
+        // When
+        calls(breaker, HALF_OPEN_CALLS, FAST_NANOS, true);
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.getTransitionCount(State.OPEN)).isEqualTo(2);
+    }
+
+    @Test(description = "A call permitted before the breaker opened does not count after it has closed again")
+    public void staleOutcomeIsIgnoredAfterRoundTrip() throws InterruptedException {
+        // Given
+        CircuitBreaker breaker = breaker();
+        long stale = breaker.tryAcquire();
+        calls(breaker, MIN_CALLS, FAST_NANOS, true);
+        TimeUnit.MILLISECONDS.sleep(OPEN.toMillis() + 10);
+        calls(breaker, HALF_OPEN_CALLS, FAST_NANOS, false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+        // When
+        breaker.record(stale, FAST_NANOS, true);
+        calls(breaker, MIN_CALLS - 1, FAST_NANOS, true);
+
+        // Then
+        // Counting the stale failure would make four failures and open the breaker.
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test(description = "A released trial permit can be used again, but a stale release returns nothing")
+    public void releaseReturnsTrialPermit() throws InterruptedException {
+        // Given
+        CircuitBreaker breaker = breaker();
+        long stale = breaker.tryAcquire();
+        calls(breaker, MIN_CALLS, FAST_NANOS, true);
+        TimeUnit.MILLISECONDS.sleep(OPEN.toMillis() + 10);
+        long first = breaker.tryAcquire();
+        breaker.tryAcquire();
+
+        // When
+        breaker.release(stale);
+        long rejected = breaker.tryAcquire();
+        breaker.release(first);
+
+        // Then
+        assertThat(rejected).isEqualTo(CircuitBreaker.REJECTED);
+        assertThat(breaker.tryAcquire()).isEqualTo(first);
+    }
+
+    @Test(description = "Only failures that reached the endpoint count against it")
+    public void localFailuresAreNotEndpointFailures() {
+        assertThat(CircuitBreakerFilter.isEndpointFailure(new RequestTimeoutException(
+                "GET /pet/{petId}", Duration.ofSeconds(1), true, "timed out", new SocketTimeoutException()))).isTrue();
+        assertThat(CircuitBreakerFilter.isEndpointFailure(new IOException("Connection reset"))).isTrue();
+        assertThat(CircuitBreakerFilter.isEndpointFailure(new RequestTimeoutException(
+                "GET /pet/{petId}", Duration.ofSeconds(1), false, "not sent", new SocketTimeoutException()))).isFalse();
+        assertThat(CircuitBreakerFilter.isEndpointFailure(
+                new IllegalStateException("Timed out after 10 ms waiting for a request slot"))).isFalse();
+    }
+
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker("GET /pet/{petId}", 10, MIN_CALLS, 50, Duration.ofSeconds(1), 80, OPEN,
+                HALF_OPEN_CALLS);
+    }
+
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = breaker();
+        calls(breaker, MIN_CALLS, FAST_NANOS, true);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        return breaker;
+    }
+
+    private static void calls(CircuitBreaker breaker, int count, long durationNanos, boolean failed) {
+        for (int i = 0; i < count; i++) {
+            breaker.record(breaker.tryAcquire(), durationNanos, failed);
+        }
+    }
+}
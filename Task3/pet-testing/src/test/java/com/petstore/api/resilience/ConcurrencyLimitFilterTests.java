@@ -0,0 +1,171 @@
+package com.petstore.api.resilience;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.util.TestDataGenerator;
+import com.sun.net.httpserver.HttpServer;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Resilience")
+@Story("Concurrency Limiting")
+public class ConcurrencyLimitFilterTests {
+    private static final int MAX_RETRIES = 2;
+
+    @Test(description = "Idempotent requests are retried on 503")
+    public void retriesIdempotentRequestsOn503() throws IOException {
+        try (ThrottlingServer server = new ThrottlingServer(503, "0");
+             Client client = new Client(server)) {
+            // When
+            Response read = client.pets.getPetById(1L);
+            Response update = client.pets.updatePet(TestDataGenerator.generatePet());
+            Response delete = client.pets.deletePet(1L);
+
+            // Then
+            assertThat(List.of(read.getStatusCode(), update.getStatusCode(), delete.getStatusCode()))
+                    .containsOnly(503);
+            assertThat(server.requests("GET")).isEqualTo(1 + MAX_RETRIES);
+            assertThat(server.requests("PUT")).isEqualTo(1 + MAX_RETRIES);
+            assertThat(server.requests("DELETE")).isEqualTo(1 + MAX_RETRIES);
+            assertThat(client.filter.getRetryCount()).isEqualTo(3L * MAX_RETRIES);
+        }
+    }
+
+    @Test(description = "A POST answered with 503 is returned, since the server may have created the pet")
+    public void doesNotRetryPostOn503() throws IOException {
+        try (ThrottlingServer server = new ThrottlingServer(503, "0");
+             Client client = new Client(server)) {
+            // When
+            Response response = client.pets.createPet(TestDataGenerator.generatePet());
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(503);
+            assertThat(server.requests("POST")).isEqualTo(1);
+            assertThat(client.filter.getRetryCount()).isZero();
+        }
+    }
+
+    @Test(description = "A POST answered with 429 and Retry-After is retried")
+    public void retriesPostOn429WithRetryAfter() throws IOException {
+        try (ThrottlingServer server = new ThrottlingServer(429, "0");
+             Client client = new Client(server)) {
+            // When
+            Response response = client.pets.createPet(TestDataGenerator.generatePet());
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(429);
+            assertThat(server.requests("POST")).isEqualTo(1 + MAX_RETRIES);
+        }
+    }
+
+    @Test(description = "A POST answered with 429 but no Retry-After is returned")
+    public void doesNotRetryPostOn429WithoutRetryAfter() throws IOException {
+        try (ThrottlingServer server = new ThrottlingServer(429, null);
+             Client client = new Client(server)) {
+            // When
+            Response response = client.pets.createPet(TestDataGenerator.generatePet());
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(429);
+            assertThat(server.requests("POST")).isEqualTo(1);
+        }
+    }
+
+    @Test(description = "A Retry-After longer than the queue wait returns the throttled response instead of failing")
+    public void longRetryAfterReturnsThrottledResponse() throws IOException {
+        try (ThrottlingServer server = new ThrottlingServer(503, "3600");
+             Client client = new Client(server, Duration.ofMillis(200), Duration.ofHours(1))) {
+            // When
+            long start = System.nanoTime();
+            Response response = client.pets.getPetById(1L);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(503);
+            assertThat(server.requests("GET")).isEqualTo(1);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test(description = "The pause after a throttled response is capped, so retries still go out")
+    public void retryAfterIsCappedByMaxPause() throws IOException {
+        try (ThrottlingServer server = new ThrottlingServer(503, "3600");
+             Client client = new Client(server, Duration.ofSeconds(5), Duration.ofMillis(50))) {
+            // When
+            Response response = client.pets.getPetById(1L);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(503);
+            assertThat(server.requests("GET")).isEqualTo(1 + MAX_RETRIES);
+        }
+    }
+
+    /**
+     * Answers every request to {@code /pet} with one status and counts requests by method.
+     */
+    private static final class ThrottlingServer implements AutoCloseable {
+        private final HttpServer server;
+        private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+        ThrottlingServer(int status, String retryAfter) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+            server.createContext("/pet", exchange -> {
+                requests.computeIfAbsent(exchange.getRequestMethod(), method -> new AtomicInteger()).incrementAndGet();
+                exchange.getRequestBody().readAllBytes();
+                if (retryAfter != null) {
+                    exchange.getResponseHeaders().set("Retry-After", retryAfter);
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            });
+            server.start();
+        }
+
+        String getBaseUri() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        int requests(String method) {
+            AtomicInteger count = requests.get(method);
+            return count != null ? count.get() : 0;
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+    private static final class Client implements AutoCloseable {
+        final HttpConnectionPool pool = new HttpConnectionPool(4, 4, Duration.ofSeconds(30));
+        final ConcurrencyLimitFilter filter;
+        final PetApiClient pets;
+
+        Client(ThrottlingServer server) {
+            this(server, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        }
+
+        Client(ThrottlingServer server, Duration maxQueueWait, Duration maxPause) {
+            filter = new ConcurrencyLimitFilter(new AdaptiveConcurrencyLimiter(
+                    4, 1, 4, Duration.ofSeconds(5), maxQueueWait, maxPause), MAX_RETRIES);
+            pets = new PetApiClient(server.getBaseUri(), pool, List.of(filter));
+        }
+
+        @Override
+        public void close() {
+            pets.close();
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.petstore.api.resilience;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.replay.ExchangeScope;
+import com.sun.net.httpserver.HttpServer;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Resilience")
+@Story("Request Hedging")
+public class RequestHedgerTests {
+    private static final String ENDPOINT = "GET /pet/{petId}";
+    // Latencies recorded in the first interval are only used once it ends.
+    private static final long REFRESH_WAIT_MILLIS = 1100;
+
+    @Test(description = "Nothing is hedged until the endpoint has enough samples")
+    public void noHedgeBeforeMinSamples() {
+        try (RequestHedger hedger = new RequestHedger(50, Duration.ofMillis(1), 10, 1.0)) {
+            // Given
+            AtomicInteger invocations = new AtomicInteger();
+
+            // When
+            String value = hedger.execute(ENDPOINT, () -> {
+                invocations.incrementAndGet();
+                sleep(50);
+                return "done";
+            });
+
+            // Then
+            assertThat(value).isEqualTo("done");
+            assertThat(invocations).hasValue(1);
+            assertThat(hedger.getHedgesSent()).isZero();
+            assertThat(hedger.getHedgeDelayNanos(ENDPOINT)).isEqualTo(-1);
+        }
+    }
+
+    @Test(description = "The hedge delay is the configured percentile of recent latency")
+    public void delayFollowsPercentile() {
+        try (RequestHedger hedger = new RequestHedger(95, Duration.ofMillis(1), 10, 0.0)) {
+            // Given
+            for (int i = 0; i < 10; i++) {
+                hedger.execute(ENDPOINT, () -> sleep(30));
+            }
+            sleep(REFRESH_WAIT_MILLIS);
+
+            // When
+            hedger.execute(ENDPOINT, () -> "refresh");
+
+            // Then
+            assertThat(hedger.getHedgeDelayNanos(ENDPOINT))
+                    .isBetween(TimeUnit.MILLISECONDS.toNanos(30), TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    @Test(description = "A fast endpoint is hedged no sooner than the minimum delay")
+    public void delayIsAtLeastMinDelay() {
+        try (RequestHedger hedger = new RequestHedger(95, Duration.ofMillis(50), 10, 0.0)) {
+            // Given
+            for (int i = 0; i < 10; i++) {
+                hedger.execute(ENDPOINT, () -> "fast");
+            }
+            sleep(REFRESH_WAIT_MILLIS);
+
+            // When
+            hedger.execute(ENDPOINT, () -> "refresh");
+
+            // Then
+            assertThat(hedger.getHedgeDelayNanos(ENDPOINT)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test(description = "Each call pays a share of a hedge, and slow calls over budget are not hedged")
+    public void hedgesAreCappedByBudget() {
+        try (RequestHedger hedger = new RequestHedger(50, Duration.ofMillis(1), 1, 0.25)) {
+            // Given
+            hedger.execute(ENDPOINT, () -> "warm-up");
+            sleep(REFRESH_WAIT_MILLIS);
+
+            // When
+            // Every call outlasts the delay and waits until the timer has decided on its hedge,
+            // so the outcome depends only on the budget. With the warm-up, calls 4 and 8 have
+            // saved up a whole hedge.
+            for (int i = 1; i <= 8; i++) {
+                long decided = i;
+                hedger.execute(ENDPOINT, () -> awaitCount(
+                        () -> hedger.getHedgesSent() + hedger.getHedgesOverBudget(), decided));
+            }
+
+            // Then
+            assertThat(hedger.getHedgesSent()).isEqualTo(2);
+            assertThat(hedger.getHedgesOverBudget()).isEqualTo(6);
+        }
+    }
+
+    @Test(description = "When the hedge answers first the stalled request is cancelled")
+    public void winningHedgeCancelsStalledRequest() throws IOException {
+        try (StallingServer server = new StallingServer();
+             RequestHedger hedger = new RequestHedger(50, Duration.ofMillis(100), 5, 1.0);
+             HttpConnectionPool pool = new HttpConnectionPool(4, 4, Duration.ofSeconds(30));
+             PetApiClient pets = new PetApiClient(server.getBaseUri(), pool, List.of())) {
+            // Given
+            pool.addRequestInterceptor(hedger.getConnectionInterceptor());
+            pets.setHedger(hedger);
+            for (int i = 0; i < 5; i++) {
+                pets.getPetById(1L);
+            }
+            sleep(REFRESH_WAIT_MILLIS);
+            server.stallNextRequest();
+
+            // When
+            long start = System.nanoTime();
+            Response response = pets.getPetById(1L);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(200);
+            assertThat(elapsedMillis).isLessThan(StallingServer.STALL_MILLIS / 2);
+            assertThat(hedger.getHedgesSent()).isEqualTo(1);
+            assertThat(hedger.getHedgesWon()).isEqualTo(1);
+        }
+    }
+
+    @Test(description = "A request cancelled because its hedge won does not count against the endpoint's breaker")
+    public void cancelledRequestIsNotABreakerFailure() throws IOException {
+        // A single failure would open this breaker.
+        CircuitBreakerFilter breakers = new CircuitBreakerFilter(endpoint -> new CircuitBreaker(endpoint, 10, 1, 1,
+                Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1));
+        try (StallingServer server = new StallingServer();
+             RequestHedger hedger = new RequestHedger(50, Duration.ofMillis(100), 5, 1.0);
+             HttpConnectionPool pool = new HttpConnectionPool(4, 4, Duration.ofSeconds(30));
+             PetApiClient pets = new PetApiClient(server.getBaseUri(), pool, List.of(breakers))) {
+            // Given
+            pool.addRequestInterceptor(hedger.getConnectionInterceptor());
+            pets.setHedger(hedger);
+            for (int i = 0; i < 5; i++) {
+                pets.getPetById(1L);
+            }
+            sleep(REFRESH_WAIT_MILLIS);
+            server.stallNextRequest();
+
+            // When
+            Response response = pets.getPetById(1L);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(200);
+            assertThat(hedger.getHedgesWon()).isEqualTo(1);
+            assertThat(breakers.getBreakers().get(ENDPOINT).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Test(description = "A hedge runs under the caller's deadline")
+    public void hedgeInheritsDeadline() {
+        try (RequestHedger hedger = new RequestHedger(50, Duration.ofMillis(1), 1, 1.0);
+             Deadline deadline = Deadline.start(Duration.ofSeconds(30))) {
+            // Given
+            hedger.execute(ENDPOINT, () -> "warm-up");
+            sleep(REFRESH_WAIT_MILLIS);
+            List<Deadline> seen = new CopyOnWriteArrayList<>();
+
+            // When
+            // Each copy notes its deadline and waits until both have, so the hedge is sent.
+            hedger.execute(ENDPOINT, () -> {
+                seen.add(Deadline.current());
+                return awaitCount(seen::size, 2);
+            });
+
+            // Then
+            assertThat(hedger.getHedgesSent()).isEqualTo(1);
+            assertThat(seen).containsExactly(deadline, deadline);
+        }
+    }
+
+    @Test(description = "Calls inside an exchange scope are never hedged")
+    public void noHedgeInsideExchangeScope() {
+        try (RequestHedger hedger = new RequestHedger(50, Duration.ofMillis(1), 1, 1.0)) {
+            // Given
+            hedger.execute(ENDPOINT, () -> "warm-up");
+            sleep(REFRESH_WAIT_MILLIS);
+            ExchangeScope.open("noHedgeInsideExchangeScope");
+
+            // When
+            try {
+                hedger.execute(ENDPOINT, () -> sleep(50));
+            } finally {
+                ExchangeScope.close();
+            }
+
+            // Then
+            assertThat(hedger.getHedgesSent()).isZero();
+            assertThat(hedger.getHedgesOverBudget()).isZero();
+        }
+    }
+
+    private static String sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "slept";
+    }
+
+    private static String awaitCount(LongSupplier count, long expected) {
+        long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsLong() < expected && System.nanoTime() < giveUpAt) {
+            sleep(1);
+        }
+        return "decided";
+    }
+
+    /**
+     * Answers {@code /pet} requests at once, except the one after {@link #stallNextRequest()},
+     * which is held for {@link #STALL_MILLIS}.
+     */
+    private static final class StallingServer implements AutoCloseable {
+        static final long STALL_MILLIS = 10_000;
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicBoolean stallNext = new AtomicBoolean();
+
+        StallingServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+            server.setExecutor(executor);
+            server.createContext("/pet", exchange -> {
+                if (stallNext.compareAndSet(true, false)) {
+                    sleep(STALL_MILLIS);
+                }
+                byte[] body = "{\"id\":1,\"name\":\"doggie\",\"status\":\"available\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+        }
+
+        String getBaseUri() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stallNextRequest() {
+            stallNext.set(true);
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
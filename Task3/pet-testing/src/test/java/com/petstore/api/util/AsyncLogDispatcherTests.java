@@ -0,0 +1,62 @@
+package com.petstore.api.util;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Logging")
+@Story("Async Dispatch")
+public class AsyncLogDispatcherTests {
+
+    @Test(description = "An event dispatched after the drainer went idle wakes it and is written")
+    public void idleDrainerIsWokenByNextEvent() throws InterruptedException {
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(16);
+        try {
+            // Given
+            dispatcher.dispatch(() -> "first");
+            awaitWritten(dispatcher, 1);
+            TimeUnit.MILLISECONDS.sleep(50);
+
+            // When
+            for (int i = 0; i < 10; i++) {
+                dispatcher.dispatch(() -> "next");
+            }
+
+            // Then
+            assertThat(awaitWritten(dispatcher, 11)).isTrue();
+            assertThat(dispatcher.getDroppedCount()).isZero();
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test(description = "Closing an idle dispatcher returns at once and drops later events")
+    public void closeStopsIdleDrainer() {
+        // Given
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(16);
+
+        // When
+        long start = System.nanoTime();
+        dispatcher.close();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertThat(elapsedMillis).isLessThan(1000);
+        assertThat(dispatcher.dispatch(() -> "late")).isFalse();
+    }
+
+    private static boolean awaitWritten(AsyncLogDispatcher dispatcher, long count) throws InterruptedException {
+        long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcher.getWrittenCount() < count) {
+            if (System.nanoTime() > giveUpAt) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package com.petstore.api.util;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Error Handling")
+@Story("Error Response Decoding")
+public class ErrorResponseDecoderTests {
+    private static final String JSON = "application/json";
+
+    @Test(description = "Code, type and message are read from a JSON error body")
+    public void readsErrorFields() {
+        // Given
+        byte[] body = utf8("{\"details\":{\"code\":1},\"code\":404,\"type\":\"error\",\"message\":\"Pet not found\"}");
+
+        // When
+        ErrorResponse error = decode(JSON + "; charset=utf-8", body, 1024);
+
+        // Then
+        assertThat(error.getStatusCode()).isEqualTo(404);
+        assertThat(error.getCode()).isEqualTo(404);
+        assertThat(error.getType()).isEqualTo("error");
+        assertThat(error.getMessage()).isEqualTo("Pet not found");
+        assertThat(error.getBodyExcerpt()).isEqualTo(new String(body, StandardCharsets.UTF_8));
+        assertThat(error.isBodyTruncated()).isFalse();
+    }
+
+    @Test(description = "A numeric string code is accepted and a non-integer code is dropped")
+    public void readsCodeLeniently() {
+        assertThat(decode(JSON, utf8("{\"code\":\" 500 \"}"), 1024).getCode()).isEqualTo(500);
+        assertThat(decode(JSON, utf8("{\"code\":\"oops\"}"), 1024).getCode()).isNull();
+        assertThat(decode(JSON, utf8("{\"code\":4.5}"), 1024).getCode()).isNull();
+    }
+
+    @Test(description = "Fields are only parsed from JSON, and invalid JSON keeps what was read")
+    public void toleratesOtherBodies() {
+        // When
+        ErrorResponse html = decode("text/html", utf8("{\"message\":\"not parsed\"}"), 1024);
+        ErrorResponse broken = decode(JSON, utf8("{\"message\":\"partial\",\"code\":"), 1024);
+
+        // Then
+        assertThat(html.getMessage()).isNull();
+        assertThat(html.getBodyExcerpt()).isEqualTo("{\"message\":\"not parsed\"}");
+        assertThat(broken.getMessage()).isEqualTo("partial");
+        assertThat(broken.getCode()).isNull();
+    }
+
+    @Test(description = "A long body is cut at the byte limit and reported as truncated")
+    public void truncatesLongBody() {
+        // Given
+        byte[] body = utf8("{\"message\":\"" + "x".repeat(100) + "\"}");
+
+        // When
+        ErrorResponse error = decode(JSON, body, 20);
+
+        // Then
+        assertThat(error.getBodyExcerpt()).isEqualTo("{\"message\":\"xxxxxxxx");
+        assertThat(error.getBodyLength()).isEqualTo(body.length);
+        assertThat(error.isBodyTruncated()).isTrue();
+        assertThat(error.getMessage()).isEqualTo("x".repeat(100));
+    }
+
+    @Test(description = "Truncation never splits a multi-byte character")
+    public void truncationKeepsCharactersWhole() {
+        // Given
+        // 'a' is one byte, the euro sign three and the dog emoji four.
+        byte[] body = utf8("a€🐕b");
+
+        // When / Then
+        assertThat(ErrorResponseDecoder.excerpt(body, 1)).isEqualTo("a");
+        assertThat(ErrorResponseDecoder.excerpt(body, 2)).isEqualTo("a");
+        assertThat(ErrorResponseDecoder.excerpt(body, 3)).isEqualTo("a");
+        assertThat(ErrorResponseDecoder.excerpt(body, 4)).isEqualTo("a€");
+        assertThat(ErrorResponseDecoder.excerpt(body, 7)).isEqualTo("a€");
+        assertThat(ErrorResponseDecoder.excerpt(body, 8)).isEqualTo("a€🐕");
+        assertThat(ErrorResponseDecoder.excerpt(body, 100)).isEqualTo("a€🐕b");
+        assertThat(ErrorResponseDecoder.excerpt(body, 0)).isEmpty();
+    }
+
+    private static ErrorResponse decode(String contentType, byte[] body, int maxBodyBytes) {
+        return ErrorResponseDecoder.decode(404, "HTTP/1.1 404 Not Found", contentType, body, maxBodyBytes,
+                new ErrorResponse());
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
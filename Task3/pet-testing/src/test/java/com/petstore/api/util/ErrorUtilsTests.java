@@ -0,0 +1,93 @@
+package com.petstore.api.util;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Error Handling")
+@Story("Error Details")
+public class ErrorUtilsTests {
+
+    @DataProvider
+    public Object[][] errorBodies() {
+        return new Object[][] {
+                {"{\"code\":404,\"type\":\"error\",\"message\":\"Pet not found\"}"},
+                {"{\"code\":\"500\",\"type\":\"unknown\",\"message\":\"something bad happened\"}"},
+                {"{\"code\":5000000000,\"message\":42}"},
+                {"{\"code\":99999999999999999999,\"type\":true}"},
+                {"{\"code\":4.5,\"message\":1.0e300}"},
+                {"{\"code\":null,\"type\":{\"kind\":\"validation\",\"fields\":[\"name\",1.5]},\"message\":[1,2]}"},
+                {"{\"details\":{\"code\":1}}"},
+        };
+    }
+
+    @Test(dataProvider = "errorBodies",
+            description = "Error details keep the keys and value types the jsonPath() implementation returned")
+    public void extractErrorDetailsMatchesJsonPath(String body) {
+        // Given
+        Response response = response(body);
+
+        // When
+        Map<String, Object> details = ErrorUtils.extractErrorDetails(response);
+
+        // Then
+        Map<String, Object> expected = extractWithJsonPath(response);
+        assertThat(details).isEqualTo(expected);
+        details.forEach((key, value) -> {
+            if (value != null) {
+                assertThat(value).as(key).hasSameClassAs(expected.get(key));
+            }
+        });
+    }
+
+    @Test(description = "A string code stays a string and large codes keep their integral type")
+    public void codeTypesArePreserved() {
+        assertThat(ErrorUtils.extractErrorDetails(response("{\"code\":\"500\"}")).get("code")).isEqualTo("500");
+        assertThat(ErrorUtils.extractErrorDetails(response("{\"code\":5000000000}")).get("code"))
+                .isEqualTo(5_000_000_000L);
+        assertThat(ErrorUtils.extractErrorDetails(response("{\"code\":99999999999999999999}")).get("code"))
+                .isEqualTo(new BigInteger("99999999999999999999"));
+        assertThat(ErrorUtils.extractErrorDetails(response("{\"message\":[1,2]}")).get("message"))
+                .isEqualTo(List.of(1, 2));
+    }
+
+    private static Response response(String body) {
+        return new ResponseBuilder()
+                .setStatusCode(400)
+                .setStatusLine("HTTP/1.1 400 Bad Request")
+                .setContentType("application/json")
+                .setBody(body)
+                .build();
+    }
+
+    /**
+     * The implementation extractErrorDetails had before it was moved to the streaming decoder.
+     */
+    private static Map<String, Object> extractWithJsonPath(Response response) {
+        Map<String, Object> errorDetails = new HashMap<>();
+        if (response.getContentType().contains("application/json")) {
+            if (response.jsonPath().get("message") != null) {
+                errorDetails.put("message", response.jsonPath().get("message"));
+            }
+            if (response.jsonPath().get("code") != null) {
+                errorDetails.put("code", response.jsonPath().get("code"));
+            }
+            if (response.jsonPath().get("type") != null) {
+                errorDetails.put("type", response.jsonPath().get("type"));
+            }
+        }
+        errorDetails.put("statusCode", response.getStatusCode());
+        errorDetails.put("statusLine", response.getStatusLine());
+        return errorDetails;
+    }
+}
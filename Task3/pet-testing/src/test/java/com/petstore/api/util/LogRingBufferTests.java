@@ -0,0 +1,140 @@
+package com.petstore.api.util;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Logging")
+@Story("Ring Buffer")
+public class LogRingBufferTests {
+
+    @Test(description = "Capacity is rounded up to a power of two")
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertThat(new LogRingBuffer<>(1).capacity()).isEqualTo(2);
+        assertThat(new LogRingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new LogRingBuffer<>(8).capacity()).isEqualTo(8);
+    }
+
+    @Test(description = "Elements come out in order across many laps of the ring")
+    public void wrapsAroundInOrder() {
+        // Given
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        List<Integer> polled = new ArrayList<>();
+
+        // When
+        // Three in, three out shifts the start by one slot per lap, so every slot is reused at every offset.
+        int next = 0;
+        for (int lap = 0; lap < 20; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(next++)).isTrue();
+            }
+            for (int i = 0; i < 3; i++) {
+                polled.add(buffer.poll());
+            }
+        }
+
+        // Then
+        assertThat(polled).hasSize(60);
+        for (int i = 0; i < polled.size(); i++) {
+            assertThat(polled.get(i)).isEqualTo(i);
+        }
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test(description = "The buffer is empty until an element is offered and again once it is polled")
+    public void tracksEmptiness() {
+        // Given
+        LogRingBuffer<String> buffer = new LogRingBuffer<>(2);
+        assertThat(buffer.isEmpty()).isTrue();
+
+        // When
+        buffer.offer("a");
+
+        // Then
+        assertThat(buffer.isEmpty()).isFalse();
+        buffer.poll();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test(description = "A full buffer rejects new elements instead of overwriting buffered ones")
+    public void fullBufferRejectsWithoutOverwriting() {
+        // Given
+        LogRingBuffer<String> buffer = new LogRingBuffer<>(4);
+        buffer.offer("a");
+        buffer.poll();
+        for (String element : new String[] {"b", "c", "d", "e"}) {
+            assertThat(buffer.offer(element)).isTrue();
+        }
+
+        // When
+        boolean accepted = buffer.offer("f");
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(buffer.poll()).isEqualTo("b");
+        assertThat(buffer.offer("f")).isTrue();
+        assertThat(List.of(buffer.poll(), buffer.poll(), buffer.poll(), buffer.poll()))
+                .containsExactly("c", "d", "e", "f");
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test(description = "Concurrent producers lose and duplicate nothing while a consumer drains")
+    public void concurrentProducersLoseNothing() throws Exception {
+        // Given
+        int producers = 4;
+        int perProducer = 20_000;
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        BitSet seen = new BitSet(producers * perProducer);
+        int duplicates = 0;
+
+        // When
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int first = p * perProducer;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < first + perProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+            int received = 0;
+            long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (received < producers * perProducer && System.nanoTime() < giveUpAt) {
+                Integer element = buffer.poll();
+                if (element == null) {
+                    Thread.yield();
+                    continue;
+                }
+                if (seen.get(element)) {
+                    duplicates++;
+                }
+                seen.set(element);
+                received++;
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(duplicates).isZero();
+        assertThat(seen.cardinality()).isEqualTo(producers * perProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+}
@@ -0,0 +1,124 @@
+package com.petstore.api.util;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Feature("Test Data")
+@Story("Pet Id Allocation")
+public class PetIdAllocatorTests {
+
+    @Test(description = "Threads sharing an allocator never receive the same id")
+    public void threadsReceiveUniqueIds() throws Exception {
+        // Given
+        PetIdAllocator allocator = new PetIdAllocator(7, 0);
+        int threads = 4;
+        // More than two blocks per thread, so every thread claims blocks while the others do.
+        int perThread = (int) (2.5 * PetIdAllocator.BLOCK_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        Set<Long> ids = new HashSet<>();
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> allocated = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        allocated.add(allocator.nextId());
+                    }
+                    return allocated;
+                }));
+            }
+            for (Future<List<Long>> future : futures) {
+                ids.addAll(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(ids).hasSize(threads * perThread);
+        assertThat(ids).allMatch(id -> id > 0 && allocator.isInNamespace(id));
+    }
+
+    @Test(description = "Workers of one run allocate from disjoint ranges")
+    public void workersDoNotOverlap() {
+        // Given
+        PetIdAllocator first = new PetIdAllocator(7, 0);
+        PetIdAllocator second = new PetIdAllocator(7, 1);
+        PetIdAllocator otherRun = new PetIdAllocator(8, 0);
+
+        // When
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(first.nextId());
+            ids.add(second.nextId());
+            ids.add(otherRun.nextId());
+        }
+        long reserved = second.reserve(10);
+
+        // Then
+        assertThat(ids).hasSize(3000);
+        assertThat(ids).doesNotContain(reserved);
+        assertThat(first.isInNamespace(second.nextId())).isTrue();
+        assertThat(first.isInNamespace(otherRun.nextId())).isFalse();
+    }
+
+    @Test(description = "A reserved range is never handed out again")
+    public void reservedRangeIsExclusive() {
+        // Given
+        PetIdAllocator allocator = new PetIdAllocator(7, 0);
+        long count = PetIdAllocator.BLOCK_SIZE + 1;
+
+        // When
+        long first = allocator.reserve(count);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 3 * PetIdAllocator.BLOCK_SIZE; i++) {
+            ids.add(allocator.nextId());
+        }
+
+        // Then
+        assertThat(ids).noneMatch(id -> id >= first && id < first + count);
+    }
+
+    @Test(description = "Keyed blocks are the same in every run and apart from allocated ids")
+    public void keyedBlocksAreStable() {
+        // Given
+        PetIdAllocator allocator = new PetIdAllocator(7, 0);
+        PetIdAllocator rerun = new PetIdAllocator(7, 0);
+
+        // When
+        long block = allocator.keyedBlock("PetTests.createPet");
+        long allocated = allocator.nextId();
+
+        // Then
+        assertThat(rerun.keyedBlock("PetTests.createPet")).isEqualTo(block);
+        assertThat(allocator.keyedBlock("PetTests.deletePet")).isNotEqualTo(block);
+        assertThat(allocator.isInNamespace(block)).isTrue();
+        long sequenceMask = (1L << PetIdAllocator.SEQUENCE_BITS) - 1;
+        assertThat(block & sequenceMask).isGreaterThanOrEqualTo(1L << (PetIdAllocator.SEQUENCE_BITS - 1));
+        assertThat(allocated & sequenceMask).isLessThan(1L << (PetIdAllocator.SEQUENCE_BITS - 1));
+    }
+
+    @Test(description = "Namespaces and worker indexes outside their fields are rejected")
+    public void rejectsOutOfRangeFields() {
+        assertThatThrownBy(() -> new PetIdAllocator(PetIdAllocator.MAX_NAMESPACE + 1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PetIdAllocator(0, PetIdAllocator.MAX_WORKER_INDEX + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PetIdAllocator(-1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
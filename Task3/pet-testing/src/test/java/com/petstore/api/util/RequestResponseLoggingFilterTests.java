@@ -0,0 +1,50 @@
+package com.petstore.api.util;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Logging")
+@Story("Request Logging")
+public class RequestResponseLoggingFilterTests {
+
+    @Test(description = "A string body is cut by its UTF-8 bytes and never inside a surrogate pair")
+    public void stringBodyIsCutByBytesAtCharacterBoundary() {
+        // Given
+        // "ab" is 2 bytes and the emoji, a surrogate pair, 4 more.
+        RequestResponseLoggingFilter filter = filter(5);
+
+        // When
+        String formatted = filter.formatBody("ab😀cd");
+
+        // Then
+        assertThat(formatted).isEqualTo("ab... (8 bytes)");
+    }
+
+    @Test(description = "A byte body is cut before a multi-byte character that does not fit")
+    public void byteBodyIsCutAtCharacterBoundary() {
+        // Given
+        byte[] body = "héllo".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        String formatted = filter(2).formatBody(body);
+
+        // Then
+        assertThat(formatted).isEqualTo("h... (6 bytes)");
+    }
+
+    @Test(description = "A body within the limit is written whole")
+    public void shortBodyIsWrittenWhole() {
+        assertThat(filter(8).formatBody("ab😀cd")).isEqualTo("ab😀cd");
+        assertThat(filter(8).formatBody(null)).isEqualTo("null");
+    }
+
+    private static RequestResponseLoggingFilter filter(int maxBodyBytes) {
+        return new RequestResponseLoggingFilter(0, Set.of(), maxBodyBytes, null);
+    }
+}
@@ -1,37 +1,53 @@
 package com.petstore.api.util;
 
-import com.github.javafaker.Faker;
-import com.petstore.model.Category;
 import com.petstore.model.Pet;
 import com.petstore.model.Tag;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Test fixtures, generated by the calling thread's {@link FastPetGenerator}. Pet ids come
+ * from {@link PetIdAllocator#shared()}, so tests running in parallel never share a pet.
+ * <p>
+ * Inside a {@link #startScope(String) scope} the data depends only on the scope's name, the
+ * data seed and the id namespace, so a recorded test sends the same requests when replayed,
+ * whatever order or thread it runs in.
+ */
 public class TestDataGenerator {
-    private static final Faker faker = new Faker();
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    /**
+     * Makes the calling thread's data reproducible until {@link #endScope()}.
+     */
+    public static void startScope(String name) {
+        startScope(name, PetIdAllocator.shared(), FastPetGenerator.getRootSeed());
+    }
+
+    /**
+     * Makes the calling thread's data reproducible, deriving it from the given id allocator and
+     * data seed instead of this run's, e.g. those a replayed log was recorded with.
+     */
+    public static void startScope(String name, PetIdAllocator ids, long dataSeed) {
+        SCOPE.set(new Scope(name, ids, dataSeed));
+    }
+
+    public static void endScope() {
+        SCOPE.remove();
+    }
 
     public static Pet generatePet() {
-        Pet pet = new Pet();
-        pet.setId(generateRandomId());
-        pet.setName(generateRandomName());
-        pet.setCategory(generateCategory());
-        pet.setPhotoUrls(generatePhotoUrls());
-        pet.setTags(generateTags());
-        pet.setStatus("available");
-        return pet;
+        return generator().nextPet(generateRandomId(), "available");
     }
 
     public static Long generateRandomId() {
-        return faker.number().randomNumber();
+        Scope scope = SCOPE.get();
+        return scope != null ? scope.nextId() : PetIdAllocator.shared().nextId();
     }
 
     public static String generateRandomName() {
-        return faker.funnyName().name();
+        return generator().nextName();
     }
 
     public static String generateRandomPhotoUrl() {
-        return faker.internet().image();
+        return generator().nextPhotoUrl();
     }
 
     public static Tag generateTag(Long id, String name) {
@@ -41,25 +57,26 @@ public class TestDataGenerator {
         return tag;
     }
 
-    private static Category generateCategory() {
-        Category category = new Category();
-        category.setId(faker.number().randomNumber());
-        category.setName(faker.animal().name());
-        return category;
+    private static FastPetGenerator generator() {
+        Scope scope = SCOPE.get();
+        return scope != null ? scope.generator : FastPetGenerator.current();
     }
 
-    private static List<String> generatePhotoUrls() {
-        List<String> photoUrls = new ArrayList<>();
-        photoUrls.add(faker.internet().image());
-        return photoUrls;
-    }
+    private static final class Scope {
+        final FastPetGenerator generator;
+        final long firstId;
+        long ids;
 
-    private static List<Tag> generateTags() {
-        List<Tag> tags = new ArrayList<>();
-        Tag tag = new Tag();
-        tag.setId(faker.number().randomNumber());
-        tag.setName(faker.lorem().word());
-        tags.add(tag);
-        return tags;
+        Scope(String name, PetIdAllocator ids, long dataSeed) {
+            this.generator = FastPetGenerator.forKey(dataSeed, name);
+            this.firstId = ids.keyedBlock(name);
+        }
+
+        long nextId() {
+            if (ids == PetIdAllocator.BLOCK_SIZE) {
+                throw new IllegalStateException("A scope can generate at most " + PetIdAllocator.BLOCK_SIZE + " ids");
+            }
+            return firstId + ids++;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.petstore.benchmark;
+
+import com.petstore.api.client.HttpConnectionPool;
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.util.RequestResponseLoggingFilter;
+import com.petstore.model.Pet;
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the client's per-request overhead against {@link StubPetServer}: building a
+ * request specification, and complete round trips with and without the client's filter chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientRequestBenchmark {
+    private StubPetServer server;
+    private HttpConnectionPool connectionPool;
+    private PetApiClient pooledClient;
+    private PetApiClient defaultClient;
+    private RequestSpecification bareSpec;
+    private RequestResponseLoggingFilter loggingFilter;
+    private Pet pet;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = new StubPetServer();
+        connectionPool = new HttpConnectionPool(16, 16, Duration.ofSeconds(30));
+        pooledClient = new PetApiClient(server.getBaseUri(), connectionPool);
+        defaultClient = new PetApiClient(server.getBaseUri());
+        bareSpec = new RequestSpecBuilder()
+                .setBaseUri(server.getBaseUri())
+                .setConfig(connectionPool.getRestAssuredConfig())
+                .addFilter(connectionPool.getReleaseFilter())
+                .setContentType(ContentType.JSON)
+                .build();
+        loggingFilter = new RequestResponseLoggingFilter();
+        pet = pooledClient.getPetById(1L).as(Pet.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        server.close();
+    }
+
+    @Benchmark
+    public RequestSpecification buildRequest() {
+        return RestAssured.given()
+                .spec(bareSpec)
+                .filter(loggingFilter)
+                .pathParams(Collections.singletonMap("petId", 1L))
+                .body(pet);
+    }
+
+    @Benchmark
+    public Response getPetWithoutClientFilters() {
+        return RestAssured.given().spec(bareSpec).pathParam("petId", 1L).get("/pet/{petId}");
+    }
+
+    @Benchmark
+    public Response getPetPooledClient() {
+        return pooledClient.getPetById(1L);
+    }
+
+    @Benchmark
+    public Response getPetUnpooledClient() {
+        return defaultClient.getPetById(1L);
+    }
+
+    @Benchmark
+    public Response createPetPooledClient() {
+        return pooledClient.createPet(pet);
+    }
+}
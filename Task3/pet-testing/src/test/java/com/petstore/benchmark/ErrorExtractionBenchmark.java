@@ -0,0 +1,82 @@
+package com.petstore.benchmark;
+
+import com.petstore.api.client.PetApiClient;
+import com.petstore.api.util.ErrorResponse;
+import com.petstore.api.util.ErrorResponseDecoder;
+import com.petstore.api.util.ErrorUtils;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ErrorUtils} on a real 404 JSON error response, against the
+ * {@code jsonPath()} implementation it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorExtractionBenchmark {
+    private Response errorResponse;
+    private final ErrorResponse reused = new ErrorResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        try (StubPetServer server = new StubPetServer()) {
+            errorResponse = new PetApiClient(server.getBaseUri()).getPetById(StubPetServer.MISSING_PET_ID);
+            errorResponse.asByteArray();
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> extractErrorDetails() {
+        return ErrorUtils.extractErrorDetails(errorResponse);
+    }
+
+    @Benchmark
+    public ErrorResponse decodeIntoReusedInstance() {
+        return ErrorResponseDecoder.decode(errorResponse, reused);
+    }
+
+    @Benchmark
+    public String getErrorMessage() {
+        return ErrorUtils.getErrorMessage(errorResponse);
+    }
+
+    /**
+     * The previous {@link ErrorUtils#extractErrorDetails} implementation, which re-parses
+     * the body through {@code jsonPath()} for every field lookup.
+     */
+    @Benchmark
+    public Map<String, Object> extractErrorDetailsWithJsonPath() {
+        Map<String, Object> errorDetails = new HashMap<>();
+        if (errorResponse.getContentType().contains("application/json")) {
+            if (errorResponse.jsonPath().get("message") != null) {
+                errorDetails.put("message", errorResponse.jsonPath().get("message"));
+            }
+            if (errorResponse.jsonPath().get("code") != null) {
+                errorDetails.put("code", errorResponse.jsonPath().get("code"));
+            }
+            if (errorResponse.jsonPath().get("type") != null) {
+                errorDetails.put("type", errorResponse.jsonPath().get("type"));
+            }
+        }
+        errorDetails.put("statusCode", errorResponse.getStatusCode());
+        errorDetails.put("statusLine", errorResponse.getStatusLine());
+        return errorDetails;
+    }
+}
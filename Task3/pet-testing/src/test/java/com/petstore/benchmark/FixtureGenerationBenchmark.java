@@ -0,0 +1,76 @@
+package com.petstore.benchmark;
+
+import com.github.javafaker.Faker;
+import com.petstore.api.util.TestDataGenerator;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures pets generated per second through {@link TestDataGenerator} against the Faker
+ * path it replaced, on one thread and with a thread per core sharing the generators. Divide
+ * the {@code Threads.MAX} scores by the core count for pets per second per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixtureGenerationBenchmark {
+    private final Faker faker = new Faker();
+
+    @Benchmark
+    public Pet generatePet() {
+        return TestDataGenerator.generatePet();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Pet generatePetAllCores() {
+        return TestDataGenerator.generatePet();
+    }
+
+    @Benchmark
+    public Long generateRandomId() {
+        return TestDataGenerator.generateRandomId();
+    }
+
+    @Benchmark
+    public Pet generatePetWithFaker() {
+        return fakerPet();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Pet generatePetWithFakerAllCores() {
+        return fakerPet();
+    }
+
+    /**
+     * The previous {@link TestDataGenerator} implementation: one shared Faker, six calls per pet.
+     */
+    private Pet fakerPet() {
+        List<String> photoUrls = new ArrayList<>();
+        photoUrls.add(faker.internet().image());
+        List<Tag> tags = new ArrayList<>();
+        tags.add(new Tag(faker.number().randomNumber(), faker.lorem().word()));
+        return new Pet(faker.number().randomNumber(),
+                new Category(faker.number().randomNumber(), faker.animal().name()),
+                faker.funnyName().name(), photoUrls, tags, "available");
+    }
+}
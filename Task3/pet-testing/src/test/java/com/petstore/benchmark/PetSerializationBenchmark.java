@@ -0,0 +1,104 @@
+package com.petstore.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+import com.petstore.model.json.ObjectMappers;
+import com.petstore.model.json.PetCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Pet (de)serialization paths: REST Assured's default Jackson mapping, which
+ * builds a new ObjectMapper for every body, a reused reflection-based mapper, the shared
+ * mapper with the codec module registered, and the streaming codec called directly as the
+ * client does.
+ * <p>
+ * Run {@link #main} to print ns/op alongside {@code gc.alloc.rate.norm} (bytes allocated per pet).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetSerializationBenchmark {
+    private final ObjectMapper reflectiveMapper = new ObjectMapper();
+    private Pet pet;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws Exception {
+        pet = new Pet(9_223_372_036_854L,
+                new Category(7L, "Dogs"),
+                "doggie",
+                Arrays.asList("https://example.com/photos/1.jpg", "https://example.com/photos/2.jpg"),
+                List.of(new Tag(1L, "friendly"), new Tag(2L, "vaccinated")),
+                "available");
+        json = PetCodec.toBytes(pet);
+    }
+
+    @Benchmark
+    public byte[] serializeWithNewMapper() throws Exception {
+        return new ObjectMapper().findAndRegisterModules().writeValueAsBytes(pet);
+    }
+
+    @Benchmark
+    public byte[] serializeWithReusedReflectiveMapper() throws Exception {
+        return reflectiveMapper.writeValueAsBytes(pet);
+    }
+
+    @Benchmark
+    public byte[] serializeWithSharedMapper() throws Exception {
+        return ObjectMappers.shared().writeValueAsBytes(pet);
+    }
+
+    @Benchmark
+    public byte[] serializeWithCodec() {
+        return PetCodec.toBytes(pet);
+    }
+
+    @Benchmark
+    public Pet deserializeWithNewMapper() throws Exception {
+        return new ObjectMapper().findAndRegisterModules().readValue(json, Pet.class);
+    }
+
+    @Benchmark
+    public Pet deserializeWithReusedReflectiveMapper() throws Exception {
+        return reflectiveMapper.readValue(json, Pet.class);
+    }
+
+    @Benchmark
+    public Pet deserializeWithSharedMapper() throws Exception {
+        return ObjectMappers.shared().readValue(json, Pet.class);
+    }
+
+    @Benchmark
+    public Pet deserializeWithCodec() {
+        return PetCodec.fromBytes(json);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PetSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
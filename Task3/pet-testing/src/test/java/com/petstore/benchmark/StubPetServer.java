@@ -0,0 +1,79 @@
+package com.petstore.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal in-process HTTP server with canned Pet API responses, so client benchmarks
+ * measure client overhead rather than a remote server.
+ * <p>
+ * {@code GET /pet/{id}} returns a fixed pet, or a JSON error for {@link #MISSING_PET_ID};
+ * {@code POST} and {@code PUT /pet} echo the request body.
+ */
+public class StubPetServer implements AutoCloseable {
+    public static final long MISSING_PET_ID = 404L;
+
+    private static final byte[] PET = ("{\"id\":1,\"category\":{\"id\":1,\"name\":\"Dogs\"},\"name\":\"doggie\","
+            + "\"photoUrls\":[\"https://example.com/1.jpg\"],\"tags\":[{\"id\":1,\"name\":\"friendly\"}],"
+            + "\"status\":\"available\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_FOUND = "{\"code\":1,\"type\":\"error\",\"message\":\"Pet not found\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    static {
+        // Without TCP_NODELAY the JDK server's separate header and body writes stall on
+        // delayed ACKs for every request on a kept-alive connection.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public StubPetServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        executor = Executors.newFixedThreadPool(4);
+        server.setExecutor(executor);
+        server.createContext("/pet", this::handle);
+        server.start();
+    }
+
+    public String getBaseUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        byte[] body;
+        int status = 200;
+        if (("POST".equals(method) || "PUT".equals(method)) && "/pet".equals(path)) {
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+        } else if (path.equals("/pet/" + MISSING_PET_ID)) {
+            status = 404;
+            body = NOT_FOUND;
+        } else {
+            exchange.getRequestBody().close();
+            body = PET;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,97 @@
+package com.petstore.load;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@Feature("Load")
+@Story("Soak Trend Analysis")
+public class SoakTrendTests {
+
+    @Test(description = "A steady rise is fitted exactly and fails once it exceeds the allowed growth")
+    public void steadyRiseFails() {
+        // Given
+        // 100 MB rising by 2 MB per sample, 10 samples apart.
+        List<double[]> points = line(10, 100, 2);
+
+        // When
+        SoakRunner.Trend trend = SoakRunner.Trend.fit(SoakMetric.HEAP_AFTER_GC, points, 10);
+
+        // Then
+        assertThat(trend.getSamples()).isEqualTo(10);
+        assertThat(trend.getStart()).isCloseTo(100, within(1e-9));
+        assertThat(trend.getEnd()).isCloseTo(118, within(1e-9));
+        assertThat(trend.getAllowedGrowth()).isEqualTo(16);
+        assertThat(trend.isFailed()).isTrue();
+    }
+
+    @Test(description = "Noise around a flat baseline does not fail, even with large swings at the ends")
+    public void noisyFlatSeriesPasses() {
+        // Given
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            points.add(new double[] {i * 10.0, i % 2 == 0 ? 130 : 70});
+        }
+
+        // When
+        SoakRunner.Trend trend = SoakRunner.Trend.fit(SoakMetric.HEAP_AFTER_GC, points, 10);
+
+        // Then
+        assertThat(Math.abs(trend.getGrowth())).isLessThan(trend.getAllowedGrowth());
+        assertThat(trend.isFailed()).isFalse();
+    }
+
+    @Test(description = "A small baseline may grow by the metric's minimum growth")
+    public void minimumGrowthAppliesToSmallBaselines() {
+        // Given
+        // 10 threads growing to 13: 30 %, but only 3 threads.
+        List<double[]> points = line(4, 10, 1);
+
+        // When
+        SoakRunner.Trend trend = SoakRunner.Trend.fit(SoakMetric.THREADS, points, 20);
+
+        // Then
+        assertThat(trend.getGrowth()).isCloseTo(3, within(1e-9));
+        assertThat(trend.getAllowedGrowth()).isEqualTo(SoakMetric.THREADS.getMinGrowth());
+        assertThat(trend.isFailed()).isFalse();
+    }
+
+    @Test(description = "A falling metric never fails")
+    public void fallingMetricPasses() {
+        SoakRunner.Trend trend = SoakRunner.Trend.fit(SoakMetric.FILE_DESCRIPTORS, line(10, 200, -5), 0);
+
+        assertThat(trend.getGrowth()).isNegative();
+        assertThat(trend.isFailed()).isFalse();
+    }
+
+    @Test(description = "Too few samples give no verdict")
+    public void tooFewSamplesNeverFail() {
+        // Given
+        List<double[]> points = line(2, 100, 1000);
+
+        // When
+        SoakRunner.Trend trend = SoakRunner.Trend.fit(SoakMetric.HEAP_AFTER_GC, points, 0);
+
+        // Then
+        assertThat(trend.getSamples()).isEqualTo(2);
+        assertThat(trend.getStart()).isNaN();
+        assertThat(trend.isFailed()).isFalse();
+    }
+
+    /**
+     * @return {@code count} points 10 s apart on the line starting at {@code start}
+     */
+    private static List<double[]> line(int count, double start, double stepPerSample) {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            points.add(new double[] {i * 10.0, start + i * stepPerSample});
+        }
+        return points;
+    }
+}
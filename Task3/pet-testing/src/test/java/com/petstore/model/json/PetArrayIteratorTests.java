@@ -0,0 +1,98 @@
+package com.petstore.model.json;
+
+import com.petstore.model.Pet;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Feature("Model")
+@Story("JSON Codecs")
+public class PetArrayIteratorTests {
+
+    @Test(description = "Every pet in the array is returned in order, skipping null elements")
+    public void readsEveryPet() throws IOException {
+        // Given
+        String json = "[{\"id\":1,\"name\":\"a\"},null,{\"id\":2,\"name\":\"b\"}]";
+
+        // When
+        List<Pet> pets;
+        try (Stream<Pet> stream = PetArrayIterator.stream(input(json))) {
+            pets = stream.collect(Collectors.toList());
+        }
+
+        // Then
+        assertThat(pets).extracting(Pet::getId).containsExactly(1L, 2L);
+        assertThat(pets).extracting(Pet::getName).containsExactly("a", "b");
+    }
+
+    @Test(description = "An empty array has no pets, and the stream is closed once it is exhausted")
+    public void emptyArrayClosesStream() throws IOException {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream json = new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        PetArrayIterator iterator = new PetArrayIterator(json);
+
+        // When
+        boolean hasNext = iterator.hasNext();
+
+        // Then
+        assertThat(hasNext).isFalse();
+        assertThat(closed).isTrue();
+        assertThatThrownBy(iterator::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test(description = "A document that is not an array is rejected up front")
+    public void nonArrayIsRejected() {
+        assertThatThrownBy(() -> new PetArrayIterator(input("{\"id\":1}")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("START_OBJECT");
+    }
+
+    @Test(description = "An element that is not a pet object fails instead of ending the array early")
+    public void nonObjectElementFails() throws IOException {
+        // Given
+        PetArrayIterator iterator = new PetArrayIterator(input("[{\"id\":1},\"oops\",{\"id\":2}]"));
+
+        // When
+        Pet first = iterator.next();
+
+        // Then
+        assertThat(first.getId()).isEqualTo(1L);
+        assertThatThrownBy(iterator::hasNext).isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test(description = "A truncated array fails while reading")
+    public void truncatedArrayFails() throws IOException {
+        // Given
+        PetArrayIterator iterator = new PetArrayIterator(input("[{\"id\":1},{\"id\":"));
+
+        // When
+        iterator.next();
+
+        // Then
+        assertThatThrownBy(iterator::hasNext).isInstanceOf(UncheckedIOException.class);
+    }
+
+    private static InputStream input(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,137 @@
+package com.petstore.model.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.petstore.model.Category;
+import com.petstore.model.Pet;
+import com.petstore.model.Tag;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Feature("Model")
+@Story("JSON Codecs")
+public class PetCodecTests {
+
+    @Test(description = "A pet written by the codec reads back unchanged, and matches what databind reads")
+    public void petRoundTrips() throws IOException {
+        // Given
+        Pet pet = new Pet(7L, category(1L, "Dogs"), "doggie", List.of("http://img/1", "http://img/2"),
+                Arrays.asList(tag(2L, "friendly"), null), "available");
+
+        // When
+        byte[] json = PetCodec.toBytes(pet);
+
+        // Then
+        assertThat(PetCodec.fromBytes(json)).usingRecursiveComparison().isEqualTo(pet);
+        assertThat(ObjectMappers.shared().readValue(json, Pet.class)).usingRecursiveComparison().isEqualTo(pet);
+    }
+
+    @Test(description = "Null fields are omitted when writing and stay null when reading")
+    public void nullFieldsAreOmitted() {
+        // Given
+        Pet pet = new Pet();
+        pet.setName("doggie");
+
+        // When
+        byte[] json = PetCodec.toBytes(pet);
+
+        // Then
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"doggie\"}");
+        assertThat(PetCodec.fromBytes(json)).usingRecursiveComparison().isEqualTo(pet);
+    }
+
+    @Test(description = "Ids given as strings or fractions are coerced as databind does, and unknown fields are skipped")
+    public void idsAreCoerced() {
+        // Given
+        String json = "{\"id\":\"123\",\"extra\":{\"nested\":[1,2]},\"category\":{\"id\":4.0,\"name\":\"Cats\"},"
+                + "\"tags\":[{\"id\":\" 5 \",\"name\":\"calm\"},{\"id\":\"\"}],\"status\":\"sold\"}";
+
+        // When
+        Pet pet = PetCodec.fromBytes(json.getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertThat(pet.getId()).isEqualTo(123L);
+        assertThat(pet.getCategory().getId()).isEqualTo(4L);
+        assertThat(pet.getCategory().getName()).isEqualTo("Cats");
+        assertThat(pet.getTags()).extracting(Tag::getId).containsExactly(5L, null);
+        assertThat(pet.getStatus()).isEqualTo("sold");
+    }
+
+    @Test(description = "An id that is not a number is rejected")
+    public void nonNumericIdIsRejected() {
+        assertThatThrownBy(() -> PetCodec.fromBytes("{\"id\":\"abc\"}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasCauseInstanceOf(JsonParseException.class)
+                .hasMessageContaining("abc");
+    }
+
+    @Test(description = "A category, tag or pet that is not an object is rejected instead of read past")
+    public void nonObjectValuesAreRejected() {
+        assertThatThrownBy(() -> PetCodec.fromBytes("{\"category\":\"Dogs\",\"name\":\"doggie\"}"
+                .getBytes(StandardCharsets.UTF_8)))
+                .hasCauseInstanceOf(JsonParseException.class)
+                .hasMessageContaining("category");
+        assertThatThrownBy(() -> PetCodec.fromBytes("{\"tags\":[42]}".getBytes(StandardCharsets.UTF_8)))
+                .hasCauseInstanceOf(JsonParseException.class)
+                .hasMessageContaining("tag");
+        assertThatThrownBy(() -> PetCodec.fromBytes("[]".getBytes(StandardCharsets.UTF_8)))
+                .hasCauseInstanceOf(JsonParseException.class)
+                .hasMessageContaining("pet");
+    }
+
+    @Test(description = "Categories and tags round-trip on their own, and read null from a JSON null")
+    public void categoryAndTagRoundTrip() throws IOException {
+        // Given
+        Category category = category(1L, "Dogs");
+        Tag tag = tag(2L, "friendly");
+
+        // When
+        String categoryJson = ObjectMappers.shared().writeValueAsString(category);
+        String tagJson = ObjectMappers.shared().writeValueAsString(tag);
+
+        // Then
+        assertThat(categoryJson).isEqualTo("{\"id\":1,\"name\":\"Dogs\"}");
+        assertThat(readCategory(categoryJson)).usingRecursiveComparison().isEqualTo(category);
+        assertThat(readTag(tagJson)).usingRecursiveComparison().isEqualTo(tag);
+        assertThat(readCategory("null")).isNull();
+        assertThat(readTag("null")).isNull();
+    }
+
+    private static Category readCategory(String json) throws IOException {
+        try (JsonParser parser = ObjectMappers.factory().createParser(json)) {
+            parser.nextToken();
+            return CategoryCodec.read(parser);
+        }
+    }
+
+    private static Tag readTag(String json) throws IOException {
+        try (JsonParser parser = ObjectMappers.factory().createParser(json)) {
+            parser.nextToken();
+            return TagCodec.read(parser);
+        }
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private static Tag tag(Long id, String name) {
+        Tag tag = new Tag();
+        tag.setId(id);
+        tag.setName(name);
+        return tag;
+    }
+}
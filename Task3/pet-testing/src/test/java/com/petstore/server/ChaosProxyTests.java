@@ -0,0 +1,91 @@
+package com.petstore.server;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Feature("Resilience")
+@Story("Chaos Proxy")
+public class ChaosProxyTests {
+
+    @Test(description = "The Host header is replaced by the target's authority, whatever its case")
+    public void hostHeaderIsRewritten() {
+        // Given
+        byte[] head = ("GET /api/v3/pet/1 HTTP/1.1\r\n"
+                + "host: 127.0.0.1:41234\r\n"
+                + "Accept: application/json\r\n"
+                + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+
+        // When
+        byte[] rewritten = ChaosProxy.withHost(head, "petstore.local:8080");
+
+        // Then
+        assertThat(new String(rewritten, StandardCharsets.ISO_8859_1)).isEqualTo(
+                "GET /api/v3/pet/1 HTTP/1.1\r\n"
+                        + "Host: petstore.local:8080\r\n"
+                        + "Accept: application/json\r\n"
+                        + "\r\n");
+    }
+
+    @Test(description = "A head without a Host header is forwarded unchanged")
+    public void headWithoutHostIsUnchanged() {
+        byte[] head = "GET /host HTTP/1.0\r\nAccept: */*\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertThat(ChaosProxy.withHost(head, "petstore.local")).isEqualTo(head);
+    }
+
+    @Test(description = "The target receives its own authority in the Host header of proxied requests")
+    public void targetSeesItsOwnHost() throws Exception {
+        try (ServerSocket target = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            // Given
+            String targetAuthority = "127.0.0.1:" + target.getLocalPort();
+            CompletableFuture<String> received = CompletableFuture.supplyAsync(() -> answerOnce(target));
+
+            try (ChaosProxy proxy = new ChaosProxy("http://" + targetAuthority + "/api/v3", 0);
+                 Socket client = new Socket(InetAddress.getLoopbackAddress(), URI.create(proxy.getBaseUri()).getPort())) {
+                // When
+                OutputStream out = client.getOutputStream();
+                out.write(("GET /api/v3/pet/1 HTTP/1.1\r\nHost: " + URI.create(proxy.getBaseUri()).getAuthority() + "\r\n\r\n")
+                        .getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+
+                // Then
+                assertThat(received.get(10, TimeUnit.SECONDS)).contains("\r\nHost: " + targetAuthority + "\r\n");
+                assertThat(client.getInputStream().readAllBytes()).isNotEmpty();
+            }
+        }
+    }
+
+    private static String answerOnce(ServerSocket target) {
+        try (Socket socket = target.accept()) {
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream head = new ByteArrayOutputStream();
+            while (!head.toString(StandardCharsets.ISO_8859_1).endsWith("\r\n\r\n")) {
+                int b = in.read();
+                if (b == -1) {
+                    break;
+                }
+                head.write(b);
+            }
+            socket.getOutputStream().write("HTTP/1.1 204 No Content\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            return head.toString(StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}